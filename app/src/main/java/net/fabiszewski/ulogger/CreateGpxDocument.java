@@ -15,6 +15,12 @@ import android.content.Intent;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 
+import net.fabiszewski.ulogger.utils.ExportFormat;
+
+/**
+ * Create document contract for exported track.
+ * Input is suggested file name, document MIME type follows export format of its extension.
+ */
 public class CreateGpxDocument extends ActivityResultContracts.CreateDocument {
 
     public static final String GPX_MIME = "application/gpx+xml";
@@ -27,7 +33,7 @@ public class CreateGpxDocument extends ActivityResultContracts.CreateDocument {
     @Override
     public Intent createIntent(@NonNull Context context, @NonNull String input) {
         return super.createIntent(context, input)
-                .setType(GPX_MIME)
+                .setType(ExportFormat.fromFileName(input).mimeType)
                 .addCategory(Intent.CATEGORY_OPENABLE);
     }
 }
@@ -31,6 +31,7 @@ public class ExternalCommandReceiver extends BroadcastReceiver {
     private static final String START_NEW_LOGGER = "start new logger";
     private static final String STOP_LOGGER = "stop logger";
     private static final String START_UPLOAD = "start upload";
+    private static final String START_REPLAY = "start replay";
 
     @Override
     public void onReceive(@NonNull Context context, @Nullable Intent intent) {
@@ -48,6 +49,11 @@ public class ExternalCommandReceiver extends BroadcastReceiver {
                     case START_NEW_LOGGER -> startNewLoggerService(context, overwrite);
                     case STOP_LOGGER -> stopLogger(context);
                     case START_UPLOAD -> uploadData(context);
+                    case START_REPLAY -> {
+                        if (Logger.DEBUG) {
+                            startReplay(context, intent.getStringExtra("uri"), intent.getFloatExtra("speed", 1));
+                        }
+                    }
                 }
             }
         }
@@ -75,6 +81,24 @@ public class ExternalCommandReceiver extends BroadcastReceiver {
         ContextCompat.startForegroundService(context, intent);
     }
 
+    /**
+     * Start logger service replaying recorded fixes in new track
+     * Debug builds only
+     * @param context Context
+     * @param uri GPX file URI
+     * @param speed Replay speed multiplier, zero or less for maximum speed
+     */
+    private void startReplay(@NonNull Context context, @Nullable String uri, float speed) {
+        if (uri == null || LoggerService.isRunning()) {
+            return;
+        }
+        DbAccess.newTrack(context, AutoNamePreference.getAutoTrackName(context));
+        Intent intent = new Intent(context, LoggerService.class);
+        intent.putExtra(LoggerService.EXTRA_REPLAY_URI, uri);
+        intent.putExtra(LoggerService.EXTRA_REPLAY_SPEED, speed);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
     /**
      * Stop logger service
      * @param context Context
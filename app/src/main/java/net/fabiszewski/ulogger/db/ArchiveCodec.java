@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact encoding of archived track points.
+ * Chunk starts with version byte, rest is deflated:
+ * point count, provider table (count, then length prefixed UTF-8 names), followed by points.
+ * Each point is flags byte (optional values present, provider index in high nibble)
+ * and zigzag varint deltas of id, time (seconds), latitude and longitude (fixed point E7),
+ * altitude (dm), speed (cm/s), bearing (0.1°) and accuracy (dm).
+ * Deltas of optional values are taken from last point having that value.
+ */
+final class ArchiveCodec {
+
+    private static final int VERSION = 1;
+
+    static final int ALTITUDE = 0;
+    static final int SPEED = 1;
+    static final int BEARING = 2;
+    static final int ACCURACY = 3;
+    private static final int OPTIONAL_COUNT = 4;
+    /** Decimal places of quantized optional values */
+    static final int[] SCALE = { 1, 2, 1, 1 };
+    static final int COORDINATE_SCALE = 7;
+
+    private static final int MAX_PROVIDERS = 15;
+    private static final int PROVIDER_SHIFT = 4;
+
+    private ArchiveCodec() {}
+
+    /**
+     * Encoder of single chunk
+     */
+    static class Encoder {
+        private final ByteArrayOutputStream points = new ByteArrayOutputStream(16 * 1024);
+        private final List<String> providers = new ArrayList<>();
+        private final long[] lastOptional = new long[OPTIONAL_COUNT];
+        private int count = 0;
+        private long lastId = 0;
+        private long lastTime = 0;
+        private long lastLatitude = 0;
+        private long lastLongitude = 0;
+        private long startTime = 0;
+        private long endTime = 0;
+        private long minLatitude = Long.MAX_VALUE;
+        private long maxLatitude = Long.MIN_VALUE;
+        private long minLongitude = Long.MAX_VALUE;
+        private long maxLongitude = Long.MIN_VALUE;
+
+        /**
+         * Add point to chunk
+         *
+         * @param id Position id
+         * @param time UTC timestamp in seconds
+         * @param latitude Latitude
+         * @param longitude Longitude
+         * @param optional Altitude, speed, bearing and accuracy, NaN if missing
+         * @param provider Provider or null
+         * @return False if point does not fit in chunk provider table, chunk must be finished first
+         */
+        boolean add(long id, long time, double latitude, double longitude,
+                    @NonNull double[] optional, @Nullable String provider) {
+            int providerIndex = 0;
+            if (provider != null) {
+                providerIndex = providers.indexOf(provider) + 1;
+                if (providerIndex == 0) {
+                    if (providers.size() == MAX_PROVIDERS) {
+                        return false;
+                    }
+                    providers.add(provider);
+                    providerIndex = providers.size();
+                }
+            }
+            int flags = providerIndex << PROVIDER_SHIFT;
+            for (int i = 0; i < OPTIONAL_COUNT; i++) {
+                if (!Double.isNaN(optional[i])) {
+                    flags |= 1 << i;
+                }
+            }
+            points.write(flags);
+            writeDelta(id, lastId);
+            writeDelta(time, lastTime);
+            long latitudeE7 = quantize(latitude, COORDINATE_SCALE);
+            long longitudeE7 = quantize(longitude, COORDINATE_SCALE);
+            writeDelta(latitudeE7, lastLatitude);
+            writeDelta(longitudeE7, lastLongitude);
+            for (int i = 0; i < OPTIONAL_COUNT; i++) {
+                if ((flags & (1 << i)) != 0) {
+                    long value = quantize(optional[i], SCALE[i]);
+                    writeDelta(value, lastOptional[i]);
+                    lastOptional[i] = value;
+                }
+            }
+            lastId = id;
+            lastTime = time;
+            lastLatitude = latitudeE7;
+            lastLongitude = longitudeE7;
+            minLatitude = Math.min(minLatitude, latitudeE7);
+            maxLatitude = Math.max(maxLatitude, latitudeE7);
+            minLongitude = Math.min(minLongitude, longitudeE7);
+            maxLongitude = Math.max(maxLongitude, longitudeE7);
+            if (count == 0) {
+                startTime = time;
+            }
+            endTime = time;
+            count++;
+            return true;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getStartTime() {
+            return startTime;
+        }
+
+        long getEndTime() {
+            return endTime;
+        }
+
+        /** Bounds of added points, fixed point E7 */
+        long getMinLatitude() {
+            return minLatitude;
+        }
+
+        long getMaxLatitude() {
+            return maxLatitude;
+        }
+
+        long getMinLongitude() {
+            return minLongitude;
+        }
+
+        long getMaxLongitude() {
+            return maxLongitude;
+        }
+
+        /**
+         * Get encoded chunk
+         *
+         * @return Chunk bytes
+         */
+        @NonNull
+        byte[] finish() {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(points.size() + 64);
+            writeVarint(body, count);
+            writeVarint(body, providers.size());
+            for (String provider : providers) {
+                byte[] bytes = provider.getBytes(StandardCharsets.UTF_8);
+                writeVarint(body, bytes.length);
+                body.write(bytes, 0, bytes.length);
+            }
+            byte[] pointBytes = points.toByteArray();
+            body.write(pointBytes, 0, pointBytes.length);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() / 2 + 16);
+            out.write(VERSION);
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+            try {
+                deflater.setInput(body.toByteArray());
+                deflater.finish();
+                byte[] buffer = new byte[4096];
+                while (!deflater.finished()) {
+                    int length = deflater.deflate(buffer);
+                    out.write(buffer, 0, length);
+                }
+            } finally {
+                deflater.end();
+            }
+            return out.toByteArray();
+        }
+
+        private void writeDelta(long value, long previous) {
+            writeVarint(points, zigzag(value - previous));
+        }
+    }
+
+    /**
+     * Decoded chunk
+     */
+    static class Chunk {
+        final int count;
+        final long[] ids;
+        final long[] times;
+        final long[] latitudes;
+        final long[] longitudes;
+        /** Quantized optional values, indexed by point * 4 + value type */
+        final long[] optional;
+        final byte[] flags;
+        final String[] providers;
+
+        private Chunk(int count) {
+            this.count = count;
+            ids = new long[count];
+            times = new long[count];
+            latitudes = new long[count];
+            longitudes = new long[count];
+            optional = new long[count * OPTIONAL_COUNT];
+            flags = new byte[count];
+            providers = new String[count];
+        }
+
+        /**
+         * Check whether point has optional value
+         * @param point Point index
+         * @param type Value type
+         * @return True if present
+         */
+        boolean has(int point, int type) {
+            return (flags[point] & (1 << type)) != 0;
+        }
+
+        /**
+         * Get quantized optional value
+         * @param point Point index
+         * @param type Value type
+         * @return Value scaled by {@link #SCALE}
+         */
+        long get(int point, int type) {
+            return optional[point * OPTIONAL_COUNT + type];
+        }
+    }
+
+    /**
+     * Decode chunk
+     *
+     * @param data Chunk bytes
+     * @return Chunk
+     * @throws IOException On malformed data
+     */
+    @NonNull
+    static Chunk decode(@NonNull byte[] data) throws IOException {
+        if (data.length == 0 || data[0] != VERSION) {
+            throw new IOException("Unsupported archive chunk");
+        }
+        Reader reader = new Reader(inflate(data));
+        int count = (int) reader.readVarint();
+        int providerCount = (int) reader.readVarint();
+        if (count < 0 || providerCount < 0 || providerCount > MAX_PROVIDERS) {
+            throw new IOException("Invalid archive chunk header");
+        }
+        String[] providerTable = new String[providerCount];
+        for (int i = 0; i < providerCount; i++) {
+            providerTable[i] = reader.readString();
+        }
+        Chunk chunk = new Chunk(count);
+        long id = 0;
+        long time = 0;
+        long latitude = 0;
+        long longitude = 0;
+        long[] last = new long[OPTIONAL_COUNT];
+        for (int p = 0; p < count; p++) {
+            int flags = reader.readByte();
+            id += unzigzag(reader.readVarint());
+            time += unzigzag(reader.readVarint());
+            latitude += unzigzag(reader.readVarint());
+            longitude += unzigzag(reader.readVarint());
+            for (int i = 0; i < OPTIONAL_COUNT; i++) {
+                if ((flags & (1 << i)) != 0) {
+                    last[i] += unzigzag(reader.readVarint());
+                    chunk.optional[p * OPTIONAL_COUNT + i] = last[i];
+                }
+            }
+            int providerIndex = flags >>> PROVIDER_SHIFT;
+            if (providerIndex > providerCount) {
+                throw new IOException("Invalid provider index");
+            }
+            chunk.ids[p] = id;
+            chunk.times[p] = time;
+            chunk.latitudes[p] = latitude;
+            chunk.longitudes[p] = longitude;
+            chunk.flags[p] = (byte) flags;
+            chunk.providers[p] = providerIndex > 0 ? providerTable[providerIndex - 1] : null;
+        }
+        return chunk;
+    }
+
+    /**
+     * Quantize value to fixed point
+     * @param value Value
+     * @param scale Decimal places
+     * @return Fixed point value
+     */
+    static long quantize(double value, int scale) {
+        return Math.round(value * Math.pow(10, scale));
+    }
+
+    @NonNull
+    private static byte[] inflate(@NonNull byte[] data) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated archive chunk");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(@NonNull ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Reader of inflated chunk body
+     */
+    private static class Reader {
+        private final byte[] data;
+        private int position = 0;
+
+        Reader(@NonNull byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() throws IOException {
+            if (position >= data.length) {
+                throw new IOException("Truncated archive chunk");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        @NonNull
+        String readString() throws IOException {
+            int length = (int) readVarint();
+            if (length < 0 || position + length > data.length) {
+                throw new IOException("Truncated archive chunk");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.AbstractCursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only cursor over decoded archive chunk.
+ * Exposes positions table columns, so that archived points may be consumed
+ * by the same code as database rows. Numeric values are formatted on demand.
+ */
+class ArchiveCursor extends AbstractCursor {
+
+    private static final int FIELD_NULL = 0;
+    private static final int FIELD_ID = 1;
+    private static final int FIELD_TIME = 2;
+    private static final int FIELD_LATITUDE = 3;
+    private static final int FIELD_LONGITUDE = 4;
+    private static final int FIELD_PROVIDER = 5;
+    private static final int FIELD_WAYPOINT = 6;
+    private static final int FIELD_SYNCED = 7;
+    /** Optional values follow, field = FIELD_OPTIONAL + value type */
+    private static final int FIELD_OPTIONAL = 8;
+
+    private final String[] columnNames;
+    private final int[] fields;
+    private final ArchiveCodec.Chunk chunk;
+
+    /**
+     * @param columnNames Positions table columns to expose
+     * @param chunk Decoded chunk
+     */
+    ArchiveCursor(@NonNull String[] columnNames, @NonNull ArchiveCodec.Chunk chunk) {
+        this.columnNames = columnNames;
+        this.chunk = chunk;
+        fields = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            fields[i] = getField(columnNames[i]);
+        }
+    }
+
+    private static int getField(@NonNull String column) {
+        return switch (column) {
+            case DbContract.Positions._ID -> FIELD_ID;
+            case DbContract.Positions.COLUMN_TIME -> FIELD_TIME;
+            case DbContract.Positions.COLUMN_LATITUDE -> FIELD_LATITUDE;
+            case DbContract.Positions.COLUMN_LONGITUDE -> FIELD_LONGITUDE;
+            case DbContract.Positions.COLUMN_PROVIDER -> FIELD_PROVIDER;
+            case DbContract.Positions.COLUMN_WAYPOINT -> FIELD_WAYPOINT;
+            case DbContract.Positions.COLUMN_SYNCED -> FIELD_SYNCED;
+            case DbContract.Positions.COLUMN_ALTITUDE -> FIELD_OPTIONAL + ArchiveCodec.ALTITUDE;
+            case DbContract.Positions.COLUMN_SPEED -> FIELD_OPTIONAL + ArchiveCodec.SPEED;
+            case DbContract.Positions.COLUMN_BEARING -> FIELD_OPTIONAL + ArchiveCodec.BEARING;
+            case DbContract.Positions.COLUMN_ACCURACY -> FIELD_OPTIONAL + ArchiveCodec.ACCURACY;
+            // archived points have no comment or image
+            default -> FIELD_NULL;
+        };
+    }
+
+    /**
+     * Get time of current point
+     * @return UTC timestamp in seconds
+     */
+    long getTime() {
+        return chunk.times[getPosition()];
+    }
+
+    /**
+     * Get latitude of current point
+     * @return Fixed point E7
+     */
+    long getLatitudeE7() {
+        return chunk.latitudes[getPosition()];
+    }
+
+    /**
+     * Get longitude of current point
+     * @return Fixed point E7
+     */
+    long getLongitudeE7() {
+        return chunk.longitudes[getPosition()];
+    }
+
+    @Override
+    public int getCount() {
+        return chunk.count;
+    }
+
+    @NonNull
+    @Override
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    @Nullable
+    @Override
+    public String getString(int column) {
+        int field = fields[column];
+        int point = getPosition();
+        return switch (field) {
+            case FIELD_NULL -> null;
+            case FIELD_ID -> Long.toString(chunk.ids[point]);
+            case FIELD_TIME -> Long.toString(chunk.times[point]);
+            case FIELD_LATITUDE -> format(chunk.latitudes[point], ArchiveCodec.COORDINATE_SCALE);
+            case FIELD_LONGITUDE -> format(chunk.longitudes[point], ArchiveCodec.COORDINATE_SCALE);
+            case FIELD_PROVIDER -> chunk.providers[point];
+            case FIELD_WAYPOINT -> "0";
+            case FIELD_SYNCED -> "1";
+            default -> {
+                int type = field - FIELD_OPTIONAL;
+                yield chunk.has(point, type) ? format(chunk.get(point, type), ArchiveCodec.SCALE[type]) : null;
+            }
+        };
+    }
+
+    @Override
+    public double getDouble(int column) {
+        int field = fields[column];
+        int point = getPosition();
+        return switch (field) {
+            case FIELD_LATITUDE -> chunk.latitudes[point] / Math.pow(10, ArchiveCodec.COORDINATE_SCALE);
+            case FIELD_LONGITUDE -> chunk.longitudes[point] / Math.pow(10, ArchiveCodec.COORDINATE_SCALE);
+            case FIELD_NULL, FIELD_PROVIDER -> 0;
+            default -> {
+                if (field >= FIELD_OPTIONAL) {
+                    int type = field - FIELD_OPTIONAL;
+                    yield chunk.has(point, type) ? chunk.get(point, type) / Math.pow(10, ArchiveCodec.SCALE[type]) : 0;
+                }
+                yield getLong(column);
+            }
+        };
+    }
+
+    @Override
+    public long getLong(int column) {
+        int point = getPosition();
+        return switch (fields[column]) {
+            case FIELD_ID -> chunk.ids[point];
+            case FIELD_TIME -> chunk.times[point];
+            case FIELD_SYNCED -> 1;
+            case FIELD_NULL, FIELD_PROVIDER, FIELD_WAYPOINT -> 0;
+            default -> (long) getDouble(column);
+        };
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        int field = fields[column];
+        if (field >= FIELD_OPTIONAL) {
+            return !chunk.has(getPosition(), field - FIELD_OPTIONAL);
+        } else if (field == FIELD_PROVIDER) {
+            return chunk.providers[getPosition()] == null;
+        }
+        return field == FIELD_NULL;
+    }
+
+    @Override
+    public int getType(int column) {
+        int field = fields[column];
+        if (isNull(column)) {
+            return FIELD_TYPE_NULL;
+        } else if (field == FIELD_PROVIDER) {
+            return FIELD_TYPE_STRING;
+        } else if (field == FIELD_LATITUDE || field == FIELD_LONGITUDE || field >= FIELD_OPTIONAL) {
+            return FIELD_TYPE_FLOAT;
+        }
+        return FIELD_TYPE_INTEGER;
+    }
+
+    /**
+     * Format fixed point value without exponent and trailing zeros
+     * @param value Fixed point value
+     * @param scale Decimal places
+     * @return Decimal string
+     */
+    @NonNull
+    private static String format(long value, int scale) {
+        return BigDecimal.valueOf(value, scale).stripTrailingZeros().toPlainString();
+    }
+}
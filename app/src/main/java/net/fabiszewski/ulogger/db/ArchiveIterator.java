@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDatabaseCorruptException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming iterator over archived points.
+ * Chunks are fetched and decoded one at a time, in archive order, which is time order.
+ * Malformed chunk fails iteration with {@link SQLiteDatabaseCorruptException},
+ * so that archived points are never silently lost from export or summary.
+ * When area is given, only chunks with overlapping or unknown bounds are decoded.
+ */
+class ArchiveIterator implements PointIterator {
+
+    private final SQLiteDatabase db;
+    private final String[] columns;
+    private final long fromTime;
+    private final long toTime;
+    /** Area bounds in fixed point E7, null for no limit */
+    private final long[] area;
+
+    private ArchiveCursor chunk = null;
+    private long lastChunkId = 0;
+    private boolean isExhausted = false;
+
+    /**
+     * @param db Database
+     * @param columns Positions table columns exposed by cursor
+     * @param fromTime Start of range, UTC seconds inclusive, zero for no limit
+     * @param toTime End of range, UTC seconds inclusive, zero for no limit
+     */
+    ArchiveIterator(@NonNull SQLiteDatabase db, @NonNull String[] columns, long fromTime, long toTime) {
+        this(db, columns, null, fromTime, toTime);
+    }
+
+    /**
+     * @param db Database
+     * @param columns Positions table columns exposed by cursor
+     * @param area Area, null for no limit
+     * @param fromTime Start of range, UTC seconds inclusive, zero for no limit
+     * @param toTime End of range, UTC seconds inclusive, zero for no limit
+     */
+    ArchiveIterator(@NonNull SQLiteDatabase db, @NonNull String[] columns, @Nullable BoundingBox area,
+                    long fromTime, long toTime) {
+        this.db = db;
+        this.columns = columns;
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        if (area != null) {
+            this.area = new long[] {
+                    ArchiveCodec.quantize(area.minLatitude(), ArchiveCodec.COORDINATE_SCALE),
+                    ArchiveCodec.quantize(area.maxLatitude(), ArchiveCodec.COORDINATE_SCALE),
+                    ArchiveCodec.quantize(area.minLongitude(), ArchiveCodec.COORDINATE_SCALE),
+                    ArchiveCodec.quantize(area.maxLongitude(), ArchiveCodec.COORDINATE_SCALE)
+            };
+        } else {
+            this.area = null;
+        }
+    }
+
+    @Override
+    public boolean moveToNext() {
+        while (!isExhausted) {
+            if (chunk != null) {
+                while (chunk.moveToNext()) {
+                    long time = chunk.getTime();
+                    if (toTime > 0 && time > toTime) {
+                        // chunks are ordered, nothing more in range
+                        close();
+                        return false;
+                    }
+                    if (time >= fromTime && isInArea(chunk)) {
+                        return true;
+                    }
+                }
+                chunk.close();
+                chunk = null;
+            }
+            chunk = fetchChunk();
+            if (chunk == null) {
+                isExhausted = true;
+            }
+        }
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public Cursor getCursor() {
+        if (chunk == null) {
+            throw new IllegalStateException("No current row");
+        }
+        return chunk;
+    }
+
+    /**
+     * Check whether current point is inside area
+     * @param chunk Chunk cursor
+     * @return True if inside or there is no area limit
+     */
+    private boolean isInArea(@NonNull ArchiveCursor chunk) {
+        if (area == null) {
+            return true;
+        }
+        long latitude = chunk.getLatitudeE7();
+        long longitude = chunk.getLongitudeE7();
+        return latitude >= area[0] && latitude <= area[1] && longitude >= area[2] && longitude <= area[3];
+    }
+
+    /**
+     * Fetch and decode next chunk in range
+     * @return Cursor over chunk or null if there are no more chunks
+     * @throws SQLiteDatabaseCorruptException If chunk can not be decoded
+     */
+    private ArchiveCursor fetchChunk() {
+        List<String> args = new ArrayList<>();
+        String where = DbContract.Archive._ID + " > ?";
+        args.add(String.valueOf(lastChunkId));
+        if (fromTime > 0) {
+            where += " AND " + DbContract.Archive.COLUMN_END_TIME + " >= ?";
+            args.add(String.valueOf(fromTime));
+        }
+        if (toTime > 0) {
+            where += " AND " + DbContract.Archive.COLUMN_START_TIME + " <= ?";
+            args.add(String.valueOf(toTime));
+        }
+        if (area != null) {
+            where += " AND (" + DbContract.Archive.COLUMN_MIN_LATITUDE + " IS NULL OR (" +
+                    DbContract.Archive.COLUMN_MIN_LATITUDE + " <= ? AND " +
+                    DbContract.Archive.COLUMN_MAX_LATITUDE + " >= ? AND " +
+                    DbContract.Archive.COLUMN_MIN_LONGITUDE + " <= ? AND " +
+                    DbContract.Archive.COLUMN_MAX_LONGITUDE + " >= ?))";
+            args.add(String.valueOf(area[1]));
+            args.add(String.valueOf(area[0]));
+            args.add(String.valueOf(area[3]));
+            args.add(String.valueOf(area[2]));
+        }
+        try (Cursor cursor = db.query(DbContract.Archive.TABLE_NAME,
+                new String[] { DbContract.Archive._ID, DbContract.Archive.COLUMN_DATA },
+                where, args.toArray(new String[0]),
+                null, null, DbContract.Archive._ID, "1")) {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            lastChunkId = cursor.getLong(0);
+            try {
+                return new ArchiveCursor(columns, ArchiveCodec.decode(cursor.getBlob(1)));
+            } catch (IOException e) {
+                close();
+                throw new SQLiteDatabaseCorruptException("Archive chunk " + lastChunkId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (chunk != null) {
+            chunk.close();
+            chunk = null;
+        }
+        isExhausted = true;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Geographic area limited by latitude and longitude, bounds inclusive.
+ * Areas crossing antimeridian are not supported, they must be split in two.
+ *
+ * @param minLatitude South bound
+ * @param minLongitude West bound
+ * @param maxLatitude North bound
+ * @param maxLongitude East bound
+ */
+public record BoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+
+    /** Mean length of one degree of latitude */
+    private static final double METERS_PER_DEGREE = 111320;
+
+    public BoundingBox {
+        if (!(minLatitude >= -90 && minLatitude <= maxLatitude && maxLatitude <= 90)) {
+            throw new IllegalArgumentException("Invalid latitude range");
+        }
+        if (!(minLongitude >= -180 && minLongitude <= maxLongitude && maxLongitude <= 180)) {
+            throw new IllegalArgumentException("Invalid longitude range");
+        }
+    }
+
+    /**
+     * Get area around point.
+     * Area is clipped at poles and antimeridian.
+     *
+     * @param latitude Latitude of center
+     * @param longitude Longitude of center
+     * @param radius Distance from center to area edges in meters
+     * @return Area
+     */
+    @NonNull
+    public static BoundingBox around(double latitude, double longitude, double radius) {
+        double latitudeDelta = radius / METERS_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(latitude));
+        double longitudeDelta = cos > 0 ? radius / (METERS_PER_DEGREE * cos) : 180;
+        return new BoundingBox(Math.max(latitude - latitudeDelta, -90), Math.max(longitude - longitudeDelta, -180),
+                Math.min(latitude + latitudeDelta, 90), Math.min(longitude + longitudeDelta, 180));
+    }
+
+    /**
+     * Check whether point is inside area
+     * @param latitude Latitude
+     * @param longitude Longitude
+     * @return True if inside
+     */
+    public boolean contains(double latitude, double longitude) {
+        return latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude;
+    }
+}
@@ -14,8 +14,10 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.location.Location;
 import android.net.Uri;
+import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -28,22 +30,52 @@ import net.fabiszewski.ulogger.utils.ImageHelper;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
 /**
- * Gateway class for database access
+ * Gateway class for database access.
+ * Database connection is opened once and kept for process lifetime,
+ * with write-ahead logging readers do not block writer.
  */
 
-public class DbAccess implements AutoCloseable {
+public class DbAccess {
 
-    private static int openCount;
-    private static DbAccess instance;
+    private static final DbAccess instance = new DbAccess();
 
-    private static SQLiteDatabase db;
-    private static DbHelper dbHelper;
+    private static volatile SQLiteDatabase db;
+    private static StatementCache statements;
+    /** Cached track metadata, null until loaded */
+    private static volatile TrackMetadata track;
+    private static final Object trackLock = new Object();
     private static final String TAG = DbAccess.class.getSimpleName();
 
+    // literal values, so that partial indices match the query on all SQLite versions
+    static final String SELECTION_UNSYNCED = DbContract.Positions.COLUMN_SYNCED + " = 0";
+    static final String SELECTION_WAYPOINT = DbContract.Positions.COLUMN_WAYPOINT + " = 1";
+
+    private static final String SQL_SET_SYNCED =
+            "UPDATE " + DbContract.Positions.TABLE_NAME + " SET " + DbContract.Positions.COLUMN_SYNCED + " = 1 " +
+            "WHERE " + DbContract.Positions._ID + " = ?";
+    private static final String SQL_SELECT_IMAGE_URI =
+            "SELECT " + DbContract.Positions.COLUMN_IMAGE_URI + " FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "WHERE " + DbContract.Positions._ID + " = ?";
+    static final String SQL_COUNT_UNSYNCED =
+            "SELECT COUNT(*) FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "WHERE " + SELECTION_UNSYNCED;
+    private static final String SQL_SELECT_FIRST_TIME =
+            "SELECT MIN(t) FROM (" +
+            "SELECT CAST(MIN(" + DbContract.Positions.COLUMN_TIME + ") AS INTEGER) AS t FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "UNION ALL SELECT MIN(" + DbContract.Archive.COLUMN_START_TIME + ") FROM " + DbContract.Archive.TABLE_NAME + ")";
+    private static final String SQL_SELECT_LAST_TIME =
+            "SELECT MAX(t) FROM (" +
+            "SELECT CAST(MAX(" + DbContract.Positions.COLUMN_TIME + ") AS INTEGER) AS t FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "UNION ALL SELECT MAX(" + DbContract.Archive.COLUMN_END_TIME + ") FROM " + DbContract.Archive.TABLE_NAME + ")";
+    static final String SQL_COUNT_ARCHIVED =
+            "SELECT IFNULL(SUM(" + DbContract.Archive.COLUMN_COUNT + "), 0) FROM " + DbContract.Archive.TABLE_NAME;
+
     /**
      * Private constructor
      */
@@ -56,48 +88,54 @@ public class DbAccess implements AutoCloseable {
      * @return DbAccess singleton
      */
     @NonNull
-    public static synchronized DbAccess getInstance() {
-        if (instance == null) {
-            instance = new DbAccess();
-        }
+    public static DbAccess getInstance() {
         return instance;
     }
 
     /**
      * Get singleton instance with open database
-     * Needs to be closed
      *
      * @return DbAccess singleton
      */
     @NonNull
-    public static synchronized DbAccess getOpenInstance(@NonNull Context context) {
-        if (instance == null) {
-            instance = new DbAccess();
-        }
+    public static DbAccess getOpenInstance(@NonNull Context context) {
         instance.open(context);
         return instance;
     }
 
     /**
-     * Opens database
+     * Opens database if not already open.
+     * Lock is only taken on first open.
      *
      * @param context Context
      */
     public void open(@NonNull Context context) {
-        synchronized (DbAccess.class) {
-            if (openCount++ == 0) {
-                if (Logger.DEBUG) {
-                    Log.d(TAG, "[open]");
+        if (db == null) {
+            synchronized (DbAccess.class) {
+                if (db == null) {
+                    if (Logger.DEBUG) {
+                        Log.d(TAG, "[open]");
+                    }
+                    SQLiteDatabase database = DbHelper.getInstance(context.getApplicationContext()).getWritableDatabase();
+                    statements = new StatementCache(database);
+                    db = database;
                 }
-                dbHelper = DbHelper.getInstance(context.getApplicationContext());
-                db = dbHelper.getWritableDatabase();
-            }
-            if (Logger.DEBUG) {
-                Log.d(TAG, "[+openCount = " + openCount + "]");
             }
         }
     }
 
+    /**
+     * Get database handle for maintenance tasks
+     *
+     * @param context Context
+     * @return Open database
+     */
+    @NonNull
+    static SQLiteDatabase getDatabase(@NonNull Context context) {
+        instance.open(context);
+        return db;
+    }
+
     /**
      * Write location to database.
      *
@@ -110,33 +148,18 @@ public class DbAccess implements AutoCloseable {
         if (Logger.DEBUG) {
             Log.d(TAG, "[writeLocation]");
         }
-        ContentValues values = new ContentValues();
-        values.put(DbContract.Positions.COLUMN_TIME, loc.getTime() / 1000);
-        values.put(DbContract.Positions.COLUMN_LATITUDE, loc.getLatitude());
-        values.put(DbContract.Positions.COLUMN_LONGITUDE, loc.getLongitude());
-        if (loc.hasBearing()) {
-            values.put(DbContract.Positions.COLUMN_BEARING, loc.getBearing());
-        }
-        if (loc.hasAltitude()) {
-            values.put(DbContract.Positions.COLUMN_ALTITUDE, loc.getAltitude());
-        }
-        if (loc.hasSpeed()) {
-            values.put(DbContract.Positions.COLUMN_SPEED, loc.getSpeed());
-        }
-        if (loc.hasAccuracy()) {
-            values.put(DbContract.Positions.COLUMN_ACCURACY, loc.getAccuracy());
-        }
-        values.put(DbContract.Positions.COLUMN_PROVIDER, loc.getProvider());
-        if (comment != null && !comment.isEmpty()) {
-            values.put(DbContract.Positions.COLUMN_COMMENT, comment);
-        }
-        if (imageUri != null && !imageUri.isEmpty()) {
-            values.put(DbContract.Positions.COLUMN_IMAGE_URI, imageUri);
-        }
-        if (isWaypoint) {
-            values.put(DbContract.Positions.COLUMN_WAYPOINT, 1);
+        SQLiteStatement statement = statements.get(PositionInserter.SQL_INSERT);
+        // write connection is taken before statement lock, see StatementCache
+        db.beginTransactionNonExclusive();
+        try {
+            synchronized (statement) {
+                PositionInserter.bind(statement, loc, comment, imageUri, isWaypoint);
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
         }
-        db.insert(DbContract.Positions.TABLE_NAME, null, values);
     }
 
     /**
@@ -148,6 +171,37 @@ public class DbAccess implements AutoCloseable {
         writeLocation(context, location, null, null, false);
     }
 
+    /**
+     * Write locations to database in single transaction.
+     *
+     * @param locations Locations
+     */
+    private void writeLocations(@NonNull List<Location> locations) {
+        SQLiteStatement statement = statements.get(PositionInserter.SQL_INSERT);
+        db.beginTransactionNonExclusive();
+        try {
+            synchronized (statement) {
+                for (Location location : locations) {
+                    PositionInserter.bind(statement, location, null, null, false);
+                    statement.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Write locations to database in single transaction.
+     *
+     * @param context Context
+     * @param locations Locations
+     */
+    public static void writeLocations(@NonNull Context context, @NonNull List<Location> locations) {
+        getOpenInstance(context).writeLocations(locations);
+    }
+
     /**
      * Write waypoint to database.
      *
@@ -158,7 +212,6 @@ public class DbAccess implements AutoCloseable {
      */
     public static void writeWaypoint(@NonNull Context context, @NonNull Location location, @Nullable String comment, @Nullable String imageUri) {
         writeLocation(context, location, comment, imageUri, true);
-
     }
 
     /**
@@ -171,78 +224,198 @@ public class DbAccess implements AutoCloseable {
      * @param isWaypoint Waypoint if true, trackpoint otherwise
      */
     public static void writeLocation(@NonNull Context context, @NonNull Location location, @Nullable String comment, @Nullable String imageUri, boolean isWaypoint) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            dbAccess.writeLocation(location, comment, imageUri, isWaypoint);
-        }
+        getOpenInstance(context).writeLocation(location, comment, imageUri, isWaypoint);
     }
 
+
     /**
-     * Get result set containing all positions.
+     * Get bulk position inserter.
+     * Inserter holds open transaction and must be closed on the same thread.
      *
-     * @return Result set
+     * @return Inserter, needs to be closed
      */
     @NonNull
-    public Cursor getPositions() {
-        return db.query(DbContract.Positions.TABLE_NAME,
-                new String[]{ "*" },
-                null, null, null, null,
-                DbContract.Positions.COLUMN_TIME);
+    public PositionInserter getPositionInserter() {
+        return new PositionInserter(db, PositionInserter.DEFAULT_BATCH_SIZE);
     }
 
     /**
-     * Get result set containing position with given id
+     * Get paged iterator over all positions ordered by time.
+     * Includes archived positions.
      *
-     * @param id Position id
-     * @return Image URI
+     * @return Iterator, needs to be closed
      */
-     @Nullable
-     private Uri getImageUri(int id) {
-        Cursor query = db.query(DbContract.Positions.TABLE_NAME,
-                new String[]{ DbContract.Positions.COLUMN_IMAGE_URI },
-                DbContract.Positions._ID + " = ?",
-                new String[]{ Integer.toString(id) },
-                null, null, null);
-        Uri uri = null;
-        if (query.moveToFirst()) {
-            String imageUri = query.getString(0);
-            if (imageUri != null) {
-                uri = Uri.parse(imageUri);
+    @NonNull
+    public PointIterator getPositionsIterator() {
+        return getPositionsIterator(0, 0);
+    }
+
+    /**
+     * Get paged iterator over positions within time range ordered by time.
+     * Includes archived positions.
+     *
+     * @param fromTime Start of range, UTC seconds inclusive, zero for no limit
+     * @param toTime End of range, UTC seconds inclusive, zero for no limit
+     * @return Iterator, needs to be closed
+     */
+    @NonNull
+    public PointIterator getPositionsIterator(long fromTime, long toTime) {
+        return getPositionsIterator(null, fromTime, toTime);
+    }
+
+    /**
+     * Get paged iterator over positions within area and time range ordered by time.
+     * Includes archived positions.
+     *
+     * @param area Area, null for no limit
+     * @param fromTime Start of range, UTC seconds inclusive, zero for no limit
+     * @param toTime End of range, UTC seconds inclusive, zero for no limit
+     * @return Iterator, needs to be closed
+     */
+    @NonNull
+    public PointIterator getPositionsIterator(@Nullable BoundingBox area, long fromTime, long toTime) {
+        return new MergedPointIterator(getRangeIterator(null, area, fromTime, toTime),
+                new ArchiveIterator(db, getPositionColumnNames(), area, fromTime, toTime));
+    }
+
+    /**
+     * Get area around last saved position, including archived positions
+     *
+     * @param radius Distance from last position to area edges in meters
+     * @return Area or null if there are no positions
+     */
+    @Nullable
+    public BoundingBox getAreaAroundLastPosition(double radius) {
+        long lastTime = getLastTimestamp();
+        if (lastTime == 0) {
+            return null;
+        }
+        BoundingBox area = null;
+        try (PointIterator positions = getPositionsIterator(lastTime, lastTime)) {
+            // several positions may share last timestamp, latest is returned last
+            while (positions.moveToNext()) {
+                Cursor cursor = positions.getCursor();
+                area = BoundingBox.around(getLatitudeAsDouble(cursor), getLongitudeAsDouble(cursor), radius);
             }
         }
-        query.close();
-        return uri;
+        return area;
     }
 
     /**
-     * Get result set containing positions marked as not synchronized.
+     * Get names of all positions table columns, in table order
      *
-     * @return Result set
+     * @return Column names
      */
     @NonNull
-    public Cursor getUnsynced() {
-        return db.query(DbContract.Positions.TABLE_NAME,
-                new String[]{ "*" },
-                DbContract.Positions.COLUMN_SYNCED + " = ?",
-                new String[]{ "0" },
-                null, null,
-                DbContract.Positions.COLUMN_TIME);
+    private String[] getPositionColumnNames() {
+        try (Cursor cursor = db.query(DbContract.Positions.TABLE_NAME, null,
+                null, null, null, null, null, "0")) {
+            return cursor.getColumnNames();
+        }
     }
 
     /**
-     * Get result set containing waypoints.
+     * Get paged iterator over positions marked as not synchronized ordered by time.
      *
-     * @return Result set
+     * @return Iterator, needs to be closed
      */
     @NonNull
-    public Cursor getWaypoints() {
-        return db.query(DbContract.Positions.TABLE_NAME,
-                new String[]{ "*" },
-                DbContract.Positions.COLUMN_WAYPOINT + " = ?",
-                new String[]{ "1" },
-                null, null,
-                DbContract.Positions.COLUMN_TIME);
+    public PositionIterator getUnsyncedIterator() {
+        return new PositionIterator(db, new String[]{ "*" },
+                SELECTION_UNSYNCED, null,
+                PositionIterator.DEFAULT_PAGE_SIZE);
     }
 
+    /**
+     * Get paged iterator over waypoints ordered by time.
+     *
+     * @return Iterator, needs to be closed
+     */
+    @NonNull
+    public PositionIterator getWaypointsIterator() {
+        return getWaypointsIterator(0, 0);
+    }
+
+    /**
+     * Get paged iterator over waypoints within time range ordered by time.
+     *
+     * @param fromTime Start of range, UTC seconds inclusive, zero for no limit
+     * @param toTime End of range, UTC seconds inclusive, zero for no limit
+     * @return Iterator, needs to be closed
+     */
+    @NonNull
+    public PositionIterator getWaypointsIterator(long fromTime, long toTime) {
+        return getWaypointsIterator(null, fromTime, toTime);
+    }
+
+    /**
+     * Get paged iterator over waypoints within area and time range ordered by time.
+     *
+     * @param area Area, null for no limit
+     * @param fromTime Start of range, UTC seconds inclusive, zero for no limit
+     * @param toTime End of range, UTC seconds inclusive, zero for no limit
+     * @return Iterator, needs to be closed
+     */
+    @NonNull
+    public PositionIterator getWaypointsIterator(@Nullable BoundingBox area, long fromTime, long toTime) {
+        return getRangeIterator(SELECTION_WAYPOINT, area, fromTime, toTime);
+    }
+
+    /**
+     * Get paged iterator over positions within optional area and time range
+     *
+     * @param selection Optional additional selection without arguments
+     * @param area Area, null for no limit
+     * @param fromTime Start of range, zero for no limit
+     * @param toTime End of range, zero for no limit
+     * @return Iterator
+     */
+    @NonNull
+    private PositionIterator getRangeIterator(@Nullable String selection, @Nullable BoundingBox area,
+                                              long fromTime, long toTime) {
+        List<String> clauses = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        String table = DbContract.Positions.TABLE_NAME;
+        if (selection != null) {
+            clauses.add(selection);
+        }
+        if (area != null) {
+            List<String> tileArgs = new ArrayList<>();
+            String tileSelection = SpatialIndex.getTileSelection(area, tileArgs);
+            if (SpatialIndex.isSelective(db, tileSelection, tileArgs)) {
+                clauses.add(tileSelection);
+                args.addAll(tileArgs);
+                table = SpatialIndex.TABLE_BY_TILE;
+            }
+            clauses.add(SpatialIndex.getCoordinatesSelection(area, args));
+        }
+        if (fromTime > 0) {
+            clauses.add(DbContract.Positions.COLUMN_TIME + " >= ?");
+            args.add(String.valueOf(fromTime));
+        }
+        if (toTime > 0) {
+            clauses.add(DbContract.Positions.COLUMN_TIME + " <= ?");
+            args.add(String.valueOf(toTime));
+        }
+        String where = clauses.isEmpty() ? null : TextUtils.join(" AND ", clauses);
+        return new PositionIterator(db, table, new String[]{ "*" }, where, args.toArray(new String[0]),
+                PositionIterator.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Get result set containing position with given id
+     *
+     * @param id Position id
+     * @return Image URI
+     */
+     @Nullable
+     private Uri getImageUri(int id) {
+        String imageUri = statements.queryString(SQL_SELECT_IMAGE_URI, id);
+        return (imageUri != null) ? Uri.parse(imageUri) : null;
+    }
+
+
+
     /**
      * Get error message stored in track table.
      *
@@ -250,16 +423,7 @@ public class DbAccess implements AutoCloseable {
      */
     @Nullable
     private String getError() {
-        Cursor track = db.query(DbContract.Track.TABLE_NAME,
-                new String[]{ DbContract.Track.COLUMN_ERROR },
-                null, null, null, null, null,
-                "1");
-        String error = null;
-        if (track.moveToFirst()) {
-            error = track.getString(0);
-        }
-        track.close();
-        return error;
+        return getTrack().error();
     }
 
     /**
@@ -270,9 +434,7 @@ public class DbAccess implements AutoCloseable {
      */
     @Nullable
     public static String getError(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            return dbAccess.getError();
-        }
+        return getOpenInstance(context).getError();
     }
 
     /**
@@ -281,11 +443,17 @@ public class DbAccess implements AutoCloseable {
      * @param error Error message
      */
     public void setError(@Nullable String error) {
-        ContentValues values = new ContentValues();
-        values.put(DbContract.Track.COLUMN_ERROR, error);
-        db.update(DbContract.Track.TABLE_NAME,
-                values,
-                null, null);
+        synchronized (trackLock) {
+            ContentValues values = new ContentValues();
+            values.put(DbContract.Track.COLUMN_ERROR, error);
+            int rows = db.update(DbContract.Track.TABLE_NAME,
+                    values,
+                    null, null);
+            TrackMetadata current = getTrack();
+            if (rows > 0) {
+                track = new TrackMetadata(current.id(), current.name(), error);
+            }
+        }
     }
 
     public void resetError() {
@@ -300,12 +468,7 @@ public class DbAccess implements AutoCloseable {
      * @param id Position id
      */
     public void setSynced(@NonNull Context context, int id) {
-        ContentValues values = new ContentValues();
-        values.put(DbContract.Positions.COLUMN_SYNCED, 1);
-        db.update(DbContract.Positions.TABLE_NAME,
-                values,
-                DbContract.Positions._ID + " = ?",
-                new String[]{ String.valueOf(id) } );
+        statements.executeUpdateDelete(SQL_SET_SYNCED, id);
         Uri uri = getImageUri(id);
         if (uri != null) {
             ImageHelper.deleteLocalImage(context, uri);
@@ -318,7 +481,8 @@ public class DbAccess implements AutoCloseable {
      * @return Count
      */
     public int countPositions() {
-        return (int) DatabaseUtils.queryNumEntries(db, DbContract.Positions.TABLE_NAME);
+        return (int) (DatabaseUtils.queryNumEntries(db, DbContract.Positions.TABLE_NAME) +
+                statements.queryLong(SQL_COUNT_ARCHIVED, 0));
     }
 
     /**
@@ -327,8 +491,7 @@ public class DbAccess implements AutoCloseable {
      * @return Count
      */
     private int countUnsynced() {
-        return (int) DatabaseUtils.queryNumEntries(db, DbContract.Positions.TABLE_NAME,
-                DbContract.Positions.COLUMN_SYNCED + " = 0");
+        return (int) statements.queryLong(SQL_COUNT_UNSYNCED, 0);
     }
 
     /**
@@ -338,9 +501,7 @@ public class DbAccess implements AutoCloseable {
      * @return Count
      */
     public static int countUnsynced(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            return dbAccess.countUnsynced();
-        }
+        return getOpenInstance(context).countUnsynced();
     }
 
     /**
@@ -360,9 +521,7 @@ public class DbAccess implements AutoCloseable {
      * @return Count
      */
     public static int countImages(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            return dbAccess.countImages();
-        }
+        return getOpenInstance(context).countImages();
     }
 
     /**
@@ -383,9 +542,7 @@ public class DbAccess implements AutoCloseable {
      * @return True if synchronization needed, false otherwise
      */
     public static boolean needsSync(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            return dbAccess.needsSync();
-        }
+        return getOpenInstance(context).needsSync();
     }
 
     /**
@@ -394,7 +551,7 @@ public class DbAccess implements AutoCloseable {
      * @return UTC timestamp in seconds
      */
     public long getFirstTimestamp() {
-        return getLimitTimestamp("ASC");
+        return statements.queryLong(SQL_SELECT_FIRST_TIME, 0);
     }
 
     /**
@@ -403,27 +560,7 @@ public class DbAccess implements AutoCloseable {
      * @return UTC timestamp in seconds
      */
     private long getLastTimestamp() {
-        return getLimitTimestamp("DESC");
-    }
-
-    /**
-     * Get limiting timestamp: start or stop
-     * 
-     * @param sortDirection SQLite sort order keyword, one of "ASC" or "DESC"
-     * @return UTC timestamp in seconds
-     */
-    private long getLimitTimestamp(@NonNull String sortDirection) {
-        Cursor query = db.query(DbContract.Positions.TABLE_NAME,
-                new String[]{ DbContract.Positions.COLUMN_TIME },
-                null, null, null, null,
-                DbContract.Positions.COLUMN_TIME + " " + sortDirection,
-                "1");
-        long timestamp = 0;
-        if (query.moveToFirst()) {
-            timestamp = query.getInt(0);
-        }
-        query.close();
-        return timestamp;
+        return statements.queryLong(SQL_SELECT_LAST_TIME, 0);
     }
 
     /**
@@ -433,9 +570,7 @@ public class DbAccess implements AutoCloseable {
      * @return UTC timestamp in seconds
      */
     public static long getLastTimestamp(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            return dbAccess.getLastTimestamp();
-        }
+        return getOpenInstance(context).getLastTimestamp();
     }
 
     /**
@@ -444,17 +579,7 @@ public class DbAccess implements AutoCloseable {
      * @return Track id, zero if no track with valid id in database
      */
     public int getTrackId() {
-        Cursor track = db.query(DbContract.Track.TABLE_NAME,
-                new String[]{ DbContract.Track.COLUMN_ID },
-                DbContract.Track.COLUMN_ID + " IS NOT NULL",
-                null, null, null, null,
-                "1");
-        int trackId = 0;
-        if (track.moveToFirst()) {
-            trackId = track.getInt(0);
-        }
-        track.close();
-        return trackId;
+        return getTrack().id();
     }
 
     /**
@@ -464,16 +589,7 @@ public class DbAccess implements AutoCloseable {
      */
     @Nullable
     public String getTrackName() {
-        Cursor track = db.query(DbContract.Track.TABLE_NAME,
-                new String[]{ DbContract.Track.COLUMN_NAME },
-                null, null, null, null, null,
-                "1");
-        String trackName = null;
-        if (track.moveToFirst()) {
-            trackName = track.getString(0);
-        }
-        track.close();
-        return trackName;
+        return getTrack().name();
     }
 
     /**
@@ -484,9 +600,7 @@ public class DbAccess implements AutoCloseable {
      */
     @Nullable
     public static String getTrackName(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            return dbAccess.getTrackName();
-        }
+        return getOpenInstance(context).getTrackName();
     }
 
     /**
@@ -496,9 +610,7 @@ public class DbAccess implements AutoCloseable {
      * @return Track id, zero if no track with valid id in database
      */
     public static int getTrackId(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            return dbAccess.getTrackId();
-        }
+        return getOpenInstance(context).getTrackId();
     }
 
     /**
@@ -507,9 +619,15 @@ public class DbAccess implements AutoCloseable {
      * @param id New track id
      */
     public void setTrackId(int id) {
-        ContentValues values = new ContentValues();
-        values.put(DbContract.Track.COLUMN_ID, id);
-        db.update(DbContract.Track.TABLE_NAME, values, null, null);
+        synchronized (trackLock) {
+            ContentValues values = new ContentValues();
+            values.put(DbContract.Track.COLUMN_ID, id);
+            int rows = db.update(DbContract.Track.TABLE_NAME, values, null, null);
+            TrackMetadata current = getTrack();
+            if (rows > 0) {
+                track = new TrackMetadata(id, current.name(), current.error());
+            }
+        }
     }
 
     /**
@@ -519,10 +637,14 @@ public class DbAccess implements AutoCloseable {
      * @param name New track name
      */
     private void newTrack(@NonNull String name) {
-        clear();
-        ContentValues values = new ContentValues();
-        values.put(DbContract.Track.COLUMN_NAME, name);
-        db.insert(DbContract.Track.TABLE_NAME, null, values);
+        synchronized (trackLock) {
+            clear();
+            ContentValues values = new ContentValues();
+            values.put(DbContract.Track.COLUMN_NAME, name);
+            if (db.insert(DbContract.Track.TABLE_NAME, null, values) != -1) {
+                track = new TrackMetadata(0, name, null);
+            }
+        }
     }
 
     /**
@@ -533,18 +655,21 @@ public class DbAccess implements AutoCloseable {
      * @param name New track name
      */
     public static void newTrack(@NonNull Context context, @NonNull String name) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            ImageHelper.clearTrackImages(context);
-            dbAccess.newTrack(name);
-        }
+        ImageHelper.clearTrackImages(context);
+        getOpenInstance(context).newTrack(name);
     }
 
     /**
      * Truncate all tables
      */
     private void clear() {
-        truncateTrack();
+        synchronized (trackLock) {
+            truncateTrack();
+            track = TrackMetadata.EMPTY;
+        }
         truncatePositions();
+        truncateArchive();
+        resetPositionIds();
     }
 
     /**
@@ -554,10 +679,8 @@ public class DbAccess implements AutoCloseable {
      * @param context Context
      */
     public static void clearTrack(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context)) {
-            ImageHelper.clearTrackImages(context);
-            dbAccess.clear();
-        }
+        ImageHelper.clearTrackImages(context);
+        getOpenInstance(context).clear();
     }
 
 
@@ -574,28 +697,37 @@ public class DbAccess implements AutoCloseable {
     }
 
     /**
-     * Get track summary
+     * Get track summary, including archived positions
      *
      * @return TrackSummary object, null if no positions
      */
     @Nullable
     public static TrackSummary getTrackSummary(@NonNull Context context) {
-        try (DbAccess dbAccess = getOpenInstance(context);
-            Cursor positions = dbAccess.getPositions()) {
+        final String[] columns = new String[] {
+                DbContract.Positions._ID,
+                DbContract.Positions.COLUMN_TIME,
+                DbContract.Positions.COLUMN_LATITUDE,
+                DbContract.Positions.COLUMN_LONGITUDE
+        };
+        SQLiteDatabase database = getDatabase(context);
+        try (PointIterator positions = new MergedPointIterator(
+                    new PositionIterator(database, columns, null, null, PositionIterator.DEFAULT_PAGE_SIZE),
+                    new ArchiveIterator(database, columns, 0, 0))) {
             TrackSummary summary = null;
-            if (positions.moveToFirst()) {
+            if (positions.moveToNext()) {
                 double distance = 0.0;
                 long count = 1;
-                double startLon = getLongitudeAsDouble(positions);
-                double startLat = getLatitudeAsDouble(positions);
-                long startTime = getTimeAsLong(positions);
+                double startLon = getLongitudeAsDouble(positions.getCursor());
+                double startLat = getLatitudeAsDouble(positions.getCursor());
+                long startTime = getTimeAsLong(positions.getCursor());
                 long endTime = startTime;
+                float[] results = new float[1];
                 while (positions.moveToNext()) {
+                    Cursor cursor = positions.getCursor();
                     count++;
-                    double endLon = getLongitudeAsDouble(positions);
-                    double endLat = getLatitudeAsDouble(positions);
-                    endTime = getTimeAsLong(positions);
-                    float[] results = new float[1];
+                    double endLon = getLongitudeAsDouble(cursor);
+                    double endLat = getLatitudeAsDouble(cursor);
+                    endTime = getTimeAsLong(cursor);
                     Location.distanceBetween(startLat, startLon, endLat, endLon, results);
                     distance += results[0];
                     startLon = endLon;
@@ -608,6 +740,49 @@ public class DbAccess implements AutoCloseable {
         }
     }
 
+    /**
+     * Get track metadata, load it from database on first use.
+     * Later reads are served from memory, cache is updated on every track write.
+     *
+     * @return Track metadata
+     */
+    @NonNull
+    private TrackMetadata getTrack() {
+        TrackMetadata metadata = track;
+        if (metadata == null) {
+            synchronized (trackLock) {
+                metadata = track;
+                if (metadata == null) {
+                    metadata = loadTrack();
+                    track = metadata;
+                }
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Read track metadata from database
+     *
+     * @return Track metadata
+     */
+    @NonNull
+    private TrackMetadata loadTrack() {
+        if (Logger.DEBUG) {
+            Log.d(TAG, "[loadTrack]");
+        }
+        TrackMetadata metadata = TrackMetadata.EMPTY;
+        try (Cursor cursor = db.query(DbContract.Track.TABLE_NAME,
+                new String[]{ DbContract.Track.COLUMN_ID, DbContract.Track.COLUMN_NAME, DbContract.Track.COLUMN_ERROR },
+                null, null, null, null, null,
+                "1")) {
+            if (cursor.moveToFirst()) {
+                metadata = new TrackMetadata(cursor.getInt(0), cursor.getString(1), cursor.getString(2));
+            }
+        }
+        return metadata;
+    }
+
     /**
      * Deletes all track metadata.
      */
@@ -623,27 +798,17 @@ public class DbAccess implements AutoCloseable {
     }
 
     /**
-     * Closes database
+     * Restart position ids, only safe when positions and archive are empty
      */
-    @Override
-    public void close() {
-        synchronized (DbAccess.class) {
-            if (--openCount == 0) {
-                if (Logger.DEBUG) {
-                    Log.d(TAG, "[close]");
-                }
+    private void resetPositionIds() {
+        db.delete("sqlite_sequence", "name = ?", new String[] { DbContract.Positions.TABLE_NAME });
+    }
 
-                if (db != null) {
-                    db.close();
-                }
-                if (dbHelper != null) {
-                    dbHelper.close();
-                }
-            }
-            if (Logger.DEBUG) {
-                Log.d(TAG, "[-openCount = " + openCount + "]");
-            }
-        }
+    /**
+     * Deletes all archived positions
+     */
+    private void truncateArchive() {
+        db.delete(DbContract.Archive.TABLE_NAME, null, null);
     }
 
     /**
@@ -872,9 +1037,9 @@ public class DbAccess implements AutoCloseable {
      * Get time from positions cursor
      *
      * @param cursor Cursor
-     * @return Time
+     * @return UTC timestamp in seconds
      */
-    private static long getTimeAsLong(@NonNull Cursor cursor) {
+    public static long getTimeAsLong(@NonNull Cursor cursor) {
         return cursor.getLong(cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_TIME));
     }
 
@@ -903,6 +1068,51 @@ public class DbAccess implements AutoCloseable {
         return df.format(timestamp * 1000);
     }
 
+    /**
+     * Track metadata
+     *
+     * @param id Server track id, zero if not synchronized
+     * @param name Track name, null if there is no track
+     * @param error Last synchronization error or null
+     */
+    private record TrackMetadata(int id, @Nullable String name, @Nullable String error) {
+        static final TrackMetadata EMPTY = new TrackMetadata(0, null, null);
+    }
+
+    /**
+     * Column indices of positions cursor, resolved once for fast row access
+     */
+    public static class PositionColumns {
+        public final int id;
+        public final int time;
+        public final int latitude;
+        public final int longitude;
+        public final int altitude;
+        public final int bearing;
+        public final int speed;
+        public final int accuracy;
+        public final int provider;
+        public final int comment;
+        public final int imageUri;
+
+        /**
+         * @param cursor Positions cursor
+         */
+        public PositionColumns(@NonNull Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(DbContract.Positions._ID);
+            time = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_TIME);
+            latitude = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_LATITUDE);
+            longitude = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_LONGITUDE);
+            altitude = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_ALTITUDE);
+            bearing = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_BEARING);
+            speed = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_SPEED);
+            accuracy = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_ACCURACY);
+            provider = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_PROVIDER);
+            comment = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_COMMENT);
+            imageUri = cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_IMAGE_URI);
+        }
+    }
+
     /**
      * Get given column value as double
      *
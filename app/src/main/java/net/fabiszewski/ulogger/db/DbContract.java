@@ -35,10 +35,29 @@ public final class DbContract {
         static final String COLUMN_IMAGE_URI = "imageUri";
         static final String COLUMN_SYNCED = "synced";
         static final String COLUMN_WAYPOINT = "waypoint";
+        /** Grid cell, see SpatialIndex */
+        static final String COLUMN_TILE = "tile";
 
         static final String INDEX_TIME = "timeIdx";
         static final String INDEX_SYNCED = "syncedIdx";
         static final String INDEX_WAYPOINT = "waypointIdx";
+        static final String INDEX_UNSYNCED_TIME = "unsyncedTimeIdx";
+        static final String INDEX_WAYPOINT_TIME = "waypointTimeIdx";
+        static final String INDEX_TILE = "tileIdx";
+    }
+
+    /** Archive of compacted track points, see ArchiveCodec */
+    public static class Archive implements BaseColumns {
+        static final String TABLE_NAME = "archive";
+        static final String COLUMN_START_TIME = "startTime";
+        static final String COLUMN_END_TIME = "endTime";
+        static final String COLUMN_COUNT = "count";
+        static final String COLUMN_DATA = "data";
+        /** Bounds of chunk points, fixed point E7 */
+        static final String COLUMN_MIN_LATITUDE = "minLatitude";
+        static final String COLUMN_MAX_LATITUDE = "maxLatitude";
+        static final String COLUMN_MIN_LONGITUDE = "minLongitude";
+        static final String COLUMN_MAX_LONGITUDE = "maxLongitude";
     }
 
     /** Track table */
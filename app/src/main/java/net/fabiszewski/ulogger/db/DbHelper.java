@@ -9,7 +9,10 @@
 
 package net.fabiszewski.ulogger.db;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.util.Log;
@@ -18,6 +21,8 @@ import androidx.annotation.NonNull;
 
 import net.fabiszewski.ulogger.Logger;
 
+import java.io.IOException;
+
 /**
  * Database helper
  *
@@ -29,13 +34,13 @@ class DbHelper extends SQLiteOpenHelper {
 
     private static final String TAG = DbHelper.class.getSimpleName();
 
-    private static final int DATABASE_VERSION = 4;
+    private static final int DATABASE_VERSION = 8;
     private static final String DATABASE_NAME = "ulogger.db";
     private static final String BACKUP_SUFFIX = "_backup";
 
     private static final String SQL_CREATE_POSITIONS =
             "CREATE TABLE " + DbContract.Positions.TABLE_NAME + " (" +
-            DbContract.Positions._ID + " INTEGER PRIMARY KEY," +
+            DbContract.Positions._ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
             DbContract.Positions.COLUMN_TIME + " TEXT," +
             DbContract.Positions.COLUMN_LATITUDE + " TEXT," +
             DbContract.Positions.COLUMN_LONGITUDE + " TEXT," +
@@ -47,7 +52,8 @@ class DbHelper extends SQLiteOpenHelper {
             DbContract.Positions.COLUMN_COMMENT + " TEXT DEFAULT NULL," +
             DbContract.Positions.COLUMN_IMAGE_URI + " TEXT DEFAULT NULL," +
             DbContract.Positions.COLUMN_WAYPOINT + " INTEGER DEFAULT 0," +
-            DbContract.Positions.COLUMN_SYNCED + " INTEGER DEFAULT 0)";
+            DbContract.Positions.COLUMN_SYNCED + " INTEGER DEFAULT 0," +
+            DbContract.Positions.COLUMN_TILE + " INTEGER DEFAULT NULL)";
 
     private static final String SQL_POS_CREATE_INDEX_SYNCED =
             "CREATE INDEX " + DbContract.Positions.INDEX_SYNCED + " " +
@@ -61,18 +67,59 @@ class DbHelper extends SQLiteOpenHelper {
             "CREATE INDEX " + DbContract.Positions.INDEX_WAYPOINT + " " +
                     "ON " + DbContract.Positions.TABLE_NAME +  "(" + DbContract.Positions.COLUMN_WAYPOINT + ")";
 
+    private static final String SQL_POS_CREATE_INDEX_UNSYNCED_TIME =
+            "CREATE INDEX " + DbContract.Positions.INDEX_UNSYNCED_TIME + " " +
+            "ON " + DbContract.Positions.TABLE_NAME + "(" + DbContract.Positions.COLUMN_TIME + ") " +
+            "WHERE " + DbContract.Positions.COLUMN_SYNCED + " = 0";
+
+    private static final String SQL_POS_CREATE_INDEX_WAYPOINT_TIME =
+            "CREATE INDEX " + DbContract.Positions.INDEX_WAYPOINT_TIME + " " +
+            "ON " + DbContract.Positions.TABLE_NAME + "(" + DbContract.Positions.COLUMN_TIME + ") " +
+            "WHERE " + DbContract.Positions.COLUMN_WAYPOINT + " = 1";
+
+    private static final String SQL_POS_CREATE_INDEX_TILE =
+            "CREATE INDEX " + DbContract.Positions.INDEX_TILE + " " +
+            "ON " + DbContract.Positions.TABLE_NAME + "(" + DbContract.Positions.COLUMN_TILE + ")";
+
     private static final String SQL_POS_DROP_INDEX_SYNCED =
             "DROP INDEX IF EXISTS " + DbContract.Positions.INDEX_SYNCED;
 
     private static final String SQL_POS_DROP_INDEX_TIME =
             "DROP INDEX IF EXISTS " + DbContract.Positions.INDEX_TIME;
 
+    private static final String SQL_POS_DROP_INDEX_WAYPOINT =
+            "DROP INDEX IF EXISTS " + DbContract.Positions.INDEX_WAYPOINT;
+
+    private static final String SQL_POS_DROP_INDEX_UNSYNCED_TIME =
+            "DROP INDEX IF EXISTS " + DbContract.Positions.INDEX_UNSYNCED_TIME;
+
+    private static final String SQL_POS_DROP_INDEX_WAYPOINT_TIME =
+            "DROP INDEX IF EXISTS " + DbContract.Positions.INDEX_WAYPOINT_TIME;
+
+    private static final String SQL_POS_DROP_INDEX_TILE =
+            "DROP INDEX IF EXISTS " + DbContract.Positions.INDEX_TILE;
+
     private static final String SQL_CREATE_TRACK =
             "CREATE TABLE " + DbContract.Track.TABLE_NAME + " (" +
             DbContract.Track.COLUMN_ID + " INTEGER DEFAULT NULL," +
             DbContract.Track.COLUMN_NAME + " TEXT," +
             DbContract.Track.COLUMN_ERROR + " TEXT DEFAULT NULL)";
 
+    private static final String SQL_CREATE_ARCHIVE =
+            "CREATE TABLE " + DbContract.Archive.TABLE_NAME + " (" +
+            DbContract.Archive._ID + " INTEGER PRIMARY KEY," +
+            DbContract.Archive.COLUMN_START_TIME + " INTEGER," +
+            DbContract.Archive.COLUMN_END_TIME + " INTEGER," +
+            DbContract.Archive.COLUMN_COUNT + " INTEGER," +
+            DbContract.Archive.COLUMN_DATA + " BLOB," +
+            DbContract.Archive.COLUMN_MIN_LATITUDE + " INTEGER DEFAULT NULL," +
+            DbContract.Archive.COLUMN_MAX_LATITUDE + " INTEGER DEFAULT NULL," +
+            DbContract.Archive.COLUMN_MIN_LONGITUDE + " INTEGER DEFAULT NULL," +
+            DbContract.Archive.COLUMN_MAX_LONGITUDE + " INTEGER DEFAULT NULL)";
+
+    private static final String SQL_DROP_ARCHIVE =
+            "DROP TABLE IF EXISTS " + DbContract.Archive.TABLE_NAME;
+
     private static final String SQL_DROP_POSITIONS =
             "DROP TABLE IF EXISTS " + DbContract.Positions.TABLE_NAME;
 
@@ -91,6 +138,25 @@ class DbHelper extends SQLiteOpenHelper {
             "ALTER TABLE " + DbContract.Positions.TABLE_NAME + " ADD COLUMN " +
                     DbContract.Positions.COLUMN_WAYPOINT + " INTEGER DEFAULT 0";
 
+    private static final String SQL_POS_ADD_COLUMN_TILE =
+            "ALTER TABLE " + DbContract.Positions.TABLE_NAME + " ADD COLUMN " +
+            DbContract.Positions.COLUMN_TILE + " INTEGER DEFAULT NULL";
+
+    private static final String SQL_POS_UPDATE_TILE =
+            "UPDATE " + DbContract.Positions.TABLE_NAME + " " +
+            "SET " + DbContract.Positions.COLUMN_TILE + " = " + SpatialIndex.SQL_TILE;
+
+    private static final String[] SQL_ARCHIVE_ADD_COLUMNS_BOUNDS = {
+            "ALTER TABLE " + DbContract.Archive.TABLE_NAME + " ADD COLUMN " +
+            DbContract.Archive.COLUMN_MIN_LATITUDE + " INTEGER DEFAULT NULL",
+            "ALTER TABLE " + DbContract.Archive.TABLE_NAME + " ADD COLUMN " +
+            DbContract.Archive.COLUMN_MAX_LATITUDE + " INTEGER DEFAULT NULL",
+            "ALTER TABLE " + DbContract.Archive.TABLE_NAME + " ADD COLUMN " +
+            DbContract.Archive.COLUMN_MIN_LONGITUDE + " INTEGER DEFAULT NULL",
+            "ALTER TABLE " + DbContract.Archive.TABLE_NAME + " ADD COLUMN " +
+            DbContract.Archive.COLUMN_MAX_LONGITUDE + " INTEGER DEFAULT NULL"
+    };
+
     private static final String SQL_TRACK_ADD_COLUMN_ERROR =
             "ALTER TABLE " + DbContract.Track.TABLE_NAME + " ADD COLUMN " +
             DbContract.Track.COLUMN_ERROR + " TEXT DEFAULT NULL";
@@ -126,9 +192,39 @@ class DbHelper extends SQLiteOpenHelper {
             DbContract.Positions.COLUMN_SYNCED + " " +
             "FROM " + DbContract.Positions.TABLE_NAME + BACKUP_SUFFIX;
 
+    private static final String POSITIONS_COLUMNS_V8 =
+            DbContract.Positions._ID + "," +
+            DbContract.Positions.COLUMN_TIME + "," +
+            DbContract.Positions.COLUMN_LATITUDE + "," +
+            DbContract.Positions.COLUMN_LONGITUDE + "," +
+            DbContract.Positions.COLUMN_ALTITUDE + "," +
+            DbContract.Positions.COLUMN_BEARING + "," +
+            DbContract.Positions.COLUMN_SPEED + "," +
+            DbContract.Positions.COLUMN_ACCURACY + "," +
+            DbContract.Positions.COLUMN_PROVIDER + "," +
+            DbContract.Positions.COLUMN_COMMENT + "," +
+            DbContract.Positions.COLUMN_IMAGE_URI + "," +
+            DbContract.Positions.COLUMN_WAYPOINT + "," +
+            DbContract.Positions.COLUMN_SYNCED + "," +
+            DbContract.Positions.COLUMN_TILE;
+
+    private static final String SQL_COPY_POSITIONS_FROM_V7 =
+            "INSERT INTO " + DbContract.Positions.TABLE_NAME + " (" + POSITIONS_COLUMNS_V8 + ") " +
+            "SELECT " + POSITIONS_COLUMNS_V8 + " " +
+            "FROM " + DbContract.Positions.TABLE_NAME + BACKUP_SUFFIX;
+
+    private static final String SQL_IS_POSITIONS_AUTOINCREMENT =
+            "SELECT COUNT(*) FROM sqlite_master " +
+            "WHERE type = 'table' AND name = '" + DbContract.Positions.TABLE_NAME + "' AND sql LIKE '%AUTOINCREMENT%'";
+
+    private static final String SQL_MAX_POSITION_ID =
+            "SELECT IFNULL(MAX(" + DbContract.Positions._ID + "), 0) FROM " + DbContract.Positions.TABLE_NAME;
+
     private static final String SQL_DROP_POSITIONS_BACKUP =
             "DROP TABLE IF EXISTS " + DbContract.Positions.TABLE_NAME + BACKUP_SUFFIX;
 
+    static final String SQL_AUTO_VACUUM_INCREMENTAL = "PRAGMA auto_vacuum = INCREMENTAL";
+
     /**
      * Private constructor
      *
@@ -136,6 +232,8 @@ class DbHelper extends SQLiteOpenHelper {
      */
     private DbHelper(@NonNull Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // concurrent readers use separate pooled connections
+        setWriteAheadLoggingEnabled(true);
     }
 
     /**
@@ -153,6 +251,17 @@ class DbHelper extends SQLiteOpenHelper {
         return instance;
     }
 
+    /**
+     * Configure connection before tables are created
+     *
+     * @param db Database handle
+     */
+    @Override
+    public void onConfigure(@NonNull SQLiteDatabase db) {
+        // only effective for new database, existing ones are converted by DbMaintenance
+        db.execSQL(SQL_AUTO_VACUUM_INCREMENTAL);
+    }
+
     /**
      * Create track and positions tables
      *
@@ -161,9 +270,11 @@ class DbHelper extends SQLiteOpenHelper {
     public void onCreate(@NonNull SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_POSITIONS);
         db.execSQL(SQL_POS_CREATE_INDEX_TIME);
-        db.execSQL(SQL_POS_CREATE_INDEX_SYNCED);
-        db.execSQL(SQL_POS_CREATE_INDEX_WAYPOINT);
+        db.execSQL(SQL_POS_CREATE_INDEX_UNSYNCED_TIME);
+        db.execSQL(SQL_POS_CREATE_INDEX_WAYPOINT_TIME);
+        db.execSQL(SQL_POS_CREATE_INDEX_TILE);
         db.execSQL(SQL_CREATE_TRACK);
+        db.execSQL(SQL_CREATE_ARCHIVE);
     }
 
     /**
@@ -180,10 +291,27 @@ class DbHelper extends SQLiteOpenHelper {
                 migrateToVersion2(db);
                 // fallthrough
             case 2:
+                // recreates positions table with current columns
                 migrateToVersion3(db);
+                migrateToVersion5(db);
+                migrateToVersion6(db);
+                migrateToVersion7(db);
+                migrateToVersion8(db);
                 break;
             case 3:
                 migrateToVersion4(db);
+                // fallthrough
+            case 4:
+                migrateToVersion5(db);
+                // fallthrough
+            case 5:
+                migrateToVersion6(db);
+                // fallthrough
+            case 6:
+                migrateToVersion7(db);
+                // fallthrough
+            case 7:
+                migrateToVersion8(db);
                 break;
             default:
                 dropAndCreate(db);
@@ -198,6 +326,7 @@ class DbHelper extends SQLiteOpenHelper {
     private void dropAndCreate(@NonNull SQLiteDatabase db) {
         db.execSQL(SQL_DROP_POSITIONS);
         db.execSQL(SQL_DROP_TRACK);
+        db.execSQL(SQL_DROP_ARCHIVE);
         onCreate(db);
     }
 
@@ -252,6 +381,129 @@ class DbHelper extends SQLiteOpenHelper {
         db.execSQL(SQL_POS_CREATE_INDEX_WAYPOINT);
     }
 
+    /**
+     * Migrates base from version 4 to 5
+     *
+     * @param db Database handle
+     */
+    private void migrateToVersion5(@NonNull SQLiteDatabase db) {
+        if (Logger.DEBUG) { Log.d(TAG, "[migrateToVersion5]"); }
+
+        // replace low cardinality indices with partial indices on time
+        db.execSQL(SQL_POS_DROP_INDEX_SYNCED);
+        db.execSQL(SQL_POS_DROP_INDEX_WAYPOINT);
+        db.execSQL(SQL_POS_CREATE_INDEX_UNSYNCED_TIME);
+        db.execSQL(SQL_POS_CREATE_INDEX_WAYPOINT_TIME);
+    }
+
+    /**
+     * Migrates base from version 5 to 6
+     *
+     * @param db Database handle
+     */
+    private void migrateToVersion6(@NonNull SQLiteDatabase db) {
+        if (Logger.DEBUG) { Log.d(TAG, "[migrateToVersion6]"); }
+
+        db.execSQL(SQL_CREATE_ARCHIVE);
+    }
+
+    /**
+     * Migrates base from version 6 to 7
+     *
+     * @param db Database handle
+     */
+    private void migrateToVersion7(@NonNull SQLiteDatabase db) {
+        if (Logger.DEBUG) { Log.d(TAG, "[migrateToVersion7]"); }
+
+        // tables created by earlier migrations already have current columns
+        if (!hasColumn(db, DbContract.Positions.TABLE_NAME, DbContract.Positions.COLUMN_TILE)) {
+            db.execSQL(SQL_POS_ADD_COLUMN_TILE);
+        }
+        db.execSQL(SQL_POS_UPDATE_TILE);
+        db.execSQL(SQL_POS_CREATE_INDEX_TILE);
+        // bounds of existing chunks stay unknown
+        if (!hasColumn(db, DbContract.Archive.TABLE_NAME, DbContract.Archive.COLUMN_MIN_LATITUDE)) {
+            for (String sql : SQL_ARCHIVE_ADD_COLUMNS_BOUNDS) {
+                db.execSQL(sql);
+            }
+        }
+    }
+
+    /**
+     * Migrates base from version 7 to 8
+     *
+     * @param db Database handle
+     */
+    private void migrateToVersion8(@NonNull SQLiteDatabase db) {
+        if (Logger.DEBUG) { Log.d(TAG, "[migrateToVersion8]"); }
+
+        // tables created by earlier migrations already have autoincrement key
+        if (DatabaseUtils.longForQuery(db, SQL_IS_POSITIONS_AUTOINCREMENT, null) == 0) {
+            // ids of archived positions must not be reused, recreate with autoincrement key
+            db.execSQL(SQL_MOVE_POSITIONS_TO_BACKUP);
+            // indices must be dropped as names collide with create index
+            db.execSQL(SQL_POS_DROP_INDEX_TIME);
+            db.execSQL(SQL_POS_DROP_INDEX_UNSYNCED_TIME);
+            db.execSQL(SQL_POS_DROP_INDEX_WAYPOINT_TIME);
+            db.execSQL(SQL_POS_DROP_INDEX_TILE);
+            db.execSQL(SQL_CREATE_POSITIONS);
+            db.execSQL(SQL_POS_CREATE_INDEX_TIME);
+            db.execSQL(SQL_POS_CREATE_INDEX_UNSYNCED_TIME);
+            db.execSQL(SQL_POS_CREATE_INDEX_WAYPOINT_TIME);
+            db.execSQL(SQL_POS_CREATE_INDEX_TILE);
+            db.execSQL(SQL_COPY_POSITIONS_FROM_V7);
+            db.execSQL(SQL_DROP_POSITIONS_BACKUP);
+        }
+        // positions table may already be empty while archive still holds higher ids
+        long maxId = Math.max(DatabaseUtils.longForQuery(db, SQL_MAX_POSITION_ID, null), getMaxArchivedId(db));
+        if (maxId > 0) {
+            db.delete("sqlite_sequence", "name = ?", new String[] { DbContract.Positions.TABLE_NAME });
+            ContentValues values = new ContentValues();
+            values.put("name", DbContract.Positions.TABLE_NAME);
+            values.put("seq", maxId);
+            db.insert("sqlite_sequence", null, values);
+        }
+    }
+
+    /**
+     * Get highest position id stored in archive
+     *
+     * @param db Database handle
+     * @return Highest id, zero if archive is empty
+     */
+    private static long getMaxArchivedId(@NonNull SQLiteDatabase db) {
+        long maxId = 0;
+        try (Cursor cursor = db.query(DbContract.Archive.TABLE_NAME, new String[] { DbContract.Archive.COLUMN_DATA },
+                null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                try {
+                    ArchiveCodec.Chunk chunk = ArchiveCodec.decode(cursor.getBlob(0));
+                    for (int i = 0; i < chunk.count; i++) {
+                        maxId = Math.max(maxId, chunk.ids[i]);
+                    }
+                } catch (IOException e) {
+                    // unreadable chunk is reported when archive is read, its ids can not be recovered here
+                    if (Logger.DEBUG) { Log.d(TAG, "[skipping malformed archive chunk: " + e.getMessage() + "]"); }
+                }
+            }
+        }
+        return maxId;
+    }
+
+    /**
+     * Check whether table has column
+     *
+     * @param db Database handle
+     * @param table Table name
+     * @param column Column name
+     * @return True if column exists
+     */
+    private static boolean hasColumn(@NonNull SQLiteDatabase db, @NonNull String table, @NonNull String column) {
+        try (Cursor cursor = db.query(table, null, null, null, null, null, null, "0")) {
+            return cursor.getColumnIndex(column) != -1;
+        }
+    }
+
     /**
      * On downgrade just drop and recreate tables
      * Warning: data will be lost
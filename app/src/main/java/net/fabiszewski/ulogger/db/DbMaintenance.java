@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.preference.PreferenceManager;
+
+import net.fabiszewski.ulogger.Logger;
+import net.fabiszewski.ulogger.R;
+import net.fabiszewski.ulogger.ui.SettingsActivity;
+import net.fabiszewski.ulogger.utils.AppExecutor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Database retention and compaction.
+ * Removes synchronized positions according to retention preferences,
+ * optionally moves older synchronized track points to lossy compact archive
+ * and returns free pages to file system with incremental vacuum.
+ */
+public class DbMaintenance {
+
+    private static final String TAG = DbMaintenance.class.getSimpleName();
+
+    /** Minimum interval between maintenance runs */
+    private static final long MIN_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+    /** Positions newer than this are not archived */
+    private static final long ARCHIVE_MIN_AGE_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final int CHUNK_SIZE = 500;
+
+    /** Archived columns, in order used by archive() */
+    private static final String[] ARCHIVE_COLUMNS = {
+            DbContract.Positions._ID,
+            DbContract.Positions.COLUMN_TIME,
+            DbContract.Positions.COLUMN_LATITUDE,
+            DbContract.Positions.COLUMN_LONGITUDE,
+            DbContract.Positions.COLUMN_ALTITUDE,
+            DbContract.Positions.COLUMN_SPEED,
+            DbContract.Positions.COLUMN_BEARING,
+            DbContract.Positions.COLUMN_ACCURACY,
+            DbContract.Positions.COLUMN_PROVIDER
+    };
+    private static final int ARCHIVE_OPTIONAL_OFFSET = 4;
+    private static final int ARCHIVE_PROVIDER = 8;
+
+    /** Synchronized track points without comment or image */
+    private static final String SELECTION_ARCHIVABLE =
+            DbContract.Positions.COLUMN_SYNCED + " = 1 AND " +
+            DbContract.Positions.COLUMN_WAYPOINT + " = 0 AND " +
+            DbContract.Positions.COLUMN_COMMENT + " IS NULL AND " +
+            DbContract.Positions.COLUMN_IMAGE_URI + " IS NULL AND " +
+            DbContract.Positions.COLUMN_TIME + " < ?";
+    private static final String SQL_MIN_UNSYNCED_TIME =
+            "SELECT MIN(" + DbContract.Positions.COLUMN_TIME + ") FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "WHERE " + DbContract.Positions.COLUMN_SYNCED + " = 0";
+    private static final String SQL_DELETE_POSITION =
+            "DELETE FROM " + DbContract.Positions.TABLE_NAME + " WHERE " + DbContract.Positions._ID + " = ?";
+    private static final String SQL_COUNT_SYNCED =
+            "SELECT COUNT(*) FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "WHERE " + DbContract.Positions.COLUMN_SYNCED + " = 1";
+    private static final String SQL_DELETE_ARCHIVE_BEFORE =
+            "DELETE FROM " + DbContract.Archive.TABLE_NAME + " WHERE " + DbContract.Archive.COLUMN_END_TIME + " < ?";
+    /** Deletes oldest chunks, keeps newest chunks with given total count of points */
+    private static final String SQL_DELETE_ARCHIVE_BEYOND =
+            "DELETE FROM " + DbContract.Archive.TABLE_NAME + " " +
+            "WHERE " + DbContract.Archive._ID + " IN (" +
+            "SELECT a." + DbContract.Archive._ID + " FROM " + DbContract.Archive.TABLE_NAME + " a " +
+            "WHERE (SELECT SUM(b." + DbContract.Archive.COLUMN_COUNT + ") FROM " + DbContract.Archive.TABLE_NAME + " b " +
+            "WHERE b." + DbContract.Archive._ID + " >= a." + DbContract.Archive._ID + ") > ?)";
+
+    private static final String SQL_DELETE_SYNCED_BEFORE =
+            "DELETE FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "WHERE " + DbContract.Positions.COLUMN_SYNCED + " = 1 AND " + DbContract.Positions.COLUMN_TIME + " < ?";
+    private static final String SQL_DELETE_SYNCED_BEYOND =
+            "DELETE FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "WHERE " + DbContract.Positions._ID + " IN (" +
+            "SELECT " + DbContract.Positions._ID + " FROM " + DbContract.Positions.TABLE_NAME + " " +
+            "WHERE " + DbContract.Positions.COLUMN_SYNCED + " = 1 " +
+            "ORDER BY " + DbContract.Positions.COLUMN_TIME + " DESC LIMIT -1 OFFSET ?)";
+
+    private static final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private static long lastRun = 0;
+    private static volatile Stats lastStats = null;
+
+    private DbMaintenance() {}
+
+    /**
+     * Run maintenance in background, unless it already ran recently
+     *
+     * @param context Context
+     */
+    public static void schedule(@NonNull Context context) {
+        final Context appContext = context.getApplicationContext();
+        synchronized (DbMaintenance.class) {
+            long now = SystemClock.elapsedRealtime();
+            if (lastRun > 0 && now - lastRun < MIN_INTERVAL_MILLIS) {
+                return;
+            }
+            lastRun = now;
+        }
+        AppExecutor.submit(AppExecutor.Lane.BULK, () -> run(appContext));
+    }
+
+    /**
+     * Prune positions and compact database
+     *
+     * @param context Context
+     */
+    @WorkerThread
+    public static void run(@NonNull Context context) {
+        if (!isRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final long startTime = SystemClock.elapsedRealtime();
+            SQLiteDatabase db = DbAccess.getDatabase(context);
+            SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+            int maxDays = getInt(prefs, SettingsActivity.KEY_RETENTION_DAYS, context.getString(R.string.pref_retention_days_default));
+            int maxRows = getInt(prefs, SettingsActivity.KEY_RETENTION_ROWS, context.getString(R.string.pref_retention_rows_default));
+            // archive reduces precision of stored values, so it is opt-in
+            boolean isArchiving = prefs.getBoolean(SettingsActivity.KEY_ARCHIVE, false);
+            int removed = prune(db, maxDays, maxRows);
+            int archived = isArchiving ? archive(db) : 0;
+            // database is only converted if positions are regularly removed from it
+            boolean isShrinking = maxDays > 0 || maxRows > 0 || isArchiving;
+            long freedPages = compact(db, isShrinking);
+            long elapsed = SystemClock.elapsedRealtime() - startTime;
+            lastStats = new Stats(elapsed, archived, removed);
+            if (Logger.DEBUG) {
+                Log.d(TAG, "[maintenance: removed " + removed + ", archived " + archived + " positions, freed " +
+                        freedPages + " pages in " + elapsed + " ms]");
+            }
+        } finally {
+            isRunning.set(false);
+        }
+    }
+
+    /**
+     * Remove synchronized and archived positions outside retention limits.
+     * Positions not yet synchronized are always kept.
+     * Archived positions are removed in whole chunks.
+     *
+     * @param db Database
+     * @param maxDays Maximum age of positions in days, zero for no limit
+     * @param maxRows Maximum number of positions, zero for no limit
+     * @return Number of removed positions
+     */
+    private static int prune(@NonNull SQLiteDatabase db, int maxDays, int maxRows) {
+        int removed = 0;
+        long archivedBefore = DatabaseUtils.longForQuery(db, DbAccess.SQL_COUNT_ARCHIVED, null);
+        if (maxDays > 0) {
+            long cutoff = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - TimeUnit.DAYS.toSeconds(maxDays);
+            removed += executeDelete(db, SQL_DELETE_SYNCED_BEFORE, cutoff);
+            executeDelete(db, SQL_DELETE_ARCHIVE_BEFORE, cutoff);
+        }
+        if (maxRows > 0) {
+            removed += executeDelete(db, SQL_DELETE_SYNCED_BEYOND, maxRows);
+            long synced = DatabaseUtils.longForQuery(db, SQL_COUNT_SYNCED, null);
+            executeDelete(db, SQL_DELETE_ARCHIVE_BEYOND, Math.max(0, maxRows - synced));
+        }
+        removed += (int) (archivedBefore - DatabaseUtils.longForQuery(db, DbAccess.SQL_COUNT_ARCHIVED, null));
+        return removed;
+    }
+
+    /**
+     * Move synchronized track points to archive.
+     * Only points older than all not synchronized points are archived,
+     * so that archive chunks stay in time order. Points are archived in full chunks,
+     * remainder stays in positions table until next run.
+     *
+     * @param db Database
+     * @return Number of archived positions
+     */
+    private static int archive(@NonNull SQLiteDatabase db) {
+        long cutoff = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - ARCHIVE_MIN_AGE_SECONDS;
+        long firstUnsynced = DatabaseUtils.longForQuery(db, SQL_MIN_UNSYNCED_TIME, null);
+        if (firstUnsynced > 0 && firstUnsynced < cutoff) {
+            cutoff = firstUnsynced;
+        }
+        int archived = 0;
+        long[] ids = new long[CHUNK_SIZE];
+        double[] optional = new double[ARCHIVE_PROVIDER - ARCHIVE_OPTIONAL_OFFSET];
+        ArchiveCodec.Encoder encoder = new ArchiveCodec.Encoder();
+        try (PositionIterator positions = new PositionIterator(db, ARCHIVE_COLUMNS, SELECTION_ARCHIVABLE,
+                new String[] { String.valueOf(cutoff) }, PositionIterator.DEFAULT_PAGE_SIZE);
+             SQLiteStatement delete = db.compileStatement(SQL_DELETE_POSITION)) {
+            while (positions.moveToNext()) {
+                Cursor cursor = positions.getCursor();
+                long id = cursor.getLong(0);
+                long time = cursor.getLong(1);
+                double latitude = cursor.getDouble(2);
+                double longitude = cursor.getDouble(3);
+                for (int i = 0; i < optional.length; i++) {
+                    int column = ARCHIVE_OPTIONAL_OFFSET + i;
+                    optional[i] = cursor.isNull(column) ? Double.NaN : cursor.getDouble(column);
+                }
+                String provider = cursor.getString(ARCHIVE_PROVIDER);
+                if (!encoder.add(id, time, latitude, longitude, optional, provider)) {
+                    // provider table full
+                    archived += writeChunk(db, encoder, ids, delete);
+                    encoder = new ArchiveCodec.Encoder();
+                    encoder.add(id, time, latitude, longitude, optional, provider);
+                }
+                ids[encoder.getCount() - 1] = id;
+                if (encoder.getCount() == CHUNK_SIZE) {
+                    archived += writeChunk(db, encoder, ids, delete);
+                    encoder = new ArchiveCodec.Encoder();
+                }
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Store encoded chunk and delete its points from positions table
+     *
+     * @param db Database
+     * @param encoder Encoder
+     * @param ids Ids of encoded points
+     * @param delete Compiled delete statement
+     * @return Number of archived positions
+     */
+    private static int writeChunk(@NonNull SQLiteDatabase db, @NonNull ArchiveCodec.Encoder encoder,
+                                  @NonNull long[] ids, @NonNull SQLiteStatement delete) {
+        int count = encoder.getCount();
+        ContentValues values = new ContentValues();
+        values.put(DbContract.Archive.COLUMN_START_TIME, encoder.getStartTime());
+        values.put(DbContract.Archive.COLUMN_END_TIME, encoder.getEndTime());
+        values.put(DbContract.Archive.COLUMN_COUNT, count);
+        values.put(DbContract.Archive.COLUMN_DATA, encoder.finish());
+        values.put(DbContract.Archive.COLUMN_MIN_LATITUDE, encoder.getMinLatitude());
+        values.put(DbContract.Archive.COLUMN_MAX_LATITUDE, encoder.getMaxLatitude());
+        values.put(DbContract.Archive.COLUMN_MIN_LONGITUDE, encoder.getMinLongitude());
+        values.put(DbContract.Archive.COLUMN_MAX_LONGITUDE, encoder.getMaxLongitude());
+        db.beginTransaction();
+        try {
+            db.insertOrThrow(DbContract.Archive.TABLE_NAME, null, values);
+            for (int i = 0; i < count; i++) {
+                delete.bindLong(1, ids[i]);
+                delete.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    /**
+     * Release free pages.
+     * Database created before incremental auto vacuum was enabled is converted once with full vacuum.
+     * Full vacuum rewrites whole file, so it is skipped while retention and archiving are disabled.
+     *
+     * @param db Database
+     * @param isShrinking True if retention or archiving removes positions
+     * @return Number of released pages
+     */
+    private static long compact(@NonNull SQLiteDatabase db, boolean isShrinking) {
+        long freePages;
+        boolean isIncremental;
+        // transaction pins pragmas to write connection, reader connections may report stale values
+        db.beginTransaction();
+        try {
+            freePages = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+            isIncremental = DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) == AUTO_VACUUM_INCREMENTAL;
+            if (!isIncremental && isShrinking) {
+                db.execSQL(DbHelper.SQL_AUTO_VACUUM_INCREMENTAL);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (!isIncremental) {
+            if (!isShrinking) {
+                if (Logger.DEBUG) { Log.d(TAG, "[retention disabled, skipping conversion to incremental auto vacuum]"); }
+                return 0;
+            }
+            if (Logger.DEBUG) { Log.d(TAG, "[converting to incremental auto vacuum]"); }
+            // vacuum runs on write connection, where new auto vacuum mode was set
+            db.execSQL("VACUUM");
+        } else if (freePages > 0) {
+            // each result row is one released page, so all rows must be stepped through
+            try (Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum", null)) {
+                while (cursor.moveToNext()) {
+                    // just step
+                }
+            }
+        }
+        return freePages;
+    }
+
+    /**
+     * Get database size information
+     *
+     * @param context Context
+     * @return Size information
+     */
+    @WorkerThread
+    @NonNull
+    public static SizeInfo getSizeInfo(@NonNull Context context) {
+        SQLiteDatabase db = DbAccess.getDatabase(context);
+        long pageSize = DatabaseUtils.longForQuery(db, "PRAGMA page_size", null);
+        long pageCount = DatabaseUtils.longForQuery(db, "PRAGMA page_count", null);
+        long freePages = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        return new SizeInfo(pageSize * pageCount, pageSize * freePages);
+    }
+
+    /**
+     * Get statistics of last maintenance run
+     *
+     * @return Statistics or null if maintenance has not run since process start
+     */
+    @Nullable
+    public static Stats getLastStats() {
+        return lastStats;
+    }
+
+    private static int executeDelete(@NonNull SQLiteDatabase db, @NonNull String sql, long arg) {
+        try (SQLiteStatement statement = db.compileStatement(sql)) {
+            statement.bindLong(1, arg);
+            return statement.executeUpdateDelete();
+        }
+    }
+
+    private static int getInt(@NonNull SharedPreferences prefs, @NonNull String key, @NonNull String defaultValue) {
+        try {
+            return Integer.parseInt(prefs.getString(key, defaultValue));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Database size
+     *
+     * @param totalBytes Database file size
+     * @param freeBytes Size of free pages
+     */
+    public record SizeInfo(long totalBytes, long freeBytes) {}
+
+    /**
+     * Maintenance run statistics
+     *
+     * @param durationMillis Duration of pruning, archiving and compaction
+     * @param archivedPositions Number of archived positions
+     * @param removedPositions Number of removed positions
+     */
+    public record Stats(long durationMillis, int archivedPositions, int removedPositions) {}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import net.fabiszewski.ulogger.TrackSummary;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchronous access to database for UI.
+ * Queries run on single database thread, in submission order,
+ * results are delivered to callbacks on main thread.
+ */
+public class DbRepository {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "DbThread"));
+    private static final Handler uiHandler = new Handler(Looper.getMainLooper());
+
+    private DbRepository() {}
+
+    /**
+     * Run query on database thread and deliver result on main thread
+     * @param context Context
+     * @param query Query
+     * @param callback Result callback
+     * @param <T> Result type
+     */
+    public static <T> void execute(@NonNull Context context, @NonNull Query<T> query, @NonNull Callback<T> callback) {
+        final Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            final T result = query.run(appContext);
+            uiHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * Run task on database thread
+     * @param task Task
+     */
+    public static void execute(@NonNull Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Get current track name
+     * @param context Context
+     * @param callback Callback receiving name or null if there is no track
+     */
+    public static void getTrackName(@NonNull Context context, @NonNull Callback<String> callback) {
+        execute(context, DbAccess::getTrackName, callback);
+    }
+
+    /**
+     * Get current track server id
+     * @param context Context
+     * @param callback Callback receiving id or zero if track is not synchronized
+     */
+    public static void getTrackId(@NonNull Context context, @NonNull Callback<Integer> callback) {
+        execute(context, DbAccess::getTrackId, callback);
+    }
+
+    /**
+     * Check if there are positions to synchronize
+     * @param context Context
+     * @param callback Callback
+     */
+    public static void needsSync(@NonNull Context context, @NonNull Callback<Boolean> callback) {
+        execute(context, DbAccess::needsSync, callback);
+    }
+
+    /**
+     * Get count of not synchronized positions
+     * @param context Context
+     * @param callback Callback
+     */
+    public static void countUnsynced(@NonNull Context context, @NonNull Callback<Integer> callback) {
+        execute(context, DbAccess::countUnsynced, callback);
+    }
+
+    /**
+     * Get count of all positions
+     * @param context Context
+     * @param callback Callback
+     */
+    public static void countPositions(@NonNull Context context, @NonNull Callback<Integer> callback) {
+        execute(context, ctx -> DbAccess.getOpenInstance(ctx).countPositions(), callback);
+    }
+
+    /**
+     * Get current track summary
+     * @param context Context
+     * @param callback Callback receiving summary or null if there are no positions
+     */
+    public static void getTrackSummary(@NonNull Context context, @NonNull Callback<TrackSummary> callback) {
+        execute(context, DbAccess::getTrackSummary, callback);
+    }
+
+    /**
+     * Get current track status
+     * @param context Context
+     * @param callback Callback
+     */
+    public static void getTrackStatus(@NonNull Context context, @NonNull Callback<TrackStatus> callback) {
+        execute(context, ctx -> new TrackStatus(
+                DbAccess.getTrackName(ctx),
+                DbAccess.getTrackId(ctx),
+                DbAccess.countUnsynced(ctx),
+                DbAccess.getError(ctx),
+                DbAccess.getLastTimestamp(ctx)), callback);
+    }
+
+    /**
+     * Start new track
+     * @param context Context
+     * @param name Track name
+     * @param callback Callback run after track is created
+     */
+    public static void newTrack(@NonNull Context context, @NonNull String name, @NonNull Runnable callback) {
+        execute(context, ctx -> {
+            DbAccess.newTrack(ctx, name);
+            return null;
+        }, result -> callback.run());
+    }
+
+    /**
+     * Clear current track
+     * @param context Context
+     * @param callback Callback run after track is cleared
+     */
+    public static void clearTrack(@NonNull Context context, @NonNull Runnable callback) {
+        execute(context, ctx -> {
+            DbAccess.clearTrack(ctx);
+            return null;
+        }, result -> callback.run());
+    }
+
+    /**
+     * Current track status
+     * @param trackName Track name or null
+     * @param trackId Server track id
+     * @param unsynced Count of not synchronized positions
+     * @param error Last synchronization error or null
+     * @param lastTimestamp Timestamp of last position in seconds or zero
+     */
+    public record TrackStatus(@Nullable String trackName, int trackId, int unsynced,
+                              @Nullable String error, long lastTimestamp) {}
+
+    public interface Query<T> {
+        @WorkerThread
+        T run(@NonNull Context context);
+    }
+
+    public interface Callback<T> {
+        @UiThread
+        void onResult(T result);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Merges two iterators ordered by time and id into single ordered stream.
+ * Used to read archived points together with database rows.
+ */
+class MergedPointIterator implements PointIterator {
+
+    private final PointIterator first;
+    private final PointIterator second;
+    private boolean hasFirst;
+    private boolean hasSecond;
+    private PointIterator current = null;
+    private boolean isStarted = false;
+
+    /**
+     * @param first Iterator
+     * @param second Iterator, cursors must have the same columns as first iterator cursors
+     */
+    MergedPointIterator(@NonNull PointIterator first, @NonNull PointIterator second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public boolean moveToNext() {
+        if (!isStarted) {
+            isStarted = true;
+            hasFirst = first.moveToNext();
+            hasSecond = second.moveToNext();
+        } else if (current == first) {
+            hasFirst = first.moveToNext();
+        } else if (current == second) {
+            hasSecond = second.moveToNext();
+        }
+        if (hasFirst && hasSecond) {
+            current = compare(first.getCursor(), second.getCursor()) <= 0 ? first : second;
+        } else if (hasFirst) {
+            current = first;
+        } else if (hasSecond) {
+            current = second;
+        } else {
+            current = null;
+        }
+        return current != null;
+    }
+
+    @NonNull
+    @Override
+    public Cursor getCursor() {
+        if (current == null) {
+            throw new IllegalStateException("No current row");
+        }
+        return current.getCursor();
+    }
+
+    @Override
+    public void close() {
+        first.close();
+        second.close();
+        current = null;
+    }
+
+    /**
+     * Compare current rows by time, then id
+     * @param a Cursor
+     * @param b Cursor
+     * @return Negative, zero or positive value like comparator
+     */
+    private static int compare(@NonNull Cursor a, @NonNull Cursor b) {
+        int result = Long.compare(getLong(a, DbContract.Positions.COLUMN_TIME), getLong(b, DbContract.Positions.COLUMN_TIME));
+        if (result == 0) {
+            result = Long.compare(getLong(a, DbContract.Positions._ID), getLong(b, DbContract.Positions._ID));
+        }
+        return result;
+    }
+
+    private static long getLong(@NonNull Cursor cursor, @NonNull String column) {
+        return cursor.getLong(cursor.getColumnIndexOrThrow(column));
+    }
+}
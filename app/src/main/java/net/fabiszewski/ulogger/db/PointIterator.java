@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Forward only iterator over positions ordered by time and id
+ */
+public interface PointIterator extends AutoCloseable {
+
+    /**
+     * Move to next row
+     * @return False if there are no more rows
+     */
+    boolean moveToNext();
+
+    /**
+     * Get cursor positioned at current row.
+     * Cursor may change between rows, it must not be closed or moved by caller.
+     * @return Cursor
+     */
+    @NonNull
+    Cursor getCursor();
+
+    /**
+     * Release resources
+     */
+    @Override
+    void close();
+}
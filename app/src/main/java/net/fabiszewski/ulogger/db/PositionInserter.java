@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Bulk position writer.
+ * Rows are inserted through single compiled statement inside transactions
+ * committed every batch, so that memory and journal size do not grow with number of rows.
+ */
+public class PositionInserter implements AutoCloseable {
+
+    static final int DEFAULT_BATCH_SIZE = 5000;
+
+    static final String SQL_INSERT =
+            "INSERT INTO " + DbContract.Positions.TABLE_NAME + " (" +
+            DbContract.Positions.COLUMN_TIME + ", " +
+            DbContract.Positions.COLUMN_PROVIDER + ", " +
+            DbContract.Positions.COLUMN_LATITUDE + ", " +
+            DbContract.Positions.COLUMN_LONGITUDE + ", " +
+            DbContract.Positions.COLUMN_ALTITUDE + ", " +
+            DbContract.Positions.COLUMN_SPEED + ", " +
+            DbContract.Positions.COLUMN_BEARING + ", " +
+            DbContract.Positions.COLUMN_ACCURACY + ", " +
+            DbContract.Positions.COLUMN_COMMENT + ", " +
+            DbContract.Positions.COLUMN_IMAGE_URI + ", " +
+            DbContract.Positions.COLUMN_WAYPOINT + ", " +
+            DbContract.Positions.COLUMN_TILE +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final SQLiteDatabase db;
+    private final SQLiteStatement statement;
+    private final int batchSize;
+    private int batchCount = 0;
+    private long count = 0;
+
+    /**
+     * Compile statement and begin first transaction
+     * @param db Database
+     * @param batchSize Number of rows per transaction
+     */
+    PositionInserter(@NonNull SQLiteDatabase db, int batchSize) {
+        this.db = db;
+        this.batchSize = batchSize;
+        statement = db.compileStatement(SQL_INSERT);
+        db.beginTransaction();
+    }
+
+    /**
+     * Insert position
+     * @param location Location
+     * @param comment Optional comment
+     * @param isWaypoint True for waypoint
+     */
+    public void insert(@NonNull Location location, @Nullable String comment, boolean isWaypoint) {
+        bind(statement, location, comment, null, isWaypoint);
+        statement.executeInsert();
+        count++;
+        if (++batchCount >= batchSize) {
+            db.setTransactionSuccessful();
+            db.endTransaction();
+            db.beginTransaction();
+            batchCount = 0;
+        }
+    }
+
+    /**
+     * Bind position to insert statement
+     * @param statement Statement compiled from {@link #SQL_INSERT}
+     * @param location Location
+     * @param comment Optional comment
+     * @param imageUri Optional image URI
+     * @param isWaypoint True for waypoint
+     */
+    static void bind(@NonNull SQLiteStatement statement, @NonNull Location location,
+                     @Nullable String comment, @Nullable String imageUri, boolean isWaypoint) {
+        statement.bindLong(1, location.getTime() / 1000);
+        bindText(statement, 2, location.getProvider());
+        statement.bindDouble(3, location.getLatitude());
+        statement.bindDouble(4, location.getLongitude());
+        if (location.hasAltitude()) {
+            statement.bindDouble(5, location.getAltitude());
+        } else {
+            statement.bindNull(5);
+        }
+        if (location.hasSpeed()) {
+            statement.bindDouble(6, location.getSpeed());
+        } else {
+            statement.bindNull(6);
+        }
+        if (location.hasBearing()) {
+            statement.bindDouble(7, location.getBearing());
+        } else {
+            statement.bindNull(7);
+        }
+        if (location.hasAccuracy()) {
+            statement.bindDouble(8, location.getAccuracy());
+        } else {
+            statement.bindNull(8);
+        }
+        bindText(statement, 9, comment);
+        bindText(statement, 10, imageUri);
+        statement.bindLong(11, isWaypoint ? 1 : 0);
+        statement.bindLong(12, SpatialIndex.getTile(location.getLatitude(), location.getLongitude()));
+    }
+
+    private static void bindText(@NonNull SQLiteStatement statement, int index, @Nullable String value) {
+        if (value != null && !value.isEmpty()) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    /**
+     * Get number of inserted rows
+     * @return Count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Commit pending rows
+     */
+    public void commit() {
+        db.setTransactionSuccessful();
+    }
+
+    /**
+     * End current transaction, rows inserted after last commit or batch are rolled back
+     */
+    @Override
+    public void close() {
+        db.endTransaction();
+        statement.close();
+    }
+}
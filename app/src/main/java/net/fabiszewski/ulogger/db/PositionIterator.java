@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.fabiszewski.ulogger.Logger;
+
+/**
+ * Keyset paginated iterator over positions ordered by time and id.
+ * Each page is a separate bounded query starting after last row of previous page,
+ * so that the whole result set never has to fit in cursor window
+ * and per page cost does not depend on position within table.
+ */
+public class PositionIterator implements PointIterator {
+
+    private static final String TAG = PositionIterator.class.getSimpleName();
+
+    static final int DEFAULT_PAGE_SIZE = 1000;
+
+    static final String KEYSET_SELECTION =
+            DbContract.Positions.COLUMN_TIME + " >= ? AND (" +
+            DbContract.Positions.COLUMN_TIME + " > ? OR " + DbContract.Positions._ID + " > ?)";
+    static final String ORDER_BY =
+            DbContract.Positions.COLUMN_TIME + ", " + DbContract.Positions._ID;
+
+    private final SQLiteDatabase db;
+    private final String table;
+    private final String[] columns;
+    private final String selection;
+    private final String[] selectionArgs;
+    private final int pageSize;
+
+    private Cursor page = null;
+    private String lastTime = null;
+    private String lastId = null;
+    private boolean isExhausted = false;
+
+    /**
+     * @param db Database
+     * @param columns Projection, must contain time and id columns
+     * @param selection Optional additional selection
+     * @param selectionArgs Additional selection arguments
+     * @param pageSize Number of rows per page
+     */
+    PositionIterator(@NonNull SQLiteDatabase db, @NonNull String[] columns, @Nullable String selection,
+                     @Nullable String[] selectionArgs, int pageSize) {
+        this(db, DbContract.Positions.TABLE_NAME, columns, selection, selectionArgs, pageSize);
+    }
+
+    /**
+     * @param db Database
+     * @param table Positions table expression, eg. with index hint
+     * @param columns Projection, must contain time and id columns
+     * @param selection Optional additional selection
+     * @param selectionArgs Additional selection arguments
+     * @param pageSize Number of rows per page
+     */
+    PositionIterator(@NonNull SQLiteDatabase db, @NonNull String table, @NonNull String[] columns,
+                     @Nullable String selection, @Nullable String[] selectionArgs, int pageSize) {
+        this.db = db;
+        this.table = table;
+        this.columns = columns;
+        this.selection = selection;
+        this.selectionArgs = selectionArgs != null ? selectionArgs : new String[0];
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Move to next row, fetching next page if needed
+     * @return False if there are no more rows
+     */
+    @Override
+    public boolean moveToNext() {
+        if (page != null) {
+            if (page.moveToNext()) {
+                return true;
+            }
+            int count = page.getCount();
+            if (count > 0 && page.moveToLast()) {
+                lastTime = page.getString(page.getColumnIndexOrThrow(DbContract.Positions.COLUMN_TIME));
+                lastId = page.getString(page.getColumnIndexOrThrow(DbContract.Positions._ID));
+            }
+            page.close();
+            page = null;
+            if (count < pageSize) {
+                isExhausted = true;
+            }
+        }
+        if (isExhausted) {
+            return false;
+        }
+        page = queryPage();
+        if (page.moveToNext()) {
+            return true;
+        }
+        isExhausted = true;
+        return false;
+    }
+
+    /**
+     * Get cursor positioned at current row.
+     * Cursor changes between pages, it must not be closed or moved by caller.
+     * @return Cursor
+     */
+    @NonNull
+    @Override
+    public Cursor getCursor() {
+        if (page == null) {
+            throw new IllegalStateException("No current row");
+        }
+        return page;
+    }
+
+    /**
+     * Query next page
+     * @return Cursor
+     */
+    @NonNull
+    private Cursor queryPage() {
+        String where = selection;
+        String[] args = selectionArgs;
+        if (lastTime != null) {
+            where = (selection != null) ? "(" + selection + ") AND " + KEYSET_SELECTION : KEYSET_SELECTION;
+            args = new String[selectionArgs.length + 3];
+            System.arraycopy(selectionArgs, 0, args, 0, selectionArgs.length);
+            args[selectionArgs.length] = lastTime;
+            args[selectionArgs.length + 1] = lastTime;
+            args[selectionArgs.length + 2] = lastId;
+        }
+        if (Logger.DEBUG) { Log.d(TAG, "[queryPage after: " + lastTime + "/" + lastId + "]"); }
+        return db.query(table, columns, where, args,
+                null, null, ORDER_BY, String.valueOf(pageSize));
+    }
+
+    /**
+     * Close current page
+     */
+    @Override
+    public void close() {
+        if (page != null) {
+            page.close();
+            page = null;
+        }
+        isExhausted = true;
+    }
+}
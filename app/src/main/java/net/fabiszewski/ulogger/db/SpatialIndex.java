@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Grid based spatial index of positions.
+ * World is divided into 2^16 rows of latitude and 2^16 columns of longitude
+ * (cell is about 300 m high and 600 m wide on equator), tile number is row * 2^16 + column.
+ * Row major numbering makes cells of one row a continuous range of indexed tile column,
+ * so bounding box query is a union of index ranges, one per row, followed by exact filter.
+ * Rows found by tile index must be sorted by time on each page, so the index only pays off
+ * for boxes with moderate number of points, larger ones are scanned in time order.
+ */
+final class SpatialIndex {
+
+    private static final int GRID_BITS = 16;
+    private static final int GRID_SIZE = 1 << GRID_BITS;
+    /** Above this number of rows box is queried as single range covering whole rows */
+    private static final int MAX_ROW_RANGES = 64;
+    /** Above this number of indexed points sorting matches on each page costs more than time order scan */
+    private static final int MAX_INDEXED_POINTS = 10000;
+
+    /** Positions table forced to use tile index, planner would otherwise prefer time index for ordering */
+    static final String TABLE_BY_TILE =
+            DbContract.Positions.TABLE_NAME + " INDEXED BY " + DbContract.Positions.INDEX_TILE;
+
+    /** SQL expression computing tile of positions row, must match {@link #getTile(double, double)} */
+    static final String SQL_TILE =
+            "MIN(CAST((CAST(" + DbContract.Positions.COLUMN_LATITUDE + " AS REAL) + 90) / 180 * " + GRID_SIZE +
+            " AS INTEGER), " + (GRID_SIZE - 1) + ") * " + GRID_SIZE + " + " +
+            "MIN(CAST((CAST(" + DbContract.Positions.COLUMN_LONGITUDE + " AS REAL) + 180) / 360 * " + GRID_SIZE +
+            " AS INTEGER), " + (GRID_SIZE - 1) + ")";
+
+    private static final String SELECTION_TILE_RANGE = DbContract.Positions.COLUMN_TILE + " BETWEEN ? AND ?";
+    private static final String SELECTION_COORDINATES =
+            "CAST(" + DbContract.Positions.COLUMN_LATITUDE + " AS REAL) BETWEEN ? AND ? AND " +
+            "CAST(" + DbContract.Positions.COLUMN_LONGITUDE + " AS REAL) BETWEEN ? AND ?";
+
+    private SpatialIndex() {}
+
+    /**
+     * Get tile of location
+     * @param latitude Latitude
+     * @param longitude Longitude
+     * @return Tile number
+     */
+    static long getTile(double latitude, double longitude) {
+        return (long) getRow(latitude) * GRID_SIZE + getColumn(longitude);
+    }
+
+    /**
+     * Get selection of positions in tiles covering bounding box
+     * @param box Bounding box
+     * @param args List to which selection arguments are appended
+     * @return Selection
+     */
+    @NonNull
+    static String getTileSelection(@NonNull BoundingBox box, @NonNull List<String> args) {
+        int firstRow = getRow(box.minLatitude());
+        int lastRow = getRow(box.maxLatitude());
+        int firstColumn = getColumn(box.minLongitude());
+        int lastColumn = getColumn(box.maxLongitude());
+        StringBuilder selection = new StringBuilder("(");
+        if (lastRow - firstRow < MAX_ROW_RANGES) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                if (row > firstRow) {
+                    selection.append(" OR ");
+                }
+                selection.append(SELECTION_TILE_RANGE);
+                args.add(String.valueOf((long) row * GRID_SIZE + firstColumn));
+                args.add(String.valueOf((long) row * GRID_SIZE + lastColumn));
+            }
+        } else {
+            // large box, narrow down to latitude band only
+            selection.append(SELECTION_TILE_RANGE);
+            args.add(String.valueOf((long) firstRow * GRID_SIZE + firstColumn));
+            args.add(String.valueOf((long) lastRow * GRID_SIZE + lastColumn));
+        }
+        return selection.append(")").toString();
+    }
+
+    /**
+     * Get exact selection of positions inside bounding box
+     * @param box Bounding box
+     * @param args List to which selection arguments are appended
+     * @return Selection
+     */
+    @NonNull
+    static String getCoordinatesSelection(@NonNull BoundingBox box, @NonNull List<String> args) {
+        args.add(String.valueOf(box.minLatitude()));
+        args.add(String.valueOf(box.maxLatitude()));
+        args.add(String.valueOf(box.minLongitude()));
+        args.add(String.valueOf(box.maxLongitude()));
+        return SELECTION_COORDINATES;
+    }
+
+    /**
+     * Check whether tile selection is narrow enough to be queried with tile index.
+     * Counts index entries only, up to the limit.
+     * @param db Database
+     * @param tileSelection Selection from {@link #getTileSelection(BoundingBox, List)}
+     * @param args Selection arguments
+     * @return True if tile index should be used
+     */
+    static boolean isSelective(@NonNull SQLiteDatabase db, @NonNull String tileSelection, @NonNull List<String> args) {
+        String sql = "SELECT COUNT(*) FROM (SELECT 1 FROM " + DbContract.Positions.TABLE_NAME + " " +
+                "WHERE " + tileSelection + " LIMIT " + (MAX_INDEXED_POINTS + 1) + ")";
+        return DatabaseUtils.longForQuery(db, sql, args.toArray(new String[0])) <= MAX_INDEXED_POINTS;
+    }
+
+    private static int getRow(double latitude) {
+        return Math.min((int) ((latitude + 90) / 180 * GRID_SIZE), GRID_SIZE - 1);
+    }
+
+    private static int getColumn(double longitude) {
+        return Math.min((int) ((longitude + 180) / 360 * GRID_SIZE), GRID_SIZE - 1);
+    }
+}
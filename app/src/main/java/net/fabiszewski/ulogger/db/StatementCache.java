@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of compiled statements for frequently executed SQL.
+ * Statements are compiled on first use and kept as long as database connection.
+ * Bound arguments are stored in statement, so binding and execution
+ * must be done while holding statement lock.
+ * Writers must begin transaction before taking statement lock.
+ * Thread inside transaction holds the only write connection and may wait for statement lock,
+ * so statement lock must never be held while waiting for write connection.
+ * Readers run on separate WAL reader connections and do not need transaction.
+ */
+class StatementCache {
+
+    private static final String TAG = StatementCache.class.getSimpleName();
+
+    private final SQLiteDatabase db;
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+
+    /**
+     * @param db Database
+     */
+    StatementCache(@NonNull SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    /**
+     * Get compiled statement, compile it on first use.
+     * Caller must synchronize on returned statement while binding and executing it,
+     * write statements must be executed inside transaction begun before taking the lock.
+     * @param sql SQL
+     * @return Statement
+     */
+    @NonNull
+    synchronized SQLiteStatement get(@NonNull String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            if (Logger.DEBUG) { Log.d(TAG, "[compile: " + sql + "]"); }
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Execute update or delete statement
+     * @param sql SQL
+     * @param args Arguments
+     * @return Number of affected rows
+     */
+    int executeUpdateDelete(@NonNull String sql, @NonNull Object... args) {
+        SQLiteStatement statement = get(sql);
+        db.beginTransactionNonExclusive();
+        try {
+            int count;
+            synchronized (statement) {
+                bindAll(statement, args);
+                count = statement.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+            return count;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Execute query returning single number
+     * @param sql SQL
+     * @param defaultValue Value returned if there are no rows
+     * @param args Arguments
+     * @return Value
+     */
+    long queryLong(@NonNull String sql, long defaultValue, @NonNull Object... args) {
+        SQLiteStatement statement = get(sql);
+        synchronized (statement) {
+            bindAll(statement, args);
+            try {
+                return statement.simpleQueryForLong();
+            } catch (SQLiteDoneException e) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Execute query returning single string
+     * @param sql SQL
+     * @param args Arguments
+     * @return Value or null if there are no rows or value is null
+     */
+    @Nullable
+    String queryString(@NonNull String sql, @NonNull Object... args) {
+        SQLiteStatement statement = get(sql);
+        synchronized (statement) {
+            bindAll(statement, args);
+            try {
+                return statement.simpleQueryForString();
+            } catch (SQLiteDoneException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Bind arguments to statement
+     * @param statement Statement
+     * @param args Arguments, strings, numbers or nulls
+     */
+    private static void bindAll(@NonNull SQLiteStatement statement, @NonNull Object[] args) {
+        statement.clearBindings();
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg == null) {
+                statement.bindNull(i + 1);
+            } else if (arg instanceof Double || arg instanceof Float) {
+                statement.bindDouble(i + 1, ((Number) arg).doubleValue());
+            } else if (arg instanceof Number) {
+                statement.bindLong(i + 1, ((Number) arg).longValue());
+            } else {
+                statement.bindString(i + 1, arg.toString());
+            }
+        }
+    }
+}
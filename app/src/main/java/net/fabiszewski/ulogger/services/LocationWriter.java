@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.services;
+
+import static android.os.Process.THREAD_PRIORITY_BACKGROUND;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.location.Location;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import net.fabiszewski.ulogger.Logger;
+import net.fabiszewski.ulogger.db.DbAccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded queue decoupling location callbacks from database writes.
+ * Fixes are enqueued by logger thread (single producer)
+ * and persisted in batches by dedicated writer thread (single consumer).
+ * Fixes enqueued together are always written in the same transaction.
+ * Write latency is measured from enqueueing to commit.
+ * Batch is only queued while writer is running, so that writer thread
+ * always flushes it before it quits.
+ */
+class LocationWriter implements Runnable {
+
+    private static final String TAG = LocationWriter.class.getSimpleName();
+
+    private static final int CAPACITY = 256;
+    private static final int MAX_BATCH = 64;
+    /** Maximum time stop waits for writer thread, remaining flush continues in background */
+    private static final long STOP_TIMEOUT_MILLIS = 2000;
+
+    private final Context context;
+    private final WriterCallback callback;
+    private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private Thread thread;
+    private volatile boolean isRunning = false;
+
+    private volatile int maxQueueDepth = 0;
+    private volatile long writtenCount = 0;
+    private volatile long overflowCount = 0;
+    private volatile long failedCount = 0;
+    private volatile long lastLatencyMillis = 0;
+    private volatile long maxLatencyMillis = 0;
+    private long totalLatencyMillis = 0;
+    private final Object statsLock = new Object();
+
+    /**
+     * @param context Context
+     * @param callback Callback run on writer thread after each batch
+     */
+    LocationWriter(@NonNull Context context, @NonNull WriterCallback callback) {
+        this.context = context.getApplicationContext();
+        this.callback = callback;
+    }
+
+    /**
+     * Start writer thread
+     */
+    synchronized void start() {
+        if (thread == null) {
+            isRunning = true;
+            thread = new Thread(this, "LocationWriterThread");
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop writer thread, pending fixes are flushed by writer thread before it quits.
+     * Waits for flush for limited time only, as it is called from main thread.
+     */
+    void stop() {
+        Thread writerThread;
+        synchronized (this) {
+            writerThread = thread;
+            isRunning = false;
+            thread = null;
+        }
+        if (writerThread == null) {
+            return;
+        }
+        writerThread.interrupt();
+        try {
+            writerThread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[stop interrupted]"); }
+            Thread.currentThread().interrupt();
+        }
+        if (Logger.DEBUG && writerThread.isAlive()) { Log.d(TAG, "[writer still flushing, queue depth: " + queue.size() + "]"); }
+        if (Logger.DEBUG) { Log.d(TAG, "[written: " + writtenCount + ", failed: " + failedCount + ", overflows: " + overflowCount +
+                ", max depth: " + maxQueueDepth + ", avg latency: " + getAverageLatencyMillis() +
+                " ms, max latency: " + maxLatencyMillis + " ms]"); }
+    }
+
+    /**
+     * Enqueue location for writing.
+     * If queue is full location is written synchronously on caller thread.
+     * @param location Location
+     */
+    void enqueue(@NonNull Location location) {
+        List<Location> batch = new ArrayList<>(1);
+        batch.add(location);
+        enqueue(batch);
+    }
+
+    /**
+     * Enqueue locations for writing in single transaction.
+     * If queue is full locations are written synchronously on caller thread.
+     * @param locations Locations
+     */
+    void enqueue(@NonNull List<Location> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        Batch batch = new Batch(locations, SystemClock.elapsedRealtimeNanos());
+        boolean isQueued;
+        // atomic with stop, batch queued after writer quit would never be written
+        synchronized (this) {
+            isQueued = isRunning && queue.offer(batch);
+        }
+        if (isQueued) {
+            int depth = queue.size();
+            if (depth > maxQueueDepth) {
+                maxQueueDepth = depth;
+            }
+        } else {
+            overflowCount++;
+            if (Logger.DEBUG) { Log.d(TAG, "[queue unavailable, writing synchronously]"); }
+            List<Batch> batches = new ArrayList<>(1);
+            batches.add(batch);
+            write(batches);
+        }
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(THREAD_PRIORITY_BACKGROUND);
+        List<Batch> pending = new ArrayList<>(MAX_BATCH);
+        while (isRunning) {
+            try {
+                pending.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(pending, MAX_BATCH - 1);
+            write(pending);
+            pending.clear();
+        }
+        // flush remaining
+        while (queue.drainTo(pending, MAX_BATCH) > 0) {
+            write(pending);
+            pending.clear();
+        }
+    }
+
+    /**
+     * Write enqueued batches in single transaction.
+     * Failed write is logged and counted, its fixes are dropped.
+     * @param batches Batches
+     */
+    @WorkerThread
+    private void write(@NonNull List<Batch> batches) {
+        List<Location> locations;
+        if (batches.size() == 1) {
+            locations = batches.get(0).locations();
+        } else {
+            locations = new ArrayList<>();
+            for (Batch batch : batches) {
+                locations.addAll(batch.locations());
+            }
+        }
+        try {
+            DbAccess.writeLocations(context, locations);
+        } catch (SQLException e) {
+            // eg. database full, fixes are lost but logging goes on
+            Log.e(TAG, "[batch write failed: " + locations.size() + " fixes]", e);
+            synchronized (statsLock) {
+                failedCount += locations.size();
+            }
+            return;
+        }
+        long now = SystemClock.elapsedRealtimeNanos();
+        synchronized (statsLock) {
+            for (Batch batch : batches) {
+                long latency = (now - batch.enqueuedNanos()) / 1000000;
+                int size = batch.locations().size();
+                totalLatencyMillis += latency * size;
+                if (latency > maxLatencyMillis) {
+                    maxLatencyMillis = latency;
+                }
+                lastLatencyMillis = latency;
+            }
+            writtenCount += locations.size();
+        }
+        if (Logger.DEBUG) { Log.d(TAG, "[batch written: " + locations.size() + ", queue depth: " + queue.size() +
+                ", latency: " + lastLatencyMillis + " ms]"); }
+        callback.onLocationsWritten(locations.size());
+    }
+
+    /**
+     * Get current number of batches waiting for write
+     * @return Queue depth
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get number of fixes lost on failed database writes
+     * @return Number of fixes
+     */
+    long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Get maximum observed queue depth
+     * @return Queue depth
+     */
+    int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Get latency between enqueueing and database write for last written fix
+     * @return Latency in milliseconds
+     */
+    long getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    /**
+     * Get maximum latency between enqueueing and database write
+     * @return Latency in milliseconds
+     */
+    long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    /**
+     * Get average latency between enqueueing and database write
+     * @return Latency in milliseconds
+     */
+    long getAverageLatencyMillis() {
+        synchronized (statsLock) {
+            return writtenCount > 0 ? totalLatencyMillis / writtenCount : 0;
+        }
+    }
+
+    /**
+     * Locations enqueued together
+     * @param locations Locations
+     * @param enqueuedNanos Elapsed realtime of enqueueing
+     */
+    private record Batch(@NonNull List<Location> locations, long enqueuedNanos) {}
+
+    interface WriterCallback {
+        @WorkerThread
+        void onLocationsWritten(int count);
+    }
+}
@@ -20,7 +20,9 @@ import android.content.SharedPreferences;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
@@ -33,9 +35,20 @@ import androidx.preference.PreferenceManager;
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.db.DbAccess;
 import net.fabiszewski.ulogger.ui.SettingsActivity;
-import net.fabiszewski.ulogger.utils.BroadcastHelper;
+import net.fabiszewski.ulogger.utils.GpxFixSource;
 import net.fabiszewski.ulogger.utils.LocationHelper;
+import net.fabiszewski.ulogger.utils.LocationReplay;
+import net.fabiszewski.ulogger.utils.MotionSensor;
 import net.fabiszewski.ulogger.utils.NotificationHelper;
+import net.fabiszewski.ulogger.utils.RestartGovernor;
+import net.fabiszewski.ulogger.utils.SignificantMotionSensor;
+import net.fabiszewski.ulogger.utils.StationaryDetector;
+import net.fabiszewski.ulogger.utils.StatusBus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Background service logging positions to database
@@ -46,23 +59,26 @@ import net.fabiszewski.ulogger.utils.NotificationHelper;
 public class LoggerService extends Service {
 
     private static final String TAG = LoggerService.class.getSimpleName();
-    public static final String BROADCAST_LOCATION_DISABLED = "net.fabiszewski.ulogger.broadcast.location_disabled";
-    public static final String BROADCAST_LOCATION_GPS_DISABLED = "net.fabiszewski.ulogger.broadcast.gps_disabled";
-    public static final String BROADCAST_LOCATION_GPS_ENABLED = "net.fabiszewski.ulogger.broadcast.gps_enabled";
-    public static final String BROADCAST_LOCATION_NETWORK_DISABLED = "net.fabiszewski.ulogger.broadcast.network_disabled";
-    public static final String BROADCAST_LOCATION_NETWORK_ENABLED = "net.fabiszewski.ulogger.broadcast.network_enabled";
-    public static final String BROADCAST_LOCATION_PERMISSION_DENIED = "net.fabiszewski.ulogger.broadcast.location_permission_denied";
-    public static final String BROADCAST_LOCATION_STARTED = "net.fabiszewski.ulogger.broadcast.location_started";
-    public static final String BROADCAST_LOCATION_STOPPED = "net.fabiszewski.ulogger.broadcast.location_stopped";
-    public static final String BROADCAST_LOCATION_UPDATED = "net.fabiszewski.ulogger.broadcast.location_updated";
+    public static final String EXTRA_REPLAY_URI = "replayUri";
+    public static final String EXTRA_REPLAY_SPEED = "replaySpeed";
 
     private Intent syncIntent;
     private static volatile boolean isRunning = false;
     private HandlerThread thread;
     private Looper looper;
+    private Handler handler;
     private LocationHelper locationHelper;
     private LocationListener locationListener;
-    private DbAccess db;
+    private StationaryDetector stationaryDetector;
+    private MotionSensor motionSensor;
+    private final RestartGovernor restartGovernor = RestartGovernor.getInstance();
+    private LocationWriter locationWriter;
+    private LocationReplay replay = null;
+    private int acceptedCount = 0;
+    private int rejectedCount = 0;
+    private static volatile ReplayStats lastReplayStats = null;
+    /** Detector of running or last stopped logger */
+    private static volatile StationaryDetector lastStationaryDetector = null;
 
     private static Location lastLocation = null;
 
@@ -83,11 +99,17 @@ public class LoggerService extends Service {
         thread = new HandlerThread("LoggerThread");
         thread.start();
         looper = thread.getLooper();
+        handler = new Handler(looper);
+
+        stationaryDetector = new StationaryDetector();
+        lastStationaryDetector = stationaryDetector;
+        motionSensor = new SignificantMotionSensor(this);
 
+        locationWriter = new LocationWriter(this, this::onLocationsWritten);
+        locationWriter.start();
 
-        // keep database open during whole service runtime
-        db = DbAccess.getInstance();
-        db.open(this);
+        // open database ahead of first fix, connection is kept for process lifetime
+        DbAccess.getInstance().open(this);
     }
 
     /**
@@ -98,9 +120,9 @@ public class LoggerService extends Service {
         if (Logger.DEBUG) { Log.d(TAG, "[initializeLocationUpdates]"); }
         try {
             locationHelper.updatePreferences();
-            locationHelper.requestLocationUpdates(locationListener, looper);
+            locationHelper.requestLocationUpdates(locationListener, looper, isKeepAlive());
             setRunning(true);
-            BroadcastHelper.sendBroadcast(this, BROADCAST_LOCATION_STARTED);
+            StatusBus.post(StatusBus.Event.LOCATION_STARTED);
 
             syncIntent = new Intent(getApplicationContext(), WebSyncService.class);
 
@@ -111,9 +133,9 @@ public class LoggerService extends Service {
         } catch (LocationHelper.LoggerException e) {
             int errorCode = e.getCode();
             if (errorCode == E_DISABLED) {
-                BroadcastHelper.sendBroadcast(this, BROADCAST_LOCATION_DISABLED);
+                StatusBus.post(StatusBus.Event.LOCATION_DISABLED);
             } else if (errorCode == E_PERMISSION) {
-                BroadcastHelper.sendBroadcast(this, BROADCAST_LOCATION_PERMISSION_DENIED);
+                StatusBus.post(StatusBus.Event.LOCATION_PERMISSION_DENIED);
             }
         }
         return false;
@@ -141,10 +163,16 @@ public class LoggerService extends Service {
                 isForeground = true;
             } catch (SecurityException e) {
                 if (Logger.DEBUG) { Log.d(TAG, "[SecurityException on startForeground: " + e.getMessage() + "]"); }
-                BroadcastHelper.sendBroadcast(this, BROADCAST_LOCATION_PERMISSION_DENIED);
+                StatusBus.post(StatusBus.Event.LOCATION_PERMISSION_DENIED);
             }
 
-            if (!isForeground || !initializeLocationUpdates()) {
+            boolean isReplay = Logger.DEBUG && intent != null && intent.hasExtra(EXTRA_REPLAY_URI);
+            if (isForeground && isReplay) {
+                if (!initializeReplay(intent.getStringExtra(EXTRA_REPLAY_URI), intent.getFloatExtra(EXTRA_REPLAY_SPEED, 1))) {
+                    setRunning(false);
+                    stopSelf();
+                }
+            } else if (!isForeground || !initializeLocationUpdates()) {
                 setRunning(false);
                 stopSelf();
             }
@@ -158,7 +186,10 @@ public class LoggerService extends Service {
      */
     private void handlePrefsUpdated() {
         locationHelper.updatePreferences();
-        if (isRunning) {
+        if (!locationHelper.isStationaryDetection() && stationaryDetector.onMotion()) {
+            motionSensor.stop();
+        }
+        if (isRunning && replay == null) {
             try {
                 restartUpdates();
             } catch (LocationHelper.LoggerException e) {
@@ -173,9 +204,137 @@ public class LoggerService extends Service {
      * @throws LocationHelper.LoggerException Exception
      */
     private void restartUpdates() throws LocationHelper.LoggerException {
+        if (replay != null) {
+            return;
+        }
         if (Logger.DEBUG) { Log.d(TAG, "[location updates restart]"); }
         locationHelper.removeUpdates(locationListener);
-        locationHelper.requestLocationUpdates(locationListener, looper);
+        locationHelper.requestLocationUpdates(locationListener, looper, isKeepAlive());
+    }
+
+    /**
+     * Replay recorded fixes instead of requesting location updates.
+     * Fixes go through the same listener path as live updates.
+     * For debugging and benchmarking only.
+     * @param uriString GPX file URI
+     * @param speed Replay speed multiplier, zero or less to replay as fast as possible
+     * @return True on success, false otherwise
+     */
+    private boolean initializeReplay(@Nullable String uriString, float speed) {
+        if (Logger.DEBUG) { Log.d(TAG, "[initializeReplay: " + uriString + ", speed: " + speed + "]"); }
+        if (uriString == null) {
+            return false;
+        }
+        try {
+            Uri uri = Uri.parse(uriString);
+            InputStream stream = getContentResolver().openInputStream(uri);
+            if (stream == null) {
+                return false;
+            }
+            LocationReplay.Source source = new GpxFixSource(stream);
+            acceptedCount = 0;
+            rejectedCount = 0;
+            replay = new LocationReplay(source, locationListener, handler, speed, this::onReplayFinished);
+            setRunning(true);
+            StatusBus.post(StatusBus.Event.LOCATION_STARTED);
+            syncIntent = new Intent(getApplicationContext(), WebSyncService.class);
+            replay.start();
+            return true;
+        } catch (IOException | SecurityException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[replay failed: " + e + "]"); }
+        }
+        return false;
+    }
+
+    /**
+     * Replay finished callback, report pipeline statistics
+     * @param count Number of replayed fixes
+     * @param elapsedMillis Replay duration
+     */
+    private void onReplayFinished(int count, long elapsedMillis) {
+        ReplayStats stats = new ReplayStats(count, elapsedMillis, acceptedCount, rejectedCount,
+                locationWriter.getAverageLatencyMillis(), locationWriter.getMaxLatencyMillis(),
+                locationWriter.getMaxQueueDepth());
+        lastReplayStats = stats;
+        if (Logger.DEBUG) { Log.d(TAG, "[replay: " + count + " fixes, " + stats.getFixesPerSecond() + " fixes/s, accepted: " + acceptedCount +
+                ", rejected: " + rejectedCount + ", write latency avg: " + stats.averageLatencyMillis() +
+                " ms, max: " + stats.maxLatencyMillis() + " ms, max queue depth: " + stats.maxQueueDepth() + "]"); }
+    }
+
+    /**
+     * Get statistics of last finished replay
+     *
+     * @return Statistics or null if no replay finished since process start
+     */
+    @Nullable
+    public static ReplayStats getLastReplayStats() {
+        return lastReplayStats;
+    }
+
+    /**
+     * Get time spent moving and stationary by running or last stopped logger
+     *
+     * @return Statistics or null if logger has not run since process start
+     */
+    @Nullable
+    public static StationaryDetector.Stats getMotionStats() {
+        StationaryDetector detector = lastStationaryDetector;
+        return detector != null ? detector.getStats() : null;
+    }
+
+    /**
+     * Writer thread callback run after locations were saved to database
+     * @param count Number of written locations
+     */
+    private void onLocationsWritten(int count) {
+        StatusBus.post(StatusBus.Event.LOCATION_UPDATED);
+        if (locationHelper.isLiveSync() && syncIntent != null) {
+            getApplicationContext().startService(syncIntent);
+        }
+    }
+
+    /**
+     * Should location updates be limited to low rate keepalive
+     * @return True if stationary detection is on and device is stationary
+     */
+    private boolean isKeepAlive() {
+        return locationHelper.isStationaryDetection() && stationaryDetector.isStationary();
+    }
+
+    /**
+     * Update stationary state with new location, switch updates rate on state change
+     * @param location Location
+     */
+    private void updateStationaryState(@NonNull Location location) {
+        if (locationHelper.isStationaryDetection() && stationaryDetector.onLocation(location)) {
+            onStationaryStateChanged();
+        }
+    }
+
+    /**
+     * Motion sensor callback, resume normal updates rate
+     */
+    private void onMotionDetected() {
+        if (Logger.DEBUG) { Log.d(TAG, "[motion detected]"); }
+        if (isRunning && stationaryDetector.onMotion()) {
+            onStationaryStateChanged();
+        }
+    }
+
+    /**
+     * Switch between keepalive and normal location updates
+     */
+    private void onStationaryStateChanged() {
+        if (stationaryDetector.isStationary()) {
+            motionSensor.start(() -> handler.post(this::onMotionDetected));
+        } else {
+            motionSensor.stop();
+        }
+        try {
+            restartUpdates();
+        } catch (LocationHelper.LoggerException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[location updates restart failed: " + e.getMessage() + "]"); }
+        }
     }
 
     /**
@@ -188,14 +347,20 @@ public class LoggerService extends Service {
         if (locationHelper.canAccessLocation()) {
             locationHelper.removeUpdates(locationListener);
         }
-        if (db != null) {
-            db.close();
+        motionSensor.stop();
+        if (replay != null) {
+            replay.cancel();
+            replay = null;
         }
+        locationWriter.stop();
+        if (Logger.DEBUG) { Log.d(TAG, "[gps restarts: " + restartGovernor.getAllowedCount() +
+                ", suppressed: " + restartGovernor.getSuppressedCount() + "]"); }
+        stationaryDetector.stop();
 
         setRunning(false);
 
         notificationHelper.cancelNotification();
-        BroadcastHelper.sendBroadcast(this, BROADCAST_LOCATION_STOPPED);
+        StatusBus.post(StatusBus.Event.LOCATION_STOPPED);
 
         if (thread != null) {
             thread.interrupt();
@@ -261,16 +426,45 @@ public class LoggerService extends Service {
         public void onLocationChanged(@NonNull Location location) {
             if (Logger.DEBUG) { Log.d(TAG, "[location changed: " + location + "]"); }
 
+            if (acceptLocation(location)) {
+                locationWriter.enqueue(location);
+            }
+        }
+
+        /**
+         * Callback on batched location updates
+         * Accepted locations are written in single transaction
+         * @param locations Locations, oldest first
+         */
+        @Override
+        public void onLocationChanged(@NonNull List<Location> locations) {
+            if (Logger.DEBUG) { Log.d(TAG, "[locations batch changed: " + locations.size() + "]"); }
+
+            List<Location> accepted = new ArrayList<>(locations.size());
+            for (Location location : locations) {
+                if (acceptLocation(location)) {
+                    accepted.add(location);
+                }
+            }
+            locationWriter.enqueue(accepted);
+        }
+
+        /**
+         * Process location and check whether it should be saved
+         * @param location Location
+         * @return True if accepted
+         */
+        private boolean acceptLocation(@NonNull Location location) {
             LocationHelper.handleRolloverBug(location);
+            updateStationaryState(location);
 
             if (meetsCriteria(location)) {
                 lastLocation = location;
-                DbAccess.writeLocation(LoggerService.this, location);
-                BroadcastHelper.sendBroadcast(LoggerService.this, BROADCAST_LOCATION_UPDATED);
-                if (locationHelper.isLiveSync()) {
-                    getApplicationContext().startService(syncIntent);
-                }
+                acceptedCount++;
+                return true;
             }
+            rejectedCount++;
+            return false;
         }
 
         /**
@@ -287,7 +481,8 @@ public class LoggerService extends Service {
             if (!locationHelper.hasRequiredAccuracy(location)) {
                 if (Logger.DEBUG) { Log.d(TAG, "[location accuracy above limit: " + location.getAccuracy() + "]"); }
                 // reset gps provider to get better accuracy even if time and distance criteria don't change
-                if (LocationHelper.isGps(location)) {
+                // skip while stationary, keepalive fixes are not worth it
+                if (LocationHelper.isGps(location) && !isKeepAlive() && restartGovernor.tryRestart()) {
                     try {
                         restartUpdates();
                     } catch (LocationHelper.LoggerException e) {
@@ -296,6 +491,9 @@ public class LoggerService extends Service {
                 }
                 return false;
             }
+            if (LocationHelper.isGps(location)) {
+                restartGovernor.onAccurateFix();
+            }
             // use network provider only if recent gps data is missing
             if (LocationHelper.isNetwork(location) && lastLocation != null) {
                 // we received update from gps provider not later than maxTime period
@@ -316,12 +514,12 @@ public class LoggerService extends Service {
         public void onProviderDisabled(@NonNull String provider) {
             if (Logger.DEBUG) { Log.d(TAG, "[location provider " + provider + " disabled]"); }
             if (provider.equals(LocationManager.GPS_PROVIDER)) {
-                BroadcastHelper.sendBroadcast(LoggerService.this, BROADCAST_LOCATION_GPS_DISABLED);
+                StatusBus.post(StatusBus.Event.LOCATION_GPS_DISABLED);
             } else if (provider.equals(LocationManager.NETWORK_PROVIDER)) {
-                BroadcastHelper.sendBroadcast(LoggerService.this, BROADCAST_LOCATION_NETWORK_DISABLED);
+                StatusBus.post(StatusBus.Event.LOCATION_NETWORK_DISABLED);
             }
             if (!locationHelper.hasEnabledProviders()) {
-                BroadcastHelper.sendBroadcast(LoggerService.this, BROADCAST_LOCATION_DISABLED);
+                StatusBus.post(StatusBus.Event.LOCATION_DISABLED);
             }
         }
 
@@ -333,9 +531,9 @@ public class LoggerService extends Service {
         public void onProviderEnabled(@NonNull String provider) {
             if (Logger.DEBUG) { Log.d(TAG, "[location provider " + provider + " enabled]"); }
             if (provider.equals(LocationManager.GPS_PROVIDER)) {
-                BroadcastHelper.sendBroadcast(LoggerService.this, BROADCAST_LOCATION_GPS_ENABLED);
+                StatusBus.post(StatusBus.Event.LOCATION_GPS_ENABLED);
             } else if (provider.equals(LocationManager.NETWORK_PROVIDER)) {
-                BroadcastHelper.sendBroadcast(LoggerService.this, BROADCAST_LOCATION_NETWORK_ENABLED);
+                StatusBus.post(StatusBus.Event.LOCATION_NETWORK_ENABLED);
             }
         }
 
@@ -344,4 +542,27 @@ public class LoggerService extends Service {
         @Override
         public void onStatusChanged(String provider, int status, Bundle extras) { }
     }
+
+    /**
+     * Replay pipeline statistics.
+     * Write latency covers locations written until replay finished.
+     *
+     * @param count Number of replayed fixes
+     * @param elapsedMillis Replay duration
+     * @param accepted Number of fixes accepted by filters
+     * @param rejected Number of rejected fixes
+     * @param averageLatencyMillis Average write latency
+     * @param maxLatencyMillis Maximum write latency
+     * @param maxQueueDepth Maximum depth of write queue
+     */
+    public record ReplayStats(int count, long elapsedMillis, int accepted, int rejected,
+                              long averageLatencyMillis, long maxLatencyMillis, int maxQueueDepth) {
+        /**
+         * Get replay throughput
+         * @return Fixes per second
+         */
+        public float getFixesPerSecond() {
+            return elapsedMillis > 0 ? count * 1000f / elapsedMillis : count;
+        }
+    }
 }
@@ -38,8 +38,10 @@ import net.fabiszewski.ulogger.R;
 import net.fabiszewski.ulogger.WebAuthException;
 import net.fabiszewski.ulogger.db.DbAccess;
 import net.fabiszewski.ulogger.db.DbContract;
-import net.fabiszewski.ulogger.utils.BroadcastHelper;
+import net.fabiszewski.ulogger.db.DbMaintenance;
+import net.fabiszewski.ulogger.db.PositionIterator;
 import net.fabiszewski.ulogger.utils.NotificationHelper;
+import net.fabiszewski.ulogger.utils.StatusBus;
 import net.fabiszewski.ulogger.utils.WebHelper;
 
 import org.json.JSONException;
@@ -60,8 +62,6 @@ import java.util.Map;
 public class WebSyncService extends Service {
 
     private static final String TAG = WebSyncService.class.getSimpleName();
-    public static final String BROADCAST_SYNC_FAILED = "net.fabiszewski.ulogger.broadcast.sync_failed";
-    public static final String BROADCAST_SYNC_DONE = "net.fabiszewski.ulogger.broadcast.sync_done";
 
     private HandlerThread thread;
     private ServiceHandler serviceHandler;
@@ -213,15 +213,18 @@ public class WebSyncService extends Service {
     private void doSync(int trackId) {
         db.resetError();
         // iterate over positions in db
-        try (Cursor cursor = db.getUnsynced()) {
-            while (cursor.moveToNext()) {
+        try (PositionIterator positions = db.getUnsyncedIterator()) {
+            while (positions.moveToNext()) {
+                Cursor cursor = positions.getCursor();
                 int rowId = cursor.getInt(cursor.getColumnIndexOrThrow(DbContract.Positions._ID));
                 Map<String, String> params = cursorToMap(cursor);
                 params.put(WebHelper.PARAM_TRACKID, String.valueOf(trackId));
                 web.postPosition(params);
                 db.setSynced(getApplicationContext(), rowId);
-                BroadcastHelper.sendBroadcast(this, BROADCAST_SYNC_DONE);
+                StatusBus.post(StatusBus.Event.SYNC_DONE);
             }
+            // prune synchronized positions and compact database
+            DbMaintenance.schedule(this);
         } catch (IOException e) {
             // handle web errors
             if (Logger.DEBUG) {
@@ -247,7 +250,7 @@ public class WebSyncService extends Service {
 
     /**
      * Actions performed in case of synchronization error.
-     * Send broadcast to main activity, schedule retry if tracking is on.
+     * Post status event, schedule retry if tracking is on.
      *
      * @param e Exception
      */
@@ -271,7 +274,7 @@ public class WebSyncService extends Service {
 
         Bundle extras = new Bundle();
         extras.putString("message", message);
-        BroadcastHelper.sendBroadcast(this, BROADCAST_SYNC_FAILED, extras);
+        StatusBus.post(StatusBus.Event.SYNC_FAILED, extras);
 
         // retry only if tracking is on
         if (LoggerService.isRunning()) {
@@ -360,9 +363,6 @@ public class WebSyncService extends Service {
     @Override
     public void onDestroy() {
         if (Logger.DEBUG) { Log.d(TAG, "[onDestroy]"); }
-        if (db != null) {
-            db.close();
-        }
         notificationHelper.cancelNotification();
 
         if (thread != null) {
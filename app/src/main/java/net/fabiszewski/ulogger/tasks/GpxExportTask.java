@@ -12,11 +12,13 @@ package net.fabiszewski.ulogger.tasks;
 import android.app.Activity;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.DocumentsContract;
 import android.util.Log;
-import android.util.Xml;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -26,47 +28,92 @@ import androidx.annotation.WorkerThread;
 import net.fabiszewski.ulogger.BuildConfig;
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.R;
+import net.fabiszewski.ulogger.db.BoundingBox;
 import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.db.PointIterator;
+import net.fabiszewski.ulogger.utils.ExportFormat;
+import net.fabiszewski.ulogger.utils.TrackWriter;
 
-import org.xmlpull.v1.XmlSerializer;
-
-import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 
 /**
- * Export track to GPX format
+ * Export track to selected format.
+ * Positions are streamed from paged database iterators to format specific track writer.
+ * Task is not bound to activity: it keeps running when activity is recreated,
+ * new activity may reattach its callback to the active task.
  */
 public class GpxExportTask implements Runnable {
 
     private static final String TAG = GpxExportTask.class.getSimpleName();
 
-    private static final String ns_gpx = "http://www.topografix.com/GPX/1/1";
-    private static final String ns_ulogger = "https://github.com/bfabiszewski/ulogger-android/1";
-    private static final String ns_xsi = "http://www.w3.org/2001/XMLSchema-instance";
-    private static final String schemaLocation = ns_gpx + " http://www.topografix.com/GPX/1/1/gpx.xsd " +
-            ns_ulogger + " https://raw.githubusercontent.com/bfabiszewski/ulogger-server/master/scripts/gpx_extensions1.xsd";
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
 
-    public static final String GPX_EXTENSION = ".gpx";
+    private static GpxExportTask activeTask = null;
 
     private DbAccess db;
 
-    private final WeakReference<GpxExportTaskCallback> weakCallback;
+    private WeakReference<GpxExportTaskCallback> weakCallback;
 
     private String errorMessage = "";
+    private final Context context;
     private final Uri uri;
+    private final ExportFormat format;
+    private final long fromTime;
+    private final long toTime;
+    private final int areaRadius;
 
     private boolean isRunning = false;
+    private volatile boolean isCancelled = false;
+
+    private long rowsWritten = 0;
+    private long startMillis = 0;
+    private long lastProgressMillis = 0;
 
     private final Handler uiHandler = new Handler(Looper.getMainLooper());
 
     /**
+     * Create task and register it as active export
+     * @param context Context
      * @param uri URI to exported file
+     * @param format Export format
+     * @param fromTime Start of exported time range, UTC seconds, zero for no limit
+     * @param toTime End of exported time range, UTC seconds, zero for no limit
+     * @param areaRadius Radius of exported area around last position in meters, zero for no limit
      * @param callback Callback activity
      */
-    public GpxExportTask(@NonNull Uri uri, @NonNull GpxExportTaskCallback callback) {
+    @UiThread
+    public GpxExportTask(@NonNull Context context, @NonNull Uri uri, @NonNull ExportFormat format,
+                         long fromTime, long toTime, int areaRadius,
+                         @NonNull GpxExportTaskCallback callback) {
+        this.context = context.getApplicationContext();
         this.uri = uri;
+        this.format = format;
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        this.areaRadius = areaRadius;
+        weakCallback = new WeakReference<>(callback);
+        activeTask = this;
+    }
+
+    /**
+     * Get currently active export task
+     * @return Task or null if no export is active
+     */
+    @UiThread
+    @Nullable
+    public static GpxExportTask getActiveTask() {
+        return activeTask;
+    }
+
+    /**
+     * Attach new callback, eg. after activity was recreated
+     * @param callback Callback activity
+     */
+    @UiThread
+    public void setCallback(@NonNull GpxExportTaskCallback callback) {
         weakCallback = new WeakReference<>(callback);
     }
 
@@ -89,6 +136,13 @@ public class GpxExportTask implements Runnable {
         return isRunning;
     }
 
+    /**
+     * Request cancellation, partially written file will be removed
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
     /**
      * Actions to run on worker thread
      * @return True on success
@@ -96,21 +150,22 @@ public class GpxExportTask implements Runnable {
     @WorkerThread
     private boolean doInBackground() {
         if (Logger.DEBUG) { Log.d(TAG, "[doInBackground]"); }
+        startMillis = SystemClock.elapsedRealtime();
+        lastProgressMillis = startMillis;
         try {
-            Activity activity = getActivity();
-            if (activity == null) {
-                return false;
-            }
-            Context context = activity.getApplicationContext();
-            if (Logger.DEBUG) { Log.d(TAG, "[gpx export start]"); }
+            if (Logger.DEBUG) { Log.d(TAG, "[export start]"); }
             db = DbAccess.getOpenInstance(context);
             write(context, this.uri);
-            if (Logger.DEBUG) { Log.d(TAG, "[gpx export stop]"); }
-            if (db != null) {
-                db.close();
+            if (isCancelled) {
+                // cancelled after last row was written
+                throw new IOException("Export cancelled");
             }
+            if (Logger.DEBUG) { Log.d(TAG, "[export stop: " + rowsWritten + " rows, " + getRowsPerSecond() + " rows/s]"); }
         } catch (IOException e) {
-            if (e.getMessage() != null) {
+            if (isCancelled) {
+                if (Logger.DEBUG) { Log.d(TAG, "[export cancelled after " + rowsWritten + " rows]"); }
+                deleteDocument();
+            } else if (e.getMessage() != null) {
                 errorMessage = e.getMessage();
             }
             return false;
@@ -118,16 +173,74 @@ public class GpxExportTask implements Runnable {
         return true;
     }
 
+    /**
+     * Remove partially written document
+     */
+    private void deleteDocument() {
+        try {
+            DocumentsContract.deleteDocument(context.getContentResolver(), uri);
+        } catch (IOException | RuntimeException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[delete document failed: " + e + "]"); }
+        }
+    }
+
+    /**
+     * Get average export rate
+     * @return Rows written per second
+     */
+    private long getRowsPerSecond() {
+        long elapsed = SystemClock.elapsedRealtime() - startMillis;
+        return elapsed > 0 ? rowsWritten * 1000 / elapsed : rowsWritten;
+    }
+
+    /**
+     * Count written row, post progress to UI thread at most once per interval
+     * @throws IOException Exception when export was cancelled
+     */
+    @WorkerThread
+    private void onRowWritten() throws IOException {
+        rowsWritten++;
+        if (isCancelled) {
+            throw new IOException("Export cancelled");
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastProgressMillis >= PROGRESS_INTERVAL_MILLIS) {
+            lastProgressMillis = now;
+            final long rows = rowsWritten;
+            final long rate = getRowsPerSecond();
+            uiHandler.post(() -> onProgressUpdate(rows, rate));
+        }
+    }
+
+    /**
+     * Progress update actions
+     * @param rows Rows written so far
+     * @param rowsPerSecond Average rate
+     */
+    @UiThread
+    private void onProgressUpdate(long rows, long rowsPerSecond) {
+        GpxExportTaskCallback callback = weakCallback.get();
+        if (callback != null && callback.getActivity() != null) {
+            callback.onGpxExportTaskProgress(rows, rowsPerSecond);
+        }
+    }
+
     /**
      * Post execution actions
      * @param isSuccess Result of task, true if successful
      */
     @UiThread
     private void onPostExecute(boolean isSuccess) {
+        if (activeTask == this) {
+            activeTask = null;
+        }
         GpxExportTaskCallback callback = weakCallback.get();
         if (callback != null && callback.getActivity() != null) {
+            // cancel request arriving after successful export is too late, file is kept
             if (isSuccess) {
                 callback.onGpxExportTaskCompleted();
+            } else if (isCancelled) {
+                callback.onGpxExportTaskCancelled();
             } else {
                 callback.onGpxExportTaskFailure(errorMessage);
             }
@@ -144,191 +257,112 @@ public class GpxExportTask implements Runnable {
         if (stream == null) {
             throw new IOException(context.getString(R.string.e_open_out_stream));
         }
-        try (BufferedOutputStream bufferedStream = new BufferedOutputStream(stream)) {
-            serialize(context, bufferedStream);
-            if (Logger.DEBUG) { Log.d(TAG, "[export gpx file written to " + uri); }
-        } catch (IOException|IllegalArgumentException|IllegalStateException e) {
-            if (Logger.DEBUG) { Log.d(TAG, "[export gpx write exception: " + e + "]"); }
+        CountingOutputStream countingStream = new CountingOutputStream(stream);
+        try (TrackWriter writer = format.createWriter(context, countingStream)) {
+            serialize(context, writer);
+            if (Logger.DEBUG) { Log.d(TAG, "[export " + format + " file written to " + uri + "]"); }
+        } catch (IOException|IllegalArgumentException|IllegalStateException|SQLiteException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[export " + format + " write exception: " + e + "]"); }
             throw new IOException(e.getMessage());
         }
+        if (Logger.DEBUG) { Log.d(TAG, "[export " + format + ": " + countingStream.getCount() + " bytes in " +
+                (SystemClock.elapsedRealtime() - startMillis) + " ms]"); }
     }
 
     /**
      * Serialize and write
-     * @param stream Output stream
+     * @param writer Track writer
      * @throws IOException Exception
      */
-    private void serialize(@NonNull Context context, @NonNull OutputStream stream) throws IOException {
-        XmlSerializer serializer = Xml.newSerializer();
-        serializer.setOutput(stream, "UTF-8");
-
-        // header
-        serializer.startDocument("UTF-8", true);
-        serializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
-        serializer.setPrefix("xsi", ns_xsi);
-        serializer.setPrefix("ulogger", ns_ulogger);
-        serializer.startTag("", "gpx");
-        serializer.attribute(null, "xmlns", ns_gpx);
-        serializer.attribute(ns_xsi, "schemaLocation", schemaLocation);
-        serializer.attribute(null, "version", "1.1");
+    private void serialize(@NonNull Context context, @NonNull TrackWriter writer) throws IOException {
         String creator = context.getString(R.string.app_name) + " " + BuildConfig.VERSION_NAME;
-        serializer.attribute(null, "creator", creator);
-
-        // metadata
         String trackName = db.getTrackName();
         if (trackName == null) {
             trackName = context.getString(R.string.unknown_track);
         }
-        long trackTimestamp = db.getFirstTimestamp();
-        String trackTime = DbAccess.getTimeISO8601(trackTimestamp);
-        serializer.startTag(null, "metadata");
-        writeTag(serializer, "name", trackName);
-        writeTag(serializer, "time", trackTime);
-        serializer.endTag(null, "metadata");
-
-        // waypoints
-        writeWaypoints(serializer);
-
-        // track
-        serializer.startTag(null, "trk");
-        writeTag(serializer, "name", trackName);
-        writePositions(serializer);
-        serializer.endTag(null, "trk");
-
-        serializer.endTag("", "gpx");
-        serializer.endDocument();
-        serializer.flush();
-    }
+        BoundingBox area = areaRadius > 0 ? db.getAreaAroundLastPosition(areaRadius) : null;
+        try (PointIterator waypoints = db.getWaypointsIterator(area, fromTime, toTime);
+             PointIterator positions = db.getPositionsIterator(area, fromTime, toTime)) {
+            // first rows are fetched in advance, metadata time is taken from exported range
+            boolean hasWaypoints = waypoints.moveToNext();
+            boolean hasPositions = positions.moveToNext();
+            long firstTimestamp = 0;
+            if (hasWaypoints) {
+                firstTimestamp = DbAccess.getTimeAsLong(waypoints.getCursor());
+            }
+            if (hasPositions && (firstTimestamp == 0 || DbAccess.getTimeAsLong(positions.getCursor()) < firstTimestamp)) {
+                firstTimestamp = DbAccess.getTimeAsLong(positions.getCursor());
+            }
+            if (firstTimestamp == 0) {
+                firstTimestamp = fromTime > 0 ? fromTime : db.getFirstTimestamp();
+            }
+            writer.startDocument(creator, trackName, firstTimestamp);
 
-    /**
-     * Write <trkseg> tag
-     *
-     * @param serializer XmlSerializer
-     * @throws IOException IO exception
-     * @throws IllegalArgumentException Xml illegal argument
-     * @throws IllegalStateException Xml illegal state
-     */
-    private void writePositions(@NonNull XmlSerializer serializer)
-            throws IOException, IllegalArgumentException, IllegalStateException {
+            // waypoints
+            if (hasWaypoints) {
+                writePoints(writer, waypoints, true);
+            }
 
-        try (Cursor cursor = db.getPositions()) {
-            serializer.startTag(null, "trkseg");
-            while (cursor.moveToNext()) {
-                writePoint(serializer, cursor, false);
+            // track
+            writer.startTrack();
+            if (hasPositions) {
+                writePoints(writer, positions, false);
             }
-            serializer.endTag(null, "trkseg");
+            writer.endTrack();
         }
+
+        writer.endDocument();
     }
 
     /**
-     * Write <wpt> list
+     * Write current and all remaining points from iterator
      *
-     * @param serializer XmlSerializer
+     * @param writer Track writer
+     * @param iterator Positions iterator, positioned at first row
+     * @param isWaypoint True for waypoints
      * @throws IOException IO exception
-     * @throws IllegalArgumentException Xml illegal argument
-     * @throws IllegalStateException Xml illegal state
      */
-    private void writeWaypoints(@NonNull XmlSerializer serializer)
-            throws IOException, IllegalArgumentException, IllegalStateException {
-
-        try (Cursor cursor = db.getWaypoints()) {
-            while (cursor.moveToNext()) {
-                writePoint(serializer, cursor, true);
+    private void writePoints(@NonNull TrackWriter writer, @NonNull PointIterator iterator, boolean isWaypoint) throws IOException {
+        DbAccess.PositionColumns columns = null;
+        do {
+            Cursor cursor = iterator.getCursor();
+            if (columns == null) {
+                columns = new DbAccess.PositionColumns(cursor);
             }
-        }
+            if (isWaypoint) {
+                writer.writeWaypoint(cursor, columns);
+            } else {
+                writer.writeTrackPoint(cursor, columns);
+            }
+            onRowWritten();
+        } while (iterator.moveToNext());
     }
 
-    private void writePoint(@NonNull XmlSerializer serializer, Cursor cursor, boolean isWaypoint) throws IOException {
-        String element = isWaypoint ? "wpt" : "trkpt";
-        serializer.startTag(null, element);
-        serializer.attribute(null, "lat", DbAccess.getLatitude(cursor));
-        serializer.attribute(null, "lon", DbAccess.getLongitude(cursor));
-        if (DbAccess.hasAltitude(cursor)) {
-            //noinspection DataFlowIssue
-            writeTag(serializer, "ele", DbAccess.getAltitude(cursor));
-        }
-        writeTag(serializer, "time", DbAccess.getTimeISO8601(cursor));
-
-        String name = DbAccess.getID(cursor);
-        String comment = DbAccess.getComment(cursor);
+    /**
+     * Output stream counting written bytes
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
 
-        if (isWaypoint && comment != null) {
-            // if comment contains newlines use first line as name, otherwise use whole comment as name
-            String[] lines = comment.split("\n", 2);
-            name = lines[0];
+        CountingOutputStream(@NonNull OutputStream out) {
+            super(out);
         }
 
-        writeTag(serializer, "name", name);
-        if (comment != null) {
-            writeTag(serializer, "desc", comment);
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
         }
 
-        // ulogger extensions (accuracy, speed, bearing, provider)
-        serializer.startTag(null, "extensions");
-        if (DbAccess.hasAccuracy(cursor)) {
-            //noinspection DataFlowIssue
-            writeTag(serializer, "accuracy", DbAccess.getAccuracy(cursor), ns_ulogger);
-        }
-        if (DbAccess.hasSpeed(cursor)) {
-            //noinspection DataFlowIssue
-            writeTag(serializer, "speed", DbAccess.getSpeed(cursor), ns_ulogger);
-        }
-        if (DbAccess.hasBearing(cursor)) {
-            //noinspection DataFlowIssue
-            writeTag(serializer, "bearing", DbAccess.getBearing(cursor), ns_ulogger);
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
         }
-        if (DbAccess.hasProvider(cursor)) {
-            //noinspection DataFlowIssue
-            writeTag(serializer, "provider", DbAccess.getProvider(cursor), ns_ulogger);
-        }
-        serializer.endTag(null, "extensions");
-        serializer.endTag(null, element);
-    }
-
-    /**
-     * Write tag without namespace
-     *
-     * @param serializer XmlSerializer
-     * @param name Tag name
-     * @param text Tag text
-     * @throws IOException IO exception
-     * @throws IllegalArgumentException Xml illegal argument
-     * @throws IllegalStateException Xml illegal state
-     */
-    private void writeTag(@NonNull XmlSerializer serializer, @NonNull String name, @NonNull String text)
-            throws IOException, IllegalArgumentException, IllegalStateException {
-        writeTag(serializer, name, text, null);
-    }
 
-    /**
-     * Write tag
-     *
-     * @param serializer XmlSerializer
-     * @param name Tag name
-     * @param text Tag text
-     * @param ns Namespace
-     * @throws IOException IO exception
-     * @throws IllegalArgumentException Xml illegal argument
-     * @throws IllegalStateException Xml illegal state
-     */
-    private void writeTag(@NonNull XmlSerializer serializer, @NonNull String name, @NonNull String text, String ns)
-            throws IOException, IllegalArgumentException, IllegalStateException {
-        serializer.startTag(ns, name);
-        serializer.text(text);
-        serializer.endTag(ns, name);
-    }
-
-    /**
-     * Get activity from callback
-     * @return Activity, null if not available
-     */
-    @Nullable
-    private Activity getActivity() {
-        GpxExportTaskCallback callback = weakCallback.get();
-        if (callback != null) {
-            return callback.getActivity();
+        long getCount() {
+            return count;
         }
-        return null;
     }
 
     /**
@@ -337,6 +371,8 @@ public class GpxExportTask implements Runnable {
     public interface GpxExportTaskCallback {
         void onGpxExportTaskCompleted();
         void onGpxExportTaskFailure(@NonNull String error);
+        void onGpxExportTaskCancelled();
+        void onGpxExportTaskProgress(long rows, long rowsPerSecond);
         Activity getActivity();
     }
 
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.tasks;
+
+import android.app.Activity;
+import android.content.Context;
+import android.location.Location;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import net.fabiszewski.ulogger.Logger;
+import net.fabiszewski.ulogger.R;
+import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.db.PositionInserter;
+import net.fabiszewski.ulogger.ui.AutoNamePreference;
+import net.fabiszewski.ulogger.utils.GpxFixSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+/**
+ * Import track from GPX file.
+ * Document is parsed with pull parser and points are inserted in batched transactions,
+ * memory use does not depend on file size.
+ * Imported positions replace current track and are marked as not synchronized.
+ */
+public class GpxImportTask implements Runnable {
+
+    private static final String TAG = GpxImportTask.class.getSimpleName();
+
+    private final WeakReference<GpxImportTaskCallback> weakCallback;
+    private final Context context;
+    private final Uri uri;
+
+    private String errorMessage = "";
+    private long importedCount = 0;
+    private boolean isTrackCreated = false;
+    private volatile boolean isRunning = false;
+
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * @param context Context
+     * @param uri URI of GPX file
+     * @param callback Callback activity
+     */
+    public GpxImportTask(@NonNull Context context, @NonNull Uri uri, @NonNull GpxImportTaskCallback callback) {
+        this.context = context.getApplicationContext();
+        this.uri = uri;
+        weakCallback = new WeakReference<>(callback);
+    }
+
+    /**
+     * Runnable actions
+     */
+    @Override
+    public void run() {
+        isRunning = true;
+        boolean result = doInBackground();
+        uiHandler.post(() -> onPostExecute(result));
+        isRunning = false;
+    }
+
+    /**
+     * Check whether task is running
+     * @return True if running
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * Actions to run on worker thread
+     * @return True on success
+     */
+    @WorkerThread
+    private boolean doInBackground() {
+        if (Logger.DEBUG) { Log.d(TAG, "[doInBackground]"); }
+        long startMillis = SystemClock.elapsedRealtime();
+        try {
+            InputStream stream = context.getContentResolver().openInputStream(uri);
+            if (stream == null) {
+                throw new IOException(context.getString(R.string.e_open_in_stream));
+            }
+            try (GpxFixSource source = new GpxFixSource(stream, true)) {
+                importPoints(source);
+                if (Logger.DEBUG) { Log.d(TAG, "[import finished: " + importedCount + " points in " +
+                        (SystemClock.elapsedRealtime() - startMillis) + " ms, skipped without time: " +
+                        source.getSkippedCount() + "]"); }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[import exception: " + e + "]"); }
+            if (e.getMessage() != null) {
+                errorMessage = e.getMessage();
+            }
+            if (isTrackCreated) {
+                // do not leave partially imported track
+                DbAccess.clearTrack(context);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Replace current track with points read from source
+     * @param source GPX source
+     * @throws IOException Exception
+     */
+    @WorkerThread
+    private void importPoints(@NonNull GpxFixSource source) throws IOException {
+        // first point is read before creating track, so that track name from metadata is already known
+        Location location = source.next();
+        if (location == null) {
+            throw new IOException(context.getString(R.string.import_empty));
+        }
+        String trackName = source.getTrackName();
+        if (trackName == null || trackName.trim().isEmpty()) {
+            trackName = AutoNamePreference.getAutoTrackName(context);
+        }
+        DbAccess.newTrack(context, trackName.trim());
+        isTrackCreated = true;
+        try (PositionInserter inserter = DbAccess.getOpenInstance(context).getPositionInserter()) {
+            while (location != null) {
+                inserter.insert(location, source.getComment(), source.isWaypoint());
+                location = source.next();
+            }
+            inserter.commit();
+            importedCount = inserter.getCount();
+        }
+    }
+
+    /**
+     * Post execution actions
+     * @param isSuccess Result of task, true if successful
+     */
+    @UiThread
+    private void onPostExecute(boolean isSuccess) {
+        GpxImportTaskCallback callback = weakCallback.get();
+        if (callback != null && callback.getActivity() != null) {
+            if (isSuccess) {
+                callback.onGpxImportTaskCompleted(importedCount);
+            } else {
+                callback.onGpxImportTaskFailure(errorMessage);
+            }
+        }
+    }
+
+    /**
+     * Callback interface
+     */
+    public interface GpxImportTaskCallback {
+        void onGpxImportTaskCompleted(long count);
+        void onGpxImportTaskFailure(@NonNull String error);
+        Activity getActivity();
+    }
+
+}
@@ -26,7 +26,10 @@ import androidx.preference.PreferenceManager;
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.R;
 import net.fabiszewski.ulogger.ui.SettingsActivity;
+import net.fabiszewski.ulogger.utils.BitmapPool;
+import net.fabiszewski.ulogger.utils.ImageEncoder;
 import net.fabiszewski.ulogger.utils.ImageHelper;
+import net.fabiszewski.ulogger.utils.ThumbnailCache;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
@@ -101,7 +104,8 @@ public class ImageTask implements Runnable {
             } else {
                 SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(activity);
                 int dstWidth = Integer.parseInt(prefs.getString(SettingsActivity.KEY_IMAGE_SIZE, activity.getString(R.string.pref_imagesize_default)));
-                if (dstWidth == 0) {
+                if (dstWidth == 0 || ImageEncoder.isEncodingDeferred(activity)) {
+                    // original is kept, it will be resampled and encoded once on upload
                     savedUri = uri;
                     ImageHelper.getPersistablePermission(activity, uri);
                     thumbnail = ImageHelper.getThumbnail(activity, uri);
@@ -109,7 +113,10 @@ public class ImageTask implements Runnable {
                     Bitmap bitmap = ImageHelper.getResampledBitmap(activity, uri, dstWidth);
                     savedUri = ImageHelper.saveToCache(activity, bitmap);
                     thumbnail = ImageHelper.getThumbnail(activity, bitmap);
-                    bitmap.recycle();
+                    ThumbnailCache.getInstance(activity).put(activity, savedUri, thumbnail);
+                    if (thumbnail != bitmap) {
+                        BitmapPool.getInstance().put(bitmap);
+                    }
                 }
             }
             result = new ImageTaskResult(savedUri, thumbnail);
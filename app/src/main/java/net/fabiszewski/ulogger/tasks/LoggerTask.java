@@ -26,6 +26,7 @@ import androidx.annotation.WorkerThread;
 
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.utils.LocationHelper;
+import net.fabiszewski.ulogger.utils.RestartGovernor;
 
 import java.lang.ref.WeakReference;
 
@@ -43,6 +44,7 @@ public class LoggerTask implements LocationListener, Runnable {
 
     private final WeakReference<LoggerTaskCallback> weakCallback;
     private final LocationHelper locationHelper;
+    private final RestartGovernor restartGovernor = RestartGovernor.getInstance();
     private Location location;
     private volatile boolean waiting;
     private boolean isCancelled = false;
@@ -207,10 +209,12 @@ public class LoggerTask implements LocationListener, Runnable {
     private boolean hasRequiredAccuracy(@NonNull Location location) {
 
         if (!locationHelper.hasRequiredAccuracy(location)) {
-            try {
-                restartUpdates();
-            } catch (LocationHelper.LoggerException e) {
-                quitLoop();
+            if (restartGovernor.tryRestart()) {
+                try {
+                    restartUpdates();
+                } catch (LocationHelper.LoggerException e) {
+                    quitLoop();
+                }
             }
             return false;
         }
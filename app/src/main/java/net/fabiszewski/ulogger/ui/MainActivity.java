@@ -10,8 +10,6 @@
 package net.fabiszewski.ulogger.ui;
 
 import static androidx.activity.result.contract.ActivityResultContracts.StartActivityForResult;
-import static net.fabiszewski.ulogger.tasks.GpxExportTask.GPX_EXTENSION;
-import static java.util.concurrent.Executors.newCachedThreadPool;
 
 import android.app.Activity;
 import android.content.ActivityNotFoundException;
@@ -20,6 +18,7 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.StrictMode;
 import android.text.method.LinkMovementMethod;
 import android.util.Log;
 import android.view.Menu;
@@ -46,13 +45,16 @@ import androidx.preference.PreferenceManager;
 
 import net.fabiszewski.ulogger.BuildConfig;
 import net.fabiszewski.ulogger.CreateGpxDocument;
+import net.fabiszewski.ulogger.OpenLocalDocument;
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.R;
-import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.db.DbRepository;
 import net.fabiszewski.ulogger.services.LoggerService;
 import net.fabiszewski.ulogger.tasks.GpxExportTask;
+import net.fabiszewski.ulogger.tasks.GpxImportTask;
+import net.fabiszewski.ulogger.utils.AppExecutor;
+import net.fabiszewski.ulogger.utils.ExportFormat;
 
-import java.util.concurrent.ExecutorService;
 
 /**
  * Main activity of ulogger
@@ -61,20 +63,30 @@ import java.util.concurrent.ExecutorService;
 
 public class MainActivity extends AppCompatActivity
         implements FragmentManager.OnBackStackChangedListener, MainFragment.OnFragmentInteractionListener,
-        GpxExportTask.GpxExportTaskCallback {
+        GpxExportTask.GpxExportTaskCallback, GpxImportTask.GpxImportTaskCallback {
 
     private final String TAG = MainActivity.class.getSimpleName();
 
     public final static String UPDATED_PREFS = "extra_updated_prefs";
+    private final static String KEY_EXPORT_FROM = "keyExportFrom";
+    private final static String KEY_EXPORT_FORMAT = "keyExportFormat";
+    private final static String KEY_EXPORT_RADIUS = "keyExportRadius";
+    private final static long HOUR_SECONDS = 3600;
+    private final static long DAY_SECONDS = 24 * HOUR_SECONDS;
+    private final static int NEAR_RADIUS_METERS = 1000;
+    private final static int REGION_RADIUS_METERS = 10000;
+    private final static String[] IMPORT_MIME_TYPES = {
+            CreateGpxDocument.GPX_MIME, "application/xml", "text/xml", "application/octet-stream"
+    };
 
     public String preferenceHost;
     public String preferenceUnits;
     public long preferenceMinTimeMillis;
     public boolean preferenceLiveSync;
-    private GpxExportTask gpxExportTask;
-    private final ExecutorService executor = newCachedThreadPool();
-
-    private DbAccess db;
+    private GpxImportTask gpxImportTask;
+    private long exportFromTime = 0;
+    private ExportFormat exportFormat = ExportFormat.GPX;
+    private int exportRadius = 0;
 
     /**
      * Initialization
@@ -82,6 +94,9 @@ public class MainActivity extends AppCompatActivity
      */
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
+        if (Logger.DEBUG) {
+            enableStrictMode();
+        }
         super.onCreate(savedInstanceState);
         updatePreferences();
         setContentView(R.layout.activity_main);
@@ -103,28 +118,34 @@ public class MainActivity extends AppCompatActivity
         getSupportFragmentManager().addOnBackStackChangedListener(this);
         //Handle when activity is recreated like on orientation Change
         setHomeUpButton();
+        if (savedInstanceState != null) {
+            exportFromTime = savedInstanceState.getLong(KEY_EXPORT_FROM);
+            exportFormat = ExportFormat.values()[savedInstanceState.getInt(KEY_EXPORT_FORMAT)];
+            exportRadius = savedInstanceState.getInt(KEY_EXPORT_RADIUS);
+        }
+        GpxExportTask gpxExportTask = GpxExportTask.getActiveTask();
+        if (gpxExportTask != null) {
+            gpxExportTask.setCallback(this);
+        }
     }
 
     /**
-     * On resume
+     * Log disk access on main thread
      */
-    @Override
-    protected void onResume() {
-        super.onResume();
-        if (Logger.DEBUG) { Log.d(TAG, "[onResume]"); }
-        db = DbAccess.getOpenInstance(this);
+    private static void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .build());
     }
 
-    /**
-     * On pause
-     */
     @Override
-    protected void onPause() {
-        if (Logger.DEBUG) { Log.d(TAG, "[onPause]"); }
-        if (db != null) {
-            db.close();
-        }
-        super.onPause();
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putLong(KEY_EXPORT_FROM, exportFromTime);
+        outState.putInt(KEY_EXPORT_FORMAT, exportFormat.ordinal());
+        outState.putInt(KEY_EXPORT_RADIUS, exportRadius);
     }
 
     /**
@@ -169,6 +190,9 @@ public class MainActivity extends AppCompatActivity
         } else if (id == R.id.menu_export) {
             startExport();
             return true;
+        } else if (id == R.id.menu_import) {
+            startImport();
+            return true;
         } else if (id == R.id.menu_clear) {
             clearTrack();
             return true;
@@ -217,40 +241,166 @@ public class MainActivity extends AppCompatActivity
     }
 
     /**
-     * Start export service
+     * Start export service.
+     * If export is already running offer to cancel it,
+     * otherwise ask for format, time range and area and open file picker.
      */
     private void startExport() {
-        if (db.countPositions() > 0) {
+        GpxExportTask gpxExportTask = GpxExportTask.getActiveTask();
+        if (gpxExportTask != null) {
+            Alert.showConfirm(this,
+                    getString(R.string.warning),
+                    getString(R.string.export_cancel_confirm),
+                    (dialog, which) -> {
+                        dialog.dismiss();
+                        gpxExportTask.cancel();
+                    });
+        } else {
+            DbRepository.countPositions(this, count -> {
+                if (isFinishing()) {
+                    return;
+                }
+                if (count > 0) {
+                    new AlertDialog.Builder(this)
+                            .setTitle(R.string.export_format_title)
+                            .setItems(R.array.export_formats, (dialog, which) -> {
+                                exportFormat = ExportFormat.values()[which];
+                                showExportRangeDialog();
+                            })
+                            .show();
+                } else {
+                    showToast(getString(R.string.nothing_to_export));
+                }
+            });
+        }
+    }
+
+    /**
+     * Ask for exported time range, then for area
+     */
+    private void showExportRangeDialog() {
+        String[] ranges = {
+                getString(R.string.export_range_all),
+                getString(R.string.export_range_hour),
+                getString(R.string.export_range_day)
+        };
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.export_range_title)
+                .setItems(ranges, (dialog, which) -> {
+                    long now = System.currentTimeMillis() / 1000;
+                    exportFromTime = switch (which) {
+                        case 1 -> now - HOUR_SECONDS;
+                        case 2 -> now - DAY_SECONDS;
+                        default -> 0;
+                    };
+                    showExportAreaDialog();
+                })
+                .show();
+    }
+
+    /**
+     * Ask for exported area, then open file picker
+     */
+    private void showExportAreaDialog() {
+        String[] areas = {
+                getString(R.string.export_area_all),
+                getString(R.string.export_area_near),
+                getString(R.string.export_area_region)
+        };
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.export_area_title)
+                .setItems(areas, (dialog, which) -> {
+                    exportRadius = switch (which) {
+                        case 1 -> NEAR_RADIUS_METERS;
+                        case 2 -> REGION_RADIUS_METERS;
+                        default -> 0;
+                    };
+                    launchExportPicker();
+                })
+                .show();
+    }
+
+    /**
+     * Open file picker for exported file
+     */
+    private void launchExportPicker() {
+        DbRepository.getTrackName(this, trackName -> {
             try {
-                getExportUri.launch(DbAccess.getTrackName(this) + GPX_EXTENSION);
+                getExportUri.launch(trackName + exportFormat.extension);
             } catch (ActivityNotFoundException e) {
                 showToast(getString(R.string.cannot_open_picker), Toast.LENGTH_LONG);
             }
-        } else {
-            showToast(getString(R.string.nothing_to_export));
+        });
+    }
+
+
+    /**
+     * Confirm replacing current track, then open file picker to get imported file URI
+     */
+    private void startImport() {
+        if (LoggerService.isRunning()) {
+            showToast(getString(R.string.logger_running_warning));
+            return;
         }
+        if (gpxImportTask != null && gpxImportTask.isRunning()) {
+            return;
+        }
+        DbRepository.countPositions(this, count -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (count > 0) {
+                Alert.showConfirm(this,
+                        getString(R.string.warning),
+                        getString(R.string.import_warning),
+                        (dialog, which) -> {
+                            dialog.dismiss();
+                            launchImportPicker();
+                        });
+            } else {
+                launchImportPicker();
+            }
+        });
     }
 
+    /**
+     * Open file picker for imported file
+     */
+    private void launchImportPicker() {
+        try {
+            getImportUri.launch(IMPORT_MIME_TYPES);
+        } catch (ActivityNotFoundException e) {
+            showToast(getString(R.string.cannot_open_picker), Toast.LENGTH_LONG);
+        }
+    }
 
     private void clearTrack() {
         if (LoggerService.isRunning()) {
             showToast(getString(R.string.logger_running_warning));
             return;
         }
-        if (DbAccess.getTrackName(MainActivity.this) != null) {
-            Alert.showConfirm(MainActivity.this,
-                    getString(R.string.warning),
-                    getString(R.string.clear_warning),
-                    (dialog, which) -> {
-                        dialog.dismiss();
-                        DbAccess.clearTrack(MainActivity.this);
-                        LoggerService.resetLastLocation();
-                        Fragment currentFragment = getSupportFragmentManager().findFragmentById(R.id.fragment_placeholder);
-                        if (currentFragment instanceof MainFragment) {
-                            currentFragment.onResume();
+        DbRepository.getTrackName(this, trackName -> {
+            if (trackName != null && !isFinishing()) {
+                Alert.showConfirm(MainActivity.this,
+                        getString(R.string.warning),
+                        getString(R.string.clear_warning),
+                        (dialog, which) -> {
+                            dialog.dismiss();
+                            LoggerService.resetLastLocation();
+                            DbRepository.clearTrack(MainActivity.this, this::updateMainFragment);
                         }
-                    }
-            );
+                );
+            }
+        });
+    }
+
+    /**
+     * Refresh main fragment track data if it is visible
+     */
+    private void updateMainFragment() {
+        Fragment currentFragment = getSupportFragmentManager().findFragmentById(R.id.fragment_placeholder);
+        if (currentFragment instanceof MainFragment) {
+            currentFragment.onResume();
         }
     }
 
@@ -316,6 +466,15 @@ public class MainActivity extends AppCompatActivity
         }
     });
 
+    /**
+     * Open file picker to get imported file URI, then run import task
+     */
+    final ActivityResultLauncher<String[]> getImportUri = registerForActivityResult(new OpenLocalDocument(), uri -> {
+        if (uri != null) {
+            runGpxImportTask(uri);
+        }
+    });
+
     /**
      * Open settings activity, update preferences on return
      */
@@ -344,20 +503,61 @@ public class MainActivity extends AppCompatActivity
      * Start GPX export task
      */
     private void runGpxExportTask(@NonNull Uri uri) {
-        if (gpxExportTask == null || !gpxExportTask.isRunning()) {
-            gpxExportTask = new GpxExportTask(uri, this);
-            executor.execute(gpxExportTask);
+        if (GpxExportTask.getActiveTask() == null) {
+            GpxExportTask gpxExportTask = new GpxExportTask(this, uri, exportFormat, exportFromTime, 0, exportRadius, this);
+            AppExecutor.submit(AppExecutor.Lane.BULK, gpxExportTask);
             showToast(getString(R.string.export_started));
         }
     }
 
+    /**
+     * Start GPX import task
+     */
+    private void runGpxImportTask(@NonNull Uri uri) {
+        if (gpxImportTask == null || !gpxImportTask.isRunning()) {
+            gpxImportTask = new GpxImportTask(this, uri, this);
+            AppExecutor.submit(AppExecutor.Lane.BULK, gpxImportTask);
+            showToast(getString(R.string.import_started));
+        }
+    }
+
+    @Override
+    public void onGpxImportTaskCompleted(long count) {
+        LoggerService.resetLastLocation();
+        updateMainFragment();
+        showToast(getString(R.string.import_done, count));
+    }
+
+    @Override
+    public void onGpxImportTaskFailure(@NonNull String error) {
+        updateMainFragment();
+        String message = getString(R.string.import_failed);
+        if (!error.isEmpty()) {
+            message += "\n" + error;
+        }
+        showToast(message);
+    }
+
+    /**
+     * Show export progress in action bar subtitle
+     * @param text Progress text, null to clear
+     */
+    private void setExportProgress(@Nullable CharSequence text) {
+        ActionBar bar = getSupportActionBar();
+        if (bar != null) {
+            bar.setSubtitle(text);
+        }
+    }
+
     @Override
     public void onGpxExportTaskCompleted() {
+        setExportProgress(null);
         showToast(getString(R.string.export_done));
     }
 
     @Override
     public void onGpxExportTaskFailure(@NonNull String error) {
+        setExportProgress(null);
         String message = getString(R.string.export_failed);
         if (!error.isEmpty()) {
             message += "\n" + error;
@@ -365,6 +565,17 @@ public class MainActivity extends AppCompatActivity
         showToast(message);
     }
 
+    @Override
+    public void onGpxExportTaskCancelled() {
+        setExportProgress(null);
+        showToast(getString(R.string.export_cancelled));
+    }
+
+    @Override
+    public void onGpxExportTaskProgress(long rows, long rowsPerSecond) {
+        setExportProgress(getString(R.string.export_progress, rows, rowsPerSecond));
+    }
+
     @NonNull
     @Override
     public Activity getActivity() {
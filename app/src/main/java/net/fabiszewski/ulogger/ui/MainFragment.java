@@ -13,10 +13,8 @@ import static android.view.View.GONE;
 import static android.view.View.VISIBLE;
 
 import android.app.Activity;
-import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffColorFilter;
 import android.graphics.drawable.Drawable;
@@ -45,10 +43,11 @@ import androidx.fragment.app.FragmentTransaction;
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.R;
 import net.fabiszewski.ulogger.TrackSummary;
-import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.db.DbRepository;
 import net.fabiszewski.ulogger.services.LoggerService;
 import net.fabiszewski.ulogger.services.WebSyncService;
 import net.fabiszewski.ulogger.utils.PermissionHelper;
+import net.fabiszewski.ulogger.utils.StatusBus;
 
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
@@ -158,9 +157,6 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
 
         Context context = getContext();
         if (context != null) {
-            String trackName = DbAccess.getTrackName(context);
-            updateTrackLabel(trackName);
-
             if (LoggerService.isRunning()) {
                 switchLogger.setChecked(true);
                 setLocLed(LED_GREEN);
@@ -168,7 +164,7 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
                 switchLogger.setChecked(false);
                 setLocLed(LED_RED);
             }
-            registerBroadcastReceiver();
+            StatusBus.register(statusListener);
             updateStatus();
         }
     }
@@ -179,10 +175,7 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
     @Override
     public void onPause() {
         if (Logger.DEBUG) { Log.d(TAG, "[onPause]"); }
-        Context context = getContext();
-        if (context != null) {
-            context.unregisterReceiver(broadcastReceiver);
-        }
+        StatusBus.unregister(statusListener);
         super.onPause();
     }
 
@@ -203,15 +196,20 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
      */
     private void startLogger(@NonNull Context context) {
         // start tracking
-        if (DbAccess.getTrackName(context) != null) {
-            Intent intent = new Intent(context, LoggerService.class);
-            context.startService(intent);
-        } else {
-            if (mListener != null) {
-                mListener.showNoTrackWarning();
+        DbRepository.getTrackName(context, trackName -> {
+            if (!isAdded()) {
+                return;
             }
-            switchLogger.setChecked(false);
-        }
+            if (trackName != null) {
+                Intent intent = new Intent(context, LoggerService.class);
+                context.startService(intent);
+            } else {
+                if (mListener != null) {
+                    mListener.showNoTrackWarning();
+                }
+                switchLogger.setChecked(false);
+            }
+        });
     }
 
     /**
@@ -227,17 +225,22 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
      * Start waypoint activity
      */
     private void addWaypoint(@NonNull View view) {
-        if (DbAccess.getTrackName(view.getContext()) != null) {
-            WaypointFragment fragment = WaypointFragment.newInstance();
-            FragmentTransaction transaction = getParentFragmentManager().beginTransaction();
-            transaction.replace(R.id.fragment_placeholder, fragment);
-            transaction.addToBackStack(null);
-            transaction.commit();
-        } else {
-            if (mListener != null) {
-                mListener.showNoTrackWarning();
+        DbRepository.getTrackName(view.getContext(), trackName -> {
+            if (!isResumed()) {
+                return;
             }
-        }
+            if (trackName != null) {
+                WaypointFragment fragment = WaypointFragment.newInstance();
+                FragmentTransaction transaction = getParentFragmentManager().beginTransaction();
+                transaction.replace(R.id.fragment_placeholder, fragment);
+                transaction.addToBackStack(null);
+                transaction.commit();
+            } else {
+                if (mListener != null) {
+                    mListener.showNoTrackWarning();
+                }
+            }
+        });
     }
 
     /**
@@ -247,11 +250,18 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
     private void newTrack(@SuppressWarnings("UnusedParameters") @NonNull View view) {
         if (LoggerService.isRunning()) {
             showToast(getString(R.string.logger_running_warning));
-        } else if (DbAccess.needsSync(view.getContext())) {
-            showNotSyncedWarning();
-        } else {
-            showTrackDialog();
+            return;
         }
+        DbRepository.needsSync(view.getContext(), needsSync -> {
+            if (!isAdded()) {
+                return;
+            }
+            if (needsSync) {
+                showNotSyncedWarning();
+            } else {
+                showTrackDialog();
+            }
+        });
     }
 
     /**
@@ -272,24 +282,26 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
      * @param view View
      */
     private void shareURL(@NonNull View view) {
-        Context context = view.getContext();
-        String trackName = DbAccess.getTrackName(context);
-        int trackId = DbAccess.getTrackId(context);
-        MainActivity activity = (MainActivity) requireActivity();
-        String host = activity.preferenceHost;
-        if (trackId > 0 && !host.isEmpty()) {
-            String trackUrl = host + "/#" + trackId;
-            Intent sendIntent = new Intent();
-            sendIntent.setAction(Intent.ACTION_SEND);
-            sendIntent.putExtra(Intent.EXTRA_TEXT, trackUrl);
-            sendIntent.putExtra(Intent.EXTRA_TITLE, trackName);
-            sendIntent.setType("text/plain");
-            Intent shareIntent = Intent.createChooser(sendIntent, getString(R.string.share_link));
-            Intent viewIntent = new Intent(Intent.ACTION_VIEW);
-            viewIntent.setData(Uri.parse(trackUrl));
-            shareIntent.putExtra(Intent.EXTRA_INITIAL_INTENTS, new Intent[]{viewIntent});
-            startActivity(shareIntent);
-        }
+        DbRepository.getTrackStatus(view.getContext(), status -> {
+            MainActivity activity = (MainActivity) getActivity();
+            if (activity == null || !isAdded()) {
+                return;
+            }
+            String host = activity.preferenceHost;
+            if (status.trackId() > 0 && !host.isEmpty()) {
+                String trackUrl = host + "/#" + status.trackId();
+                Intent sendIntent = new Intent();
+                sendIntent.setAction(Intent.ACTION_SEND);
+                sendIntent.putExtra(Intent.EXTRA_TEXT, trackUrl);
+                sendIntent.putExtra(Intent.EXTRA_TITLE, status.trackName());
+                sendIntent.setType("text/plain");
+                Intent shareIntent = Intent.createChooser(sendIntent, getString(R.string.share_link));
+                Intent viewIntent = new Intent(Intent.ACTION_VIEW);
+                viewIntent.setData(Uri.parse(trackUrl));
+                shareIntent.putExtra(Intent.EXTRA_INITIAL_INTENTS, new Intent[]{viewIntent});
+                startActivity(shareIntent);
+            }
+        });
     }
 
     /**
@@ -300,14 +312,21 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
         Context context = view.getContext();
         if (!SettingsFragment.isValidServerSetup(context)) {
             showToast(getString(R.string.provide_user_pass_url));
-        } else if (DbAccess.needsSync(context)) {
-            Intent syncIntent = new Intent(context, WebSyncService.class);
-            context.startService(syncIntent);
-            showToast(getString(R.string.uploading_started));
-            isUploading = true;
-        } else {
-            showToast(getString(R.string.nothing_to_synchronize));
+            return;
         }
+        DbRepository.needsSync(context, needsSync -> {
+            if (!isAdded()) {
+                return;
+            }
+            if (needsSync) {
+                Intent syncIntent = new Intent(context, WebSyncService.class);
+                context.startService(syncIntent);
+                showToast(getString(R.string.uploading_started));
+                isUploading = true;
+            } else {
+                showToast(getString(R.string.nothing_to_synchronize));
+            }
+        });
     }
 
     /**
@@ -315,8 +334,17 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
      * @param view View
      */
     private void trackSummary(@NonNull View view) {
-        Context context = view.getContext();
-        final TrackSummary summary = DbAccess.getTrackSummary(context);
+        DbRepository.getTrackSummary(view.getContext(), this::showTrackSummary);
+    }
+
+    /**
+     * Display track summary dialog
+     * @param summary Track summary or null if there are no positions
+     */
+    private void showTrackSummary(@Nullable TrackSummary summary) {
+        if (!isAdded()) {
+            return;
+        }
         if (summary == null) {
             showToast(getString(R.string.no_positions));
             return;
@@ -404,10 +432,8 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
                 if (trackName.isEmpty()) {
                     showToast(getString(R.string.empty_trackname_warning));
                 }
-                DbAccess.newTrack(v.getContext(), trackName);
                 LoggerService.resetLastLocation();
-                updateTrackLabel(trackName);
-                updateStatus();
+                DbRepository.newTrack(v.getContext(), trackName, this::updateStatus);
                 dialog.cancel();
             });
         }
@@ -436,8 +462,9 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
     /**
      * Update location tracking status label
      * @param lastUpdateRealtime Real time of last location update
+     * @param dbTimestamp Timestamp of last saved position in seconds, used if there was no update
      */
-    private void updateLocationLabel(long lastUpdateRealtime) {
+    private void updateLocationLabel(long lastUpdateRealtime, long dbTimestamp) {
         Context context = getContext();
         if (context == null) {
             return;
@@ -446,11 +473,10 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
         String timeString;
         long timestamp = 0;
         long elapsed = 0;
-        long dbTimestamp;
         if (lastUpdateRealtime > 0) {
             elapsed = (SystemClock.elapsedRealtime() - lastUpdateRealtime);
             timestamp = System.currentTimeMillis() - elapsed;
-        } else if ((dbTimestamp = DbAccess.getLastTimestamp(context)) > 0) {
+        } else if (dbTimestamp > 0) {
             timestamp = dbTimestamp * 1000;
             elapsed = System.currentTimeMillis() - timestamp;
         }
@@ -503,36 +529,44 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
     }
 
     /**
-     * Update location tracking and synchronization status
+     * Update track label, location tracking and synchronization status
      */
     private void updateStatus() {
         Context context = getContext();
         if (context == null) {
             return;
         }
-        updateShareButton();
-        updateLocationLabel(LoggerService.lastUpdateRealtime());
+        DbRepository.getTrackStatus(context, this::updateStatus);
+    }
+
+    /**
+     * Update track label, location tracking and synchronization status
+     * @param status Track status
+     */
+    private void updateStatus(@NonNull DbRepository.TrackStatus status) {
+        if (getView() == null) {
+            return;
+        }
+        updateTrackLabel(status.trackName());
+        updateShareButton(status.trackId());
+        updateLocationLabel(LoggerService.lastUpdateRealtime(), status.lastTimestamp());
         // get sync status
-        int count = DbAccess.countUnsynced(context);
-        String error = DbAccess.getError(context);
+        String error = status.error();
         if (error != null) {
             if (Logger.DEBUG) { Log.d(TAG, "[sync error: " + error + "]"); }
             setSyncError(error);
         } else {
             resetSyncError();
         }
-        updateSyncStatus(count);
+        updateSyncStatus(status.unsynced());
     }
 
     /**
      * Update visibility of share button
+     * @param trackId Server track id
      */
-    private void updateShareButton() {
-        Context context = getContext();
-        if (context == null) {
-            return;
-        }
-        if (DbAccess.getTrackId(context) > 0) {
+    private void updateShareButton(int trackId) {
+        if (trackId > 0) {
             buttonShare.setVisibility(VISIBLE);
         } else {
             buttonShare.setVisibility(GONE);
@@ -626,97 +660,87 @@ public class MainFragment extends Fragment implements PermissionHelper.Permissio
 
 
     /**
-     * Register broadcast receiver for synchronization
-     * and tracking status updates
+     * Listener for synchronization and tracking status updates
      */
-    private void registerBroadcastReceiver() {
-        Context context = getContext();
-        if (context != null) {
-            IntentFilter filter = new IntentFilter();
-            filter.addAction(LoggerService.BROADCAST_LOCATION_STARTED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_STOPPED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_UPDATED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_DISABLED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_GPS_DISABLED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_NETWORK_DISABLED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_GPS_ENABLED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_NETWORK_ENABLED);
-            filter.addAction(LoggerService.BROADCAST_LOCATION_PERMISSION_DENIED);
-            filter.addAction(WebSyncService.BROADCAST_SYNC_DONE);
-            filter.addAction(WebSyncService.BROADCAST_SYNC_FAILED);
-            ContextCompat.registerReceiver(context, broadcastReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
-        }
-    }
-
-    /**
-     * Broadcast receiver
-     */
-    private final BroadcastReceiver broadcastReceiver = new BroadcastReceiver() {
+    private final StatusBus.Listener statusListener = new StatusBus.Listener() {
         @Override
-        public void onReceive(@NonNull Context context, @Nullable Intent intent) {
-            if (Logger.DEBUG) { Log.d(TAG, "[broadcast received " + intent + "]"); }
-            if (intent == null || intent.getAction() == null) {
+        public void onStatusEvent(@NonNull StatusBus.Event event, @Nullable Bundle extras) {
+            if (Logger.DEBUG) { Log.d(TAG, "[status event received " + event + "]"); }
+            Context context = getContext();
+            if (context == null) {
                 return;
             }
             MainActivity activity = (MainActivity) getActivity();
-            switch (intent.getAction()) {
-                case LoggerService.BROADCAST_LOCATION_UPDATED -> {
-                    updateLocationLabel(LoggerService.lastUpdateRealtime());
+            switch (event) {
+                case LOCATION_UPDATED -> {
+                    updateLocationLabel(LoggerService.lastUpdateRealtime(), 0);
                     setLocLed(LED_GREEN);
                     if (activity != null && !activity.preferenceLiveSync) {
-                        updateSyncStatus(DbAccess.countUnsynced(context));
+                        DbRepository.countUnsynced(context, unsyncedCount -> {
+                            if (getView() != null) {
+                                updateSyncStatus(unsyncedCount);
+                            }
+                        });
                     }
                 }
-                case WebSyncService.BROADCAST_SYNC_DONE -> {
-                    final int unsyncedCount = DbAccess.countUnsynced(context);
-                    updateSyncStatus(unsyncedCount);
-                    setSyncLed(LED_GREEN);
+                case SYNC_DONE -> {
                     // reset error flag and label
                     resetSyncError();
-                    // showConfirm message if manual uploading
-                    if (isUploading && unsyncedCount == 0) {
-                        showToast(getString(R.string.uploading_done));
-                        isUploading = false;
-                    }
                     if (buttonShare.getVisibility() == GONE) {
                         buttonShare.setVisibility(VISIBLE);
                     }
+                    DbRepository.countUnsynced(context, unsyncedCount -> {
+                        if (getView() == null) {
+                            return;
+                        }
+                        updateSyncStatus(unsyncedCount);
+                        setSyncLed(LED_GREEN);
+                        // showConfirm message if manual uploading
+                        if (isUploading && unsyncedCount == 0) {
+                            showToast(getString(R.string.uploading_done));
+                            isUploading = false;
+                        }
+                    });
                 }
-                case (WebSyncService.BROADCAST_SYNC_FAILED) -> {
-                    updateSyncStatus(DbAccess.countUnsynced(context));
-                    setSyncLed(LED_RED);
+                case SYNC_FAILED -> {
                     // set error flag and label
-                    String message = intent.getStringExtra("message");
+                    String message = (extras != null) ? extras.getString("message") : null;
                     setSyncError(message);
                     // showConfirm message if manual uploading
                     if (isUploading) {
                         showToast(getString(R.string.uploading_failed) + "\n" + message);
                         isUploading = false;
                     }
+                    DbRepository.countUnsynced(context, unsyncedCount -> {
+                        if (getView() != null) {
+                            updateSyncStatus(unsyncedCount);
+                            setSyncLed(LED_RED);
+                        }
+                    });
                 }
-                case LoggerService.BROADCAST_LOCATION_STARTED -> {
+                case LOCATION_STARTED -> {
                     switchLogger.setChecked(true);
                     showToast(getString(R.string.tracking_started));
                     setLocLed(LED_YELLOW);
                 }
-                case LoggerService.BROADCAST_LOCATION_STOPPED -> {
+                case LOCATION_STOPPED -> {
                     switchLogger.setChecked(false);
                     showToast(getString(R.string.tracking_stopped));
                     setLocLed(LED_RED);
                 }
-                case LoggerService.BROADCAST_LOCATION_GPS_DISABLED ->
+                case LOCATION_GPS_DISABLED ->
                         showToast(getString(R.string.gps_disabled_warning));
-                case LoggerService.BROADCAST_LOCATION_NETWORK_DISABLED ->
+                case LOCATION_NETWORK_DISABLED ->
                         showToast(getString(R.string.net_disabled_warning));
-                case LoggerService.BROADCAST_LOCATION_DISABLED -> {
+                case LOCATION_DISABLED -> {
                     showToast(getString(R.string.location_disabled));
                     setLocLed(LED_RED);
                 }
-                case LoggerService.BROADCAST_LOCATION_NETWORK_ENABLED ->
+                case LOCATION_NETWORK_ENABLED ->
                         showToast(getString(R.string.using_network));
-                case LoggerService.BROADCAST_LOCATION_GPS_ENABLED ->
+                case LOCATION_GPS_ENABLED ->
                         showToast(getString(R.string.using_gps));
-                case LoggerService.BROADCAST_LOCATION_PERMISSION_DENIED -> {
+                case LOCATION_PERMISSION_DENIED -> {
                     showToast(getString(R.string.location_permission_denied));
                     setLocLed(LED_RED);
                     permissionHelper.requestFineLocationPermission();
@@ -28,6 +28,8 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.PowerManager;
 import android.provider.Settings;
+import android.text.format.DateUtils;
+import android.text.format.Formatter;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
@@ -47,7 +49,11 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.R;
 import net.fabiszewski.ulogger.WebAuthException;
+import net.fabiszewski.ulogger.db.DbMaintenance;
+import net.fabiszewski.ulogger.services.LoggerService;
+import net.fabiszewski.ulogger.utils.AppExecutor;
 import net.fabiszewski.ulogger.utils.PermissionHelper;
+import net.fabiszewski.ulogger.utils.StationaryDetector;
 import net.fabiszewski.ulogger.utils.WebHelper;
 
 import org.json.JSONException;
@@ -86,6 +92,10 @@ public class SelfCheckFragment extends Fragment implements PermissionHelper.Perm
     private SwitchCompat validAccountSwitch;
     private View batteryUsageLayout;
     private SwitchCompat batteryUsageSwitch;
+    private TextView databaseSizeLabel;
+    private TextView databaseCompactionLabel;
+    private TextView imageUploadsLabel;
+    private TextView loggerMotionLabel;
     final PermissionHelper permissionHelper;
 
     public SelfCheckFragment() {
@@ -125,6 +135,10 @@ public class SelfCheckFragment extends Fragment implements PermissionHelper.Perm
         validAccountSwitch = layout.findViewById(R.id.validAccountResult);
         batteryUsageLayout = layout.findViewById(R.id.batteryUnrestrictedSelfCheck);
         batteryUsageSwitch = layout.findViewById(R.id.batteryUnrestrictedUsageResult);
+        databaseSizeLabel = layout.findViewById(R.id.databaseSize);
+        databaseCompactionLabel = layout.findViewById(R.id.databaseCompaction);
+        imageUploadsLabel = layout.findViewById(R.id.imageUploads);
+        loggerMotionLabel = layout.findViewById(R.id.loggerMotion);
 
         selfCheck();
 
@@ -132,11 +146,14 @@ public class SelfCheckFragment extends Fragment implements PermissionHelper.Perm
     }
 
     public void selfCheck() {
+        if (Logger.DEBUG) { Log.d(TAG, "[executor: " + AppExecutor.getStats() + "]"); }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             checkPermissions();
         }
         checkProviders();
         checkServer();
+        checkDatabase();
+        checkLogger();
     }
 
     public void setRefreshing(boolean refreshing) {
@@ -153,18 +170,61 @@ public class SelfCheckFragment extends Fragment implements PermissionHelper.Perm
         setupServerSwitch(serverReachableSwitch, false);
         setupServerSwitch(validAccountSwitch, false);
 
+        WebHelper.ImageUploadStats uploadStats = WebHelper.getImageUploadStats();
+        if (uploadStats != null) {
+            Context context = requireContext();
+            imageUploadsLabel.setText(getString(R.string.self_check_image_uploads, uploadStats.count(),
+                    Formatter.formatShortFileSize(context, uploadStats.getAverageBytes()),
+                    Formatter.formatShortFileSize(context, uploadStats.lastBytes())));
+        } else {
+            imageUploadsLabel.setText(R.string.self_check_image_uploads_none);
+        }
+
         if (isValidServerSetup) {
             setRefreshing(true);
             final Handler handler = new Handler(Looper.getMainLooper());
 
-            new Thread(() -> serverThreadChecks(handler)).start();
+            final WebHelper webHelper = new WebHelper(requireContext());
+            AppExecutor.submit(getViewLifecycleOwner(), AppExecutor.Lane.IO, () -> serverThreadChecks(webHelper, handler));
         } else {
             setRefreshing(false);
         }
     }
 
-    private void serverThreadChecks(@NonNull Handler handler) {
-        final WebHelper webHelper = new WebHelper(requireContext());
+    private void checkDatabase() {
+        final Context context = requireContext().getApplicationContext();
+        final Handler handler = new Handler(Looper.getMainLooper());
+        AppExecutor.submit(getViewLifecycleOwner(), AppExecutor.Lane.IO, () -> {
+            DbMaintenance.SizeInfo sizeInfo = DbMaintenance.getSizeInfo(context);
+            handler.post(() -> {
+                if (isAdded()) {
+                    databaseSizeLabel.setText(getString(R.string.self_check_database_size,
+                            Formatter.formatShortFileSize(context, sizeInfo.totalBytes()),
+                            Formatter.formatShortFileSize(context, sizeInfo.freeBytes())));
+                }
+            });
+        });
+        DbMaintenance.Stats stats = DbMaintenance.getLastStats();
+        if (stats != null) {
+            databaseCompactionLabel.setText(getString(R.string.self_check_database_compaction,
+                    stats.durationMillis(), stats.archivedPositions(), stats.removedPositions()));
+        } else {
+            databaseCompactionLabel.setText(R.string.self_check_database_compaction_none);
+        }
+    }
+
+    private void checkLogger() {
+        StationaryDetector.Stats stats = LoggerService.getMotionStats();
+        if (stats != null) {
+            loggerMotionLabel.setText(getString(R.string.self_check_logger_motion,
+                    DateUtils.formatElapsedTime(stats.movingMillis() / 1000),
+                    DateUtils.formatElapsedTime(stats.stationaryMillis() / 1000)));
+        } else {
+            loggerMotionLabel.setText(R.string.self_check_logger_motion_none);
+        }
+    }
+
+    private void serverThreadChecks(@NonNull WebHelper webHelper, @NonNull Handler handler) {
         boolean isReachable = false;
         String details = null;
         try {
@@ -27,10 +27,14 @@ public class SettingsActivity extends AppCompatActivity {
     public static final String KEY_AUTO_START = "prefAutoStart";
     public static final String KEY_HOST = "prefHost";
     public static final String KEY_LIVE_SYNC = "prefLiveSync";
+    public static final String KEY_STATIONARY_DETECTION = "prefStationaryDetection";
+    public static final String KEY_BATCHING = "prefBatching";
     public static final String KEY_MIN_ACCURACY = "prefMinAccuracy";
     public static final String KEY_MIN_DISTANCE = "prefMinDistance";
     public static final String KEY_MIN_TIME = "prefMinTime";
     public static final String KEY_IMAGE_SIZE = "prefImageSize";
+    public static final String KEY_IMAGE_FORMAT = "prefImageFormat";
+    public static final String KEY_IMAGE_ENCODE_ON_UPLOAD = "prefImageEncodeOnUpload";
     public static final String KEY_PASS = "prefPass";
     public static final String KEY_PROVIDER = "prefProvider";
     public static final String KEY_UNITS = "prefUnits";
@@ -40,6 +44,9 @@ public class SettingsActivity extends AppCompatActivity {
     public static final String KEY_LOGGER_RUNNING = "prefLoggerRunning";
     public static final String KEY_ALLOW_EXTERNAL = "prefAllowExternal";
     public static final String KEY_AUTO_NAME = "prefAutoName";
+    public static final String KEY_RETENTION_DAYS = "prefRetentionDays";
+    public static final String KEY_RETENTION_ROWS = "prefRetentionRows";
+    public static final String KEY_ARCHIVE = "prefArchive";
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -36,7 +36,7 @@ import androidx.preference.TwoStatePreference;
 
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.R;
-import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.db.DbRepository;
 import net.fabiszewski.ulogger.utils.PermissionHelper;
 import net.fabiszewski.ulogger.utils.WebHelper;
 
@@ -115,16 +115,15 @@ public class SettingsFragment extends PreferenceFragmentCompat implements Permis
         // On click listener to warn if server setup has changed
         Preference.OnPreferenceClickListener serverSetupClicked = preference -> {
             final Context context = preference.getContext();
-            DbAccess db = DbAccess.getInstance();
-            db.open(context);
-            if (db.getTrackId() > 0) {
-                // track saved on server
-                Alert.showInfo(context,
-                        context.getString(R.string.warning),
-                        context.getString(R.string.track_server_setup_warning)
-                );
-
-            }
+            DbRepository.getTrackId(context, trackId -> {
+                if (trackId > 0 && isAdded()) {
+                    // track saved on server
+                    Alert.showInfo(context,
+                            context.getString(R.string.warning),
+                            context.getString(R.string.track_server_setup_warning)
+                    );
+                }
+            });
             return true;
         };
 
@@ -13,7 +13,6 @@ import static android.content.Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION;
 import static android.content.Intent.FLAG_GRANT_READ_URI_PERMISSION;
 import static android.content.Intent.FLAG_GRANT_WRITE_URI_PERMISSION;
 import static androidx.activity.result.contract.ActivityResultContracts.TakePicture;
-import static java.util.concurrent.Executors.newCachedThreadPool;
 
 import android.content.ActivityNotFoundException;
 import android.content.Context;
@@ -46,14 +45,14 @@ import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.OpenLocalDocument;
 import net.fabiszewski.ulogger.R;
 import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.db.DbRepository;
 import net.fabiszewski.ulogger.tasks.ImageTask;
 import net.fabiszewski.ulogger.tasks.LoggerTask;
+import net.fabiszewski.ulogger.utils.AppExecutor;
 import net.fabiszewski.ulogger.utils.ImageHelper;
 import net.fabiszewski.ulogger.utils.LocationFormatter;
 import net.fabiszewski.ulogger.utils.PermissionHelper;
 
-import java.util.concurrent.ExecutorService;
-
 public class WaypointFragment extends Fragment implements LoggerTask.LoggerTaskCallback, ImageTask.ImageTaskCallback, PermissionHelper.PermissionRequester {
 
     private static final String TAG = WaypointFragment.class.getSimpleName();
@@ -80,8 +79,6 @@ public class WaypointFragment extends Fragment implements LoggerTask.LoggerTaskC
     private Bitmap photoThumb = null;
     private boolean isWaitingForCamera = false;
 
-    private final ExecutorService executor = newCachedThreadPool();
-
     final PermissionHelper permissionHelper;
 
     /**
@@ -222,7 +219,7 @@ public class WaypointFragment extends Fragment implements LoggerTask.LoggerTaskC
             location = null;
             clearLocationText();
             loggerTask = new LoggerTask(this);
-            executor.execute(loggerTask);
+            AppExecutor.submit(this, AppExecutor.Lane.UI_CRITICAL, loggerTask);
             setRefreshing(true);
         }
     }
@@ -265,7 +262,7 @@ public class WaypointFragment extends Fragment implements LoggerTask.LoggerTaskC
             clearImage();
             saveButton.setEnabled(false);
             imageTask = new ImageTask(uri, this);
-            executor.execute(imageTask);
+            AppExecutor.submit(this, AppExecutor.Lane.UI_CRITICAL, imageTask);
             setRefreshing(true);
         }
     }
@@ -279,7 +276,7 @@ public class WaypointFragment extends Fragment implements LoggerTask.LoggerTaskC
         if (imageTask == null || !imageTask.isRunning()) {
             if (Logger.DEBUG) { Log.d(TAG, "[runThumbnailTask]"); }
             imageTask = new ImageTask(uri, this, true);
-            executor.execute(imageTask);
+            AppExecutor.submit(this, AppExecutor.Lane.UI_CRITICAL, imageTask);
             setRefreshing(true);
         }
     }
@@ -337,14 +334,18 @@ public class WaypointFragment extends Fragment implements LoggerTask.LoggerTaskC
      */
     private void saveWaypoint(@NonNull View view) {
         if (hasLocation()) {
-            if (photoUri != null) {
-                photoUri = ImageHelper.moveCachedToAppStorage(view.getContext(), photoUri);
-            }
-            String comment = commentEditText.getText().toString();
-            String uri = (photoUri == null) ? null : photoUri.toString();
-            DbAccess.writeWaypoint(view.getContext(), location, comment, uri);
+            final Context context = view.getContext().getApplicationContext();
+            final Location waypoint = location;
+            final String comment = commentEditText.getText().toString();
+            // image must leave cache folder before finishing, cache is cleared when fragment is destroyed.
+            // It is a rename within app storage, cheap enough for UI thread
+            Uri savedUri = (photoUri == null) ? null : ImageHelper.moveCachedToAppStorage(context, photoUri);
+            final String uri = (savedUri == null) ? null : savedUri.toString();
+            DbRepository.execute(() -> {
+                DbAccess.writeWaypoint(context, waypoint, comment, uri);
+                if (Logger.DEBUG) { Log.d(TAG, "[saveWaypoint: " + waypoint + ", " + comment + ", " + uri + "]"); }
+            });
             photoUri = null;
-            if (Logger.DEBUG) { Log.d(TAG, "[saveWaypoint: " + location + ", " + comment + ", " + uri + "]"); }
         }
         finish();
     }
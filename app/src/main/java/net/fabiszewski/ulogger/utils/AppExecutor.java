@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App wide executor for background tasks.
+ * Tasks run in priority lanes, each with bounded number of threads,
+ * idle threads are released after timeout.
+ */
+public class AppExecutor {
+
+    private static final String TAG = AppExecutor.class.getSimpleName();
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public enum Lane {
+        /** Short tasks user is waiting for, eg. waypoint fix or thumbnail */
+        UI_CRITICAL("ui", 2, Process.THREAD_PRIORITY_DEFAULT),
+        /** Network and disk access, eg. server checks */
+        IO("io", 2, Process.THREAD_PRIORITY_BACKGROUND),
+        /** Long running bulk work, eg. import and export */
+        BULK("bulk", 1, Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_LESS_FAVORABLE);
+
+        private final String name;
+        private final int threads;
+        private final int priority;
+
+        Lane(@NonNull String name, int threads, int priority) {
+            this.name = name;
+            this.threads = threads;
+            this.priority = priority;
+        }
+    }
+
+    private static final LaneExecutor[] executors = new LaneExecutor[Lane.values().length];
+
+    private AppExecutor() {}
+
+    /**
+     * Submit task to lane
+     * @param lane Lane
+     * @param task Task
+     * @return Future that may be used to cancel task
+     */
+    @NonNull
+    public static Future<?> submit(@NonNull Lane lane, @NonNull Runnable task) {
+        return getExecutor(lane).submitTask(task);
+    }
+
+    /**
+     * Submit task to lane, cancel it when lifecycle owner is destroyed.
+     * Running task is interrupted.
+     * @param owner Lifecycle owner
+     * @param lane Lane
+     * @param task Task
+     * @return Future that may be used to cancel task
+     */
+    @UiThread
+    @NonNull
+    public static Future<?> submit(@NonNull LifecycleOwner owner, @NonNull Lane lane, @NonNull Runnable task) {
+        final Future<?> future = submit(lane, task);
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    if (future.cancel(true) && Logger.DEBUG) {
+                        Log.d(TAG, "[task cancelled on destroy: " + lane.name + "]");
+                    }
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Get lane statistics
+     * @return Statistics
+     */
+    @NonNull
+    public static String getStats() {
+        StringBuilder sb = new StringBuilder();
+        for (Lane lane : Lane.values()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(getExecutor(lane).getStats());
+        }
+        return sb.toString();
+    }
+
+    @NonNull
+    private static synchronized LaneExecutor getExecutor(@NonNull Lane lane) {
+        LaneExecutor executor = executors[lane.ordinal()];
+        if (executor == null) {
+            executor = new LaneExecutor(lane);
+            executors[lane.ordinal()] = executor;
+        }
+        return executor;
+    }
+
+    /**
+     * Executor of single lane with queue metrics
+     */
+    private static class LaneExecutor extends ThreadPoolExecutor {
+        private final Lane lane;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong totalWaitMillis = new AtomicLong();
+        private final AtomicLong maxWaitMillis = new AtomicLong();
+        private volatile int maxQueued = 0;
+
+        LaneExecutor(@NonNull Lane lane) {
+            super(lane.threads, lane.threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new LaneThreadFactory(lane));
+            this.lane = lane;
+            allowCoreThreadTimeOut(true);
+        }
+
+        @NonNull
+        Future<?> submitTask(@NonNull Runnable task) {
+            final long queuedAt = SystemClock.elapsedRealtime();
+            submitted.incrementAndGet();
+            Future<?> future = submit(() -> {
+                long wait = SystemClock.elapsedRealtime() - queuedAt;
+                totalWaitMillis.addAndGet(wait);
+                if (wait > maxWaitMillis.get()) {
+                    maxWaitMillis.set(wait);
+                }
+                try {
+                    task.run();
+                } finally {
+                    completed.incrementAndGet();
+                    if (Logger.DEBUG) {
+                        Log.d(TAG, "[" + lane.name + " task done, waited " + wait + " ms, run " +
+                                (SystemClock.elapsedRealtime() - queuedAt - wait) + " ms]");
+                    }
+                }
+            });
+            int queued = getQueue().size();
+            if (queued > maxQueued) {
+                maxQueued = queued;
+            }
+            return future;
+        }
+
+        /**
+         * Log task failure, submitted task keeps its exception in future
+         * which callers rarely check
+         */
+        @Override
+        protected void afterExecute(Runnable runnable, Throwable throwable) {
+            super.afterExecute(runnable, throwable);
+            if (throwable == null && runnable instanceof Future<?> future && future.isDone()) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throwable = e.getCause();
+                } catch (CancellationException e) {
+                    // cancelled by caller
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (throwable != null) {
+                Log.e(TAG, "[" + lane.name + " task failed: " + throwable + "]", throwable);
+            }
+        }
+
+        @NonNull
+        String getStats() {
+            long done = completed.get();
+            long avgWait = done > 0 ? totalWaitMillis.get() / done : 0;
+            return String.format(Locale.US, "%s: active %d, queued %d (max %d), submitted %d, completed %d, wait avg %d ms (max %d ms)",
+                    lane.name, getActiveCount(), getQueue().size(), maxQueued, submitted.get(), done, avgWait, maxWaitMillis.get());
+        }
+    }
+
+    /**
+     * Creates named lane threads with lane priority
+     */
+    private static class LaneThreadFactory implements ThreadFactory {
+        private final Lane lane;
+        private final AtomicInteger count = new AtomicInteger();
+
+        LaneThreadFactory(@NonNull Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(lane.priority);
+                runnable.run();
+            }, "ulogger-" + lane.name + "-" + count.incrementAndGet());
+        }
+    }
+}
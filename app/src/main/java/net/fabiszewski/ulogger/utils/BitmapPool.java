@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of mutable bitmaps for reuse as decoder target (inBitmap).
+ * Bitmaps are kept in buckets by power of two of their allocation size.
+ * Total pooled bytes never exceed the cap, least recently pooled bitmaps are recycled first.
+ */
+public class BitmapPool {
+
+    private static final String TAG = BitmapPool.class.getSimpleName();
+
+    private static final long MAX_BYTES_LIMIT = 64L * 1024 * 1024;
+    // fraction of heap available for pool
+    private static final int MEMORY_DIVIDER = 8;
+    // how many larger buckets are searched, bigger bitmaps waste pooled memory
+    private static final int MAX_BUCKET_DISTANCE = 2;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private static BitmapPool instance;
+
+    private final SparseArray<ArrayDeque<Bitmap>> buckets = new SparseArray<>();
+    // pooling order for eviction
+    private final ArrayDeque<Bitmap> order = new ArrayDeque<>();
+    private final long maxBytes;
+    private long size = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    private BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get pool instance
+     * @return Pool
+     */
+    @NonNull
+    public static synchronized BitmapPool getInstance() {
+        if (instance == null) {
+            long maxBytes = Math.min(MAX_BYTES_LIMIT, Runtime.getRuntime().maxMemory() / MEMORY_DIVIDER);
+            instance = new BitmapPool(maxBytes);
+        }
+        return instance;
+    }
+
+    /**
+     * Get bitmap with at least given allocation size
+     * @param minBytes Required allocation size
+     * @return Bitmap or null if none available
+     */
+    @Nullable
+    public synchronized Bitmap get(long minBytes) {
+        int first = floorLog2(minBytes);
+        for (int bucket = first; bucket <= first + MAX_BUCKET_DISTANCE; bucket++) {
+            ArrayDeque<Bitmap> bitmaps = buckets.get(bucket);
+            if (bitmaps == null) {
+                continue;
+            }
+            for (Bitmap bitmap : bitmaps) {
+                if (bitmap.getAllocationByteCount() >= minBytes) {
+                    bitmaps.remove(bitmap);
+                    order.remove(bitmap);
+                    size -= bitmap.getAllocationByteCount();
+                    hits++;
+                    return bitmap;
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Set decoder target for image of given size, decoded bitmap will be mutable
+     * @param options Decoder options with sample size set
+     * @param width Source image width
+     * @param height Source image height
+     */
+    public void setInBitmap(@NonNull BitmapFactory.Options options, int width, int height) {
+        int sampleSize = Math.max(1, options.inSampleSize);
+        long bytes = (long) ((width + sampleSize - 1) / sampleSize) * ((height + sampleSize - 1) / sampleSize) * BYTES_PER_PIXEL;
+        options.inMutable = true;
+        options.inBitmap = get(bytes);
+    }
+
+    /**
+     * Return bitmap to pool. Bitmaps that cannot be reused or do not fit are recycled.
+     * Bitmap must not be used by caller any more.
+     * @param bitmap Bitmap
+     */
+    public synchronized void put(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int bytes = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || bytes > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        while (size + bytes > maxBytes && !order.isEmpty()) {
+            Bitmap evicted = order.removeFirst();
+            ArrayDeque<Bitmap> bitmaps = buckets.get(floorLog2(evicted.getAllocationByteCount()));
+            if (bitmaps != null) {
+                bitmaps.remove(evicted);
+            }
+            size -= evicted.getAllocationByteCount();
+            evicted.recycle();
+            evictions++;
+        }
+        int bucket = floorLog2(bytes);
+        ArrayDeque<Bitmap> bitmaps = buckets.get(bucket);
+        if (bitmaps == null) {
+            bitmaps = new ArrayDeque<>();
+            buckets.put(bucket, bitmaps);
+        }
+        bitmaps.addLast(bitmap);
+        order.addLast(bitmap);
+        size += bytes;
+        if (Logger.DEBUG) { Log.d(TAG, "[put " + bytes + " bytes, " + getStats() + "]"); }
+    }
+
+    /**
+     * Recycle all pooled bitmaps, eg. before retrying allocation after out of memory error
+     */
+    public synchronized void clear() {
+        for (Bitmap bitmap : order) {
+            bitmap.recycle();
+        }
+        order.clear();
+        buckets.clear();
+        size = 0;
+    }
+
+    /**
+     * Get hit rate
+     * @return Hit rate in range 0-1
+     */
+    public synchronized float getHitRate() {
+        long total = hits + misses;
+        return total > 0 ? (float) hits / total : 0;
+    }
+
+    /**
+     * Get statistics summary
+     * @return Statistics
+     */
+    @NonNull
+    public synchronized String getStats() {
+        return "hits: " + hits + ", misses: " + misses + ", evictions: " + evictions +
+                ", size: " + size + "/" + maxBytes;
+    }
+
+    private static int floorLog2(long value) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(1, value));
+    }
+}
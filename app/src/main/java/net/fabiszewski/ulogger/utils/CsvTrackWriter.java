@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.db.DbAccess;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * CSV track writer (RFC 4180), one row per position
+ */
+class CsvTrackWriter extends TextTrackWriter {
+
+    private static final String HEADER = "time,latitude,longitude,altitude,accuracy,speed,bearing,provider,waypoint,comment\r\n";
+
+    /**
+     * @param stream Output stream
+     */
+    CsvTrackWriter(@NonNull OutputStream stream) {
+        super(stream);
+    }
+
+    @Override
+    public void startDocument(@NonNull String creator, @NonNull String trackName, long timestamp) throws IOException {
+        writer.write(HEADER);
+    }
+
+    @Override
+    public void writeWaypoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        writeRow(cursor, columns, true);
+    }
+
+    @Override
+    public void writeTrackPoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        writeRow(cursor, columns, false);
+    }
+
+    /**
+     * Write position row
+     * @param cursor Positions cursor
+     * @param columns Cursor column indices
+     * @param isWaypoint True for waypoint
+     * @throws IOException Exception
+     */
+    private void writeRow(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns,
+                          boolean isWaypoint) throws IOException {
+        writeTime(cursor.getLong(columns.time));
+        writer.write(',');
+        writeColumn(cursor, columns.latitude);
+        writer.write(',');
+        writeColumn(cursor, columns.longitude);
+        writer.write(',');
+        writeOptional(cursor, columns.altitude);
+        writer.write(',');
+        writeOptional(cursor, columns.accuracy);
+        writer.write(',');
+        writeOptional(cursor, columns.speed);
+        writer.write(',');
+        writeOptional(cursor, columns.bearing);
+        writer.write(',');
+        if (!cursor.isNull(columns.provider)) {
+            writeField(cursor.getString(columns.provider));
+        }
+        writer.write(isWaypoint ? ",1," : ",0,");
+        if (!cursor.isNull(columns.comment)) {
+            writeField(cursor.getString(columns.comment));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Write column text, empty field for null
+     * @param cursor Cursor
+     * @param column Column index
+     * @throws IOException Exception
+     */
+    private void writeOptional(@NonNull Cursor cursor, int column) throws IOException {
+        if (!cursor.isNull(column)) {
+            writeColumn(cursor, column);
+        }
+    }
+
+    /**
+     * Write text field, quoted if it contains separator, quote or line break
+     * @param text Text
+     * @throws IOException Exception
+     */
+    private void writeField(@NonNull String text) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (needsQuotes) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+}
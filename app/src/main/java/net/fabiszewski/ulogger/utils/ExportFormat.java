@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Supported track export formats
+ */
+public enum ExportFormat {
+    GPX(".gpx", "application/gpx+xml"),
+    GPX_GZ(".gpx.gz", "application/gzip"),
+    GEOJSON(".geojson", "application/geo+json"),
+    CSV(".csv", "text/csv"),
+    ZIP(".zip", "application/zip");
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    public final String extension;
+    public final String mimeType;
+
+    ExportFormat(@NonNull String extension, @NonNull String mimeType) {
+        this.extension = extension;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * Create track writer for this format
+     * @param context Context
+     * @param stream Output stream, closed together with writer
+     * @return Writer
+     * @throws IOException Exception
+     */
+    @NonNull
+    public TrackWriter createWriter(@NonNull Context context, @NonNull OutputStream stream) throws IOException {
+        return switch (this) {
+            case GPX -> new GpxTrackWriter(stream);
+            case GPX_GZ -> new GpxTrackWriter(new GZIPOutputStream(stream, GZIP_BUFFER_SIZE));
+            case GEOJSON -> new GeoJsonTrackWriter(stream);
+            case CSV -> new CsvTrackWriter(stream);
+            case ZIP -> new ZipTrackWriter(context, stream);
+        };
+    }
+
+    /**
+     * Get format matching file name extension
+     * @param fileName File name
+     * @return Format, GPX if extension is not recognized
+     */
+    @NonNull
+    public static ExportFormat fromFileName(@NonNull String fileName) {
+        ExportFormat match = null;
+        // longest matching extension wins (.gpx.gz over .gpx)
+        for (ExportFormat format : values()) {
+            if (fileName.endsWith(format.extension)
+                    && (match == null || format.extension.length() > match.extension.length())) {
+                match = format;
+            }
+        }
+        return match != null ? match : GPX;
+    }
+}
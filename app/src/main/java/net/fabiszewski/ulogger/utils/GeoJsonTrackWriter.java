@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.db.DbAccess;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * GeoJSON track writer.
+ * Writes feature collection with one point feature per position,
+ * so that document may be streamed in single pass without losing per point time.
+ */
+class GeoJsonTrackWriter extends TextTrackWriter {
+
+    private boolean isFirstFeature = true;
+
+    /**
+     * @param stream Output stream
+     */
+    GeoJsonTrackWriter(@NonNull OutputStream stream) {
+        super(stream);
+    }
+
+    @Override
+    public void startDocument(@NonNull String creator, @NonNull String trackName, long timestamp) throws IOException {
+        writer.write("{\"type\":\"FeatureCollection\",\"name\":");
+        writeString(trackName);
+        writer.write(",\"features\":[");
+    }
+
+    @Override
+    public void writeWaypoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        writeFeature(cursor, columns, true);
+    }
+
+    @Override
+    public void writeTrackPoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        writeFeature(cursor, columns, false);
+    }
+
+    @Override
+    public void endDocument() throws IOException {
+        writer.write("\n]}\n");
+        super.endDocument();
+    }
+
+    /**
+     * Write point feature
+     * @param cursor Positions cursor
+     * @param columns Cursor column indices
+     * @param isWaypoint True for waypoint
+     * @throws IOException Exception
+     */
+    private void writeFeature(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns,
+                              boolean isWaypoint) throws IOException {
+        writer.write(isFirstFeature ? "\n" : ",\n");
+        isFirstFeature = false;
+        writer.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+        writeColumn(cursor, columns.longitude);
+        writer.write(',');
+        writeColumn(cursor, columns.latitude);
+        if (!cursor.isNull(columns.altitude)) {
+            writer.write(',');
+            writeColumn(cursor, columns.altitude);
+        }
+        writer.write("]},\"properties\":{\"time\":\"");
+        writeTime(cursor.getLong(columns.time));
+        writer.write('"');
+        if (isWaypoint) {
+            writer.write(",\"waypoint\":true");
+        }
+        if (!cursor.isNull(columns.comment)) {
+            writer.write(",\"comment\":");
+            writeString(cursor.getString(columns.comment));
+        }
+        writeProperty("accuracy", cursor, columns.accuracy);
+        writeProperty("speed", cursor, columns.speed);
+        writeProperty("bearing", cursor, columns.bearing);
+        if (!cursor.isNull(columns.provider)) {
+            writer.write(",\"provider\":");
+            writeString(cursor.getString(columns.provider));
+        }
+        writer.write("}}");
+    }
+
+    /**
+     * Write numeric property if column is not null
+     * @param name Property name
+     * @param cursor Cursor
+     * @param column Column index
+     * @throws IOException Exception
+     */
+    private void writeProperty(@NonNull String name, @NonNull Cursor cursor, int column) throws IOException {
+        if (!cursor.isNull(column)) {
+            writer.write(",\"");
+            writer.write(name);
+            writer.write("\":");
+            writeColumn(cursor, column);
+        }
+    }
+
+    /**
+     * Write quoted and escaped JSON string
+     * @param text Text
+     * @throws IOException Exception
+     */
+    private void writeString(@NonNull String text) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format(Locale.US, "\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming source of track points read from GPX document.
+ * Optionally also returns waypoints, details of last returned point
+ * are available through {@link #isWaypoint()} and {@link #getComment()}.
+ * Points without time are skipped, their count is available through {@link #getSkippedCount()}.
+ */
+public class GpxFixSource implements LocationReplay.Source {
+
+    private static final String TAG_TRKPT = "trkpt";
+    private static final String TAG_WPT = "wpt";
+    private static final String TAG_NAME = "name";
+    private static final String TAG_DESC = "desc";
+    private static final String TAG_ELE = "ele";
+    private static final String TAG_TIME = "time";
+    private static final String TAG_ACCURACY = "accuracy";
+    private static final String TAG_SPEED = "speed";
+    private static final String TAG_BEARING = "bearing";
+    private static final String TAG_PROVIDER = "provider";
+
+    /** ISO 8601 date time with optional fraction and zone, missing zone is UTC */
+    private static final Pattern TIME_PATTERN = Pattern.compile(
+            "(\\d{4})-(\\d{2})-(\\d{2})T(\\d{2}):(\\d{2}):(\\d{2})(?:[.,](\\d+))?(Z|([+-])(\\d{2})(?::?(\\d{2}))?)?");
+
+    private final InputStream stream;
+    private final XmlPullParser parser;
+    private final Calendar calendar;
+    private final boolean includeWaypoints;
+
+    private String trackName = null;
+    private boolean isWaypoint = false;
+    private String comment = null;
+    private int skippedCount = 0;
+
+    /**
+     * @param stream GPX input stream
+     * @throws IOException Exception on parser initialization error
+     */
+    public GpxFixSource(@NonNull InputStream stream) throws IOException {
+        this(stream, false);
+    }
+
+    /**
+     * @param stream GPX input stream
+     * @param includeWaypoints Also return waypoints if true
+     * @throws IOException Exception on parser initialization error
+     */
+    public GpxFixSource(@NonNull InputStream stream, boolean includeWaypoints) throws IOException {
+        this.stream = stream;
+        this.includeWaypoints = includeWaypoints;
+        try {
+            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            parser = factory.newPullParser();
+            parser.setInput(stream, null);
+        } catch (XmlPullParserException e) {
+            throw new IOException(e.getMessage());
+        }
+        calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.setLenient(false);
+    }
+
+    @Nullable
+    @Override
+    public Location next() throws IOException {
+        try {
+            int eventType = parser.getEventType();
+            while (eventType != XmlPullParser.END_DOCUMENT) {
+                if (eventType == XmlPullParser.START_TAG) {
+                    String name = parser.getName();
+                    boolean isTrackPoint = TAG_TRKPT.equals(name);
+                    if (isTrackPoint || (includeWaypoints && TAG_WPT.equals(name))) {
+                        isWaypoint = !isTrackPoint;
+                        Location location = readPoint();
+                        if (location != null) {
+                            return location;
+                        }
+                        skippedCount++;
+                        // parser is already positioned after point end tag
+                        eventType = parser.getEventType();
+                        continue;
+                    } else if (trackName == null && TAG_NAME.equals(name) && parser.getDepth() == 3) {
+                        // gpx > metadata|trk > name
+                        trackName = parser.nextText();
+                    }
+                }
+                eventType = parser.next();
+            }
+        } catch (XmlPullParserException | NumberFormatException e) {
+            throw new IOException(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Read track point, parser must be positioned at point start tag
+     * @return Location, null if point has no time
+     * @throws IOException Exception
+     * @throws XmlPullParserException Exception
+     */
+    @Nullable
+    private Location readPoint() throws IOException, XmlPullParserException {
+        Location location = new Location(LocationManager.GPS_PROVIDER);
+        location.setLatitude(Double.parseDouble(getAttribute("lat")));
+        location.setLongitude(Double.parseDouble(getAttribute("lon")));
+        boolean hasTime = false;
+        String name = null;
+        String description = null;
+        int depth = parser.getDepth();
+        int eventType = parser.next();
+        while (!(eventType == XmlPullParser.END_TAG && parser.getDepth() == depth)) {
+            if (eventType == XmlPullParser.START_TAG) {
+                switch (parser.getName()) {
+                    case TAG_ELE -> location.setAltitude(Double.parseDouble(parser.nextText()));
+                    case TAG_TIME -> {
+                        location.setTime(parseTime(parser.nextText()));
+                        hasTime = true;
+                    }
+                    case TAG_ACCURACY -> location.setAccuracy(Float.parseFloat(parser.nextText()));
+                    case TAG_SPEED -> location.setSpeed(Float.parseFloat(parser.nextText()));
+                    case TAG_BEARING -> location.setBearing(Float.parseFloat(parser.nextText()));
+                    case TAG_PROVIDER -> location.setProvider(parser.nextText());
+                    case TAG_NAME -> name = parser.nextText();
+                    case TAG_DESC -> description = parser.nextText();
+                }
+            }
+            eventType = parser.next();
+        }
+        parser.next();
+        if (!hasTime) {
+            return null;
+        }
+        // track point names are just position ids, waypoint description holds full comment
+        comment = isWaypoint ? (description != null ? description : name) : description;
+        return location;
+    }
+
+    /**
+     * Check whether last returned point is waypoint
+     * @return True for waypoint
+     */
+    public boolean isWaypoint() {
+        return isWaypoint;
+    }
+
+    /**
+     * Get comment of last returned point
+     * @return Comment or null
+     */
+    @Nullable
+    public String getComment() {
+        return comment;
+    }
+
+    /**
+     * Get number of points skipped because of missing time
+     * @return Skipped points count
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Get track name from metadata or track element, if already parsed
+     * @return Track name or null
+     */
+    @Nullable
+    public String getTrackName() {
+        return trackName;
+    }
+
+    @NonNull
+    private String getAttribute(@NonNull String name) throws XmlPullParserException {
+        String value = parser.getAttributeValue(null, name);
+        if (value == null) {
+            throw new XmlPullParserException("Missing attribute: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Parse ISO 8601 time, fractional seconds are truncated to milliseconds
+     * @param text Time
+     * @return Milliseconds since epoch
+     * @throws XmlPullParserException Exception on unparsable time
+     */
+    private long parseTime(@NonNull String text) throws XmlPullParserException {
+        Matcher matcher = TIME_PATTERN.matcher(text.trim());
+        if (!matcher.matches()) {
+            throw new XmlPullParserException("Invalid time: " + text);
+        }
+        long time;
+        try {
+            calendar.clear();
+            calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1,
+                    Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)),
+                    Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(6)));
+            time = calendar.getTimeInMillis();
+        } catch (IllegalArgumentException e) {
+            throw new XmlPullParserException("Invalid time: " + text);
+        }
+        String fraction = matcher.group(7);
+        if (fraction != null) {
+            time += Integer.parseInt((fraction + "00").substring(0, 3));
+        }
+        if (matcher.group(9) != null) {
+            int offsetMinutes = Integer.parseInt(matcher.group(10)) * 60;
+            if (matcher.group(11) != null) {
+                offsetMinutes += Integer.parseInt(matcher.group(11));
+            }
+            // local time is ahead of UTC by positive offset
+            time -= (matcher.group(9).equals("-") ? -offsetMinutes : offsetMinutes) * 60000L;
+        }
+        return time;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
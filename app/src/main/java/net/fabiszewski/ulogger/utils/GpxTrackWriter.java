@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.fabiszewski.ulogger.db.DbAccess;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * GPX track writer
+ */
+class GpxTrackWriter implements TrackWriter {
+
+    private final OutputStream stream;
+    private final GpxWriter writer;
+    private final LinkResolver linkResolver;
+    private String trackName;
+
+    private final CharArrayBuffer latitudeBuffer = new CharArrayBuffer(32);
+    private final CharArrayBuffer longitudeBuffer = new CharArrayBuffer(32);
+    private final CharArrayBuffer textBuffer = new CharArrayBuffer(64);
+
+    /**
+     * @param stream Output stream
+     */
+    GpxTrackWriter(@NonNull OutputStream stream) {
+        this(stream, null);
+    }
+
+    /**
+     * @param stream Output stream
+     * @param linkResolver Optional resolver of image links, images are not linked if null
+     */
+    GpxTrackWriter(@NonNull OutputStream stream, @Nullable LinkResolver linkResolver) {
+        this.stream = stream;
+        this.linkResolver = linkResolver;
+        writer = new GpxWriter(stream);
+    }
+
+    @Override
+    public void startDocument(@NonNull String creator, @NonNull String trackName, long timestamp) throws IOException {
+        this.trackName = trackName;
+        writer.startDocument(creator);
+        writer.writeMetadata(trackName, timestamp);
+    }
+
+    @Override
+    public void writeWaypoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        writePoint(cursor, columns, true);
+    }
+
+    @Override
+    public void startTrack() throws IOException {
+        writer.startTrack(trackName);
+    }
+
+    @Override
+    public void writeTrackPoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        writePoint(cursor, columns, false);
+    }
+
+    @Override
+    public void endTrack() throws IOException {
+        writer.endTrack();
+    }
+
+    @Override
+    public void endDocument() throws IOException {
+        writer.endDocument();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    /**
+     * Write <wpt> or <trkpt> element
+     * Column values are copied to reusable buffers, no strings are allocated for track points.
+     *
+     * @param cursor Positions cursor
+     * @param columns Cursor column indices
+     * @param isWaypoint True for waypoint
+     * @throws IOException IO exception
+     */
+    private void writePoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns,
+                            boolean isWaypoint) throws IOException {
+        cursor.copyStringToBuffer(columns.latitude, latitudeBuffer);
+        cursor.copyStringToBuffer(columns.longitude, longitudeBuffer);
+        writer.startPoint(isWaypoint, latitudeBuffer, longitudeBuffer);
+        if (!cursor.isNull(columns.altitude)) {
+            writeColumn(GpxWriter.ELE, cursor, columns.altitude);
+        }
+        writer.writeTime(cursor.getLong(columns.time));
+
+        String comment = cursor.isNull(columns.comment) ? null : cursor.getString(columns.comment);
+        if (isWaypoint && comment != null) {
+            // if comment contains newlines use first line as name, otherwise use whole comment as name
+            String[] lines = comment.split("\n", 2);
+            writer.writeElement(GpxWriter.NAME, lines[0]);
+        } else {
+            writeColumn(GpxWriter.NAME, cursor, columns.id);
+        }
+        if (comment != null) {
+            writer.writeElement(GpxWriter.DESC, comment);
+        }
+        if (linkResolver != null && !cursor.isNull(columns.imageUri)) {
+            String href = linkResolver.getLink(cursor.getLong(columns.id), cursor.getString(columns.imageUri));
+            if (href != null) {
+                writer.writeLink(href);
+            }
+        }
+
+        // ulogger extensions (accuracy, speed, bearing, provider)
+        writer.startExtensions();
+        if (!cursor.isNull(columns.accuracy)) {
+            writeColumn(GpxWriter.ACCURACY, cursor, columns.accuracy);
+        }
+        if (!cursor.isNull(columns.speed)) {
+            writeColumn(GpxWriter.SPEED, cursor, columns.speed);
+        }
+        if (!cursor.isNull(columns.bearing)) {
+            writeColumn(GpxWriter.BEARING, cursor, columns.bearing);
+        }
+        if (!cursor.isNull(columns.provider)) {
+            writeColumn(GpxWriter.PROVIDER, cursor, columns.provider);
+        }
+        writer.endExtensions();
+        writer.endPoint();
+    }
+
+    /**
+     * Write element with column text
+     *
+     * @param tag Element tag
+     * @param cursor Cursor
+     * @param column Column index
+     * @throws IOException IO exception
+     */
+    private void writeColumn(@NonNull GpxWriter.Tag tag, @NonNull Cursor cursor, int column) throws IOException {
+        cursor.copyStringToBuffer(column, textBuffer);
+        writer.writeElement(tag, textBuffer);
+    }
+
+    /**
+     * Resolver of links to point images
+     */
+    interface LinkResolver {
+        /**
+         * Get link to image of given position
+         * @param id Position id
+         * @param imageUri Image URI
+         * @return Link or null to skip
+         */
+        @Nullable
+        String getLink(long id, @NonNull String imageUri);
+    }
+}
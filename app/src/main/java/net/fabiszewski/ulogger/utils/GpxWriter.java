@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.database.CharArrayBuffer;
+
+import androidx.annotation.NonNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming GPX 1.1 encoder.
+ * Writes pre-encoded markup and UTF-8 encodes text straight into reusable byte buffer,
+ * avoiding per element allocations of generic XML serializer.
+ * Output is indented the same way as XmlSerializer with indent-output feature.
+ */
+public class GpxWriter implements Flushable {
+
+    private static final String NS_GPX = "http://www.topografix.com/GPX/1/1";
+    private static final String NS_ULOGGER = "https://github.com/bfabiszewski/ulogger-android/1";
+    private static final String NS_XSI = "http://www.w3.org/2001/XMLSchema-instance";
+    private static final String SCHEMA_LOCATION = NS_GPX + " http://www.topografix.com/GPX/1/1/gpx.xsd " +
+            NS_ULOGGER + " https://raw.githubusercontent.com/bfabiszewski/ulogger-server/master/scripts/gpx_extensions1.xsd";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // longest single write that is not chunked (4 bytes per UTF-8 encoded code point plus markup)
+    private static final int MAX_RESERVE = 256;
+    // length of formatted ISO 8601 time
+    static final int TIME_LENGTH = 20;
+
+    public static final Tag NAME = new Tag("name", 2);
+    public static final Tag DESC = new Tag("desc", 2);
+    public static final Tag ELE = new Tag("ele", 2);
+    public static final Tag ACCURACY = new Tag("ulogger:accuracy", 3);
+    public static final Tag SPEED = new Tag("ulogger:speed", 3);
+    public static final Tag BEARING = new Tag("ulogger:bearing", 3);
+    public static final Tag PROVIDER = new Tag("ulogger:provider", 3);
+    private static final Tag TIME = new Tag("time", 2);
+
+    private static final byte[] OPEN_NAME = ascii("\n    <name>");
+    private static final byte[] CLOSE_NAME = ascii("</name>");
+    private static final byte[] OPEN_TIME = ascii("\n    <time>");
+    private static final byte[] CLOSE_TIME = ascii("</time>");
+    private static final byte[] OPEN_METADATA = ascii("\n  <metadata>");
+    private static final byte[] CLOSE_METADATA = ascii("\n  </metadata>");
+    private static final byte[] OPEN_TRK = ascii("\n  <trk>");
+    private static final byte[] CLOSE_TRK = ascii("\n  </trk>");
+    private static final byte[] OPEN_TRKSEG = ascii("\n    <trkseg>");
+    private static final byte[] CLOSE_TRKSEG = ascii("\n    </trkseg>");
+    private static final byte[] OPEN_WPT = ascii("\n  <wpt lat=\"");
+    private static final byte[] CLOSE_WPT = ascii("\n  </wpt>");
+    private static final byte[] OPEN_TRKPT = ascii("\n      <trkpt lat=\"");
+    private static final byte[] CLOSE_TRKPT = ascii("\n      </trkpt>");
+    private static final byte[] ATTR_LON = ascii("\" lon=\"");
+    private static final byte[] ATTR_END = ascii("\">");
+    private static final byte[] OPEN_WPT_EXTENSIONS = ascii("\n    <extensions>");
+    private static final byte[] CLOSE_WPT_EXTENSIONS = ascii("\n    </extensions>");
+    private static final byte[] OPEN_TRKPT_EXTENSIONS = ascii("\n        <extensions>");
+    private static final byte[] CLOSE_TRKPT_EXTENSIONS = ascii("\n        </extensions>");
+    private static final byte[] OPEN_WPT_LINK = ascii("\n    <link href=\"");
+    private static final byte[] OPEN_TRKPT_LINK = ascii("\n        <link href=\"");
+    private static final byte[] CLOSE_LINK = ascii("\" />");
+    private static final byte[] CLOSE_GPX = ascii("\n</gpx>\n");
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final char[] timeChars = new char[TIME_LENGTH];
+    private int position = 0;
+    private boolean isWaypoint = false;
+
+    /**
+     * @param out Output stream
+     */
+    public GpxWriter(@NonNull OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Write XML declaration and gpx root start tag
+     * @param creator Creator attribute
+     * @throws IOException Exception
+     */
+    public void startDocument(@NonNull String creator) throws IOException {
+        writeRaw(ascii("<?xml version='1.0' encoding='UTF-8' standalone='yes' ?>\n"));
+        writeRaw(ascii("<gpx xmlns:xsi=\"" + NS_XSI + "\" xmlns:ulogger=\"" + NS_ULOGGER + "\" xmlns=\"" + NS_GPX +
+                "\" xsi:schemaLocation=\"" + SCHEMA_LOCATION + "\" version=\"1.1\" creator=\""));
+        writeEscaped(creator, true);
+        writeRaw(ATTR_END);
+    }
+
+    /**
+     * Write metadata element
+     * @param name Track name
+     * @param timestamp Track time, UTC timestamp in seconds
+     * @throws IOException Exception
+     */
+    public void writeMetadata(@NonNull String name, long timestamp) throws IOException {
+        writeRaw(OPEN_METADATA);
+        writeRaw(OPEN_NAME);
+        writeEscaped(name, false);
+        writeRaw(CLOSE_NAME);
+        writeRaw(OPEN_TIME);
+        writeTimeISO8601(timestamp);
+        writeRaw(CLOSE_TIME);
+        writeRaw(CLOSE_METADATA);
+    }
+
+    /**
+     * Start trk and trkseg elements
+     * @param name Track name
+     * @throws IOException Exception
+     */
+    public void startTrack(@NonNull String name) throws IOException {
+        writeRaw(OPEN_TRK);
+        writeRaw(OPEN_NAME);
+        writeEscaped(name, false);
+        writeRaw(CLOSE_NAME);
+        writeRaw(OPEN_TRKSEG);
+    }
+
+    /**
+     * End trkseg and trk elements
+     * @throws IOException Exception
+     */
+    public void endTrack() throws IOException {
+        writeRaw(CLOSE_TRKSEG);
+        writeRaw(CLOSE_TRK);
+    }
+
+    /**
+     * End gpx root element and flush
+     * @throws IOException Exception
+     */
+    public void endDocument() throws IOException {
+        writeRaw(CLOSE_GPX);
+        flush();
+    }
+
+    /**
+     * Start wpt or trkpt element
+     * @param isWaypoint True for waypoint
+     * @param latitude Latitude text
+     * @param longitude Longitude text
+     * @throws IOException Exception
+     */
+    public void startPoint(boolean isWaypoint, @NonNull CharArrayBuffer latitude, @NonNull CharArrayBuffer longitude) throws IOException {
+        this.isWaypoint = isWaypoint;
+        writeRaw(isWaypoint ? OPEN_WPT : OPEN_TRKPT);
+        writeEscaped(latitude.data, latitude.sizeCopied, true);
+        writeRaw(ATTR_LON);
+        writeEscaped(longitude.data, longitude.sizeCopied, true);
+        writeRaw(ATTR_END);
+    }
+
+    /**
+     * End current point element
+     * @throws IOException Exception
+     */
+    public void endPoint() throws IOException {
+        writeRaw(isWaypoint ? CLOSE_WPT : CLOSE_TRKPT);
+    }
+
+    /**
+     * Start extensions element of current point
+     * @throws IOException Exception
+     */
+    public void startExtensions() throws IOException {
+        writeRaw(isWaypoint ? OPEN_WPT_EXTENSIONS : OPEN_TRKPT_EXTENSIONS);
+    }
+
+    /**
+     * End extensions element of current point
+     * @throws IOException Exception
+     */
+    public void endExtensions() throws IOException {
+        writeRaw(isWaypoint ? CLOSE_WPT_EXTENSIONS : CLOSE_TRKPT_EXTENSIONS);
+    }
+
+    /**
+     * Write point time element
+     * @param timestamp UTC timestamp in seconds
+     * @throws IOException Exception
+     */
+    public void writeTime(long timestamp) throws IOException {
+        writeRaw(isWaypoint ? TIME.waypointOpen : TIME.open);
+        writeTimeISO8601(timestamp);
+        writeRaw(TIME.close);
+    }
+
+    /**
+     * Write point child element with text content
+     * @param tag Tag
+     * @param text Text
+     * @throws IOException Exception
+     */
+    public void writeElement(@NonNull Tag tag, @NonNull CharArrayBuffer text) throws IOException {
+        writeRaw(isWaypoint ? tag.waypointOpen : tag.open);
+        writeEscaped(text.data, text.sizeCopied, false);
+        writeRaw(tag.close);
+    }
+
+    /**
+     * Write point child element with text content
+     * @param tag Tag
+     * @param text Text
+     * @throws IOException Exception
+     */
+    public void writeElement(@NonNull Tag tag, @NonNull String text) throws IOException {
+        writeRaw(isWaypoint ? tag.waypointOpen : tag.open);
+        writeEscaped(text, false);
+        writeRaw(tag.close);
+    }
+
+    /**
+     * Write point link element
+     * @param href Link URL
+     * @throws IOException Exception
+     */
+    public void writeLink(@NonNull String href) throws IOException {
+        writeRaw(isWaypoint ? OPEN_WPT_LINK : OPEN_TRKPT_LINK);
+        writeEscaped(href, true);
+        writeRaw(CLOSE_LINK);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    /**
+     * Make sure buffer has space for given number of bytes
+     * @param length Number of bytes
+     * @throws IOException Exception
+     */
+    private void reserve(int length) throws IOException {
+        if (position + length > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void writeRaw(@NonNull byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length) {
+            flush();
+            out.write(bytes);
+            return;
+        }
+        reserve(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeEscaped(@NonNull String text, boolean isAttribute) throws IOException {
+        char[] chars = text.toCharArray();
+        writeEscaped(chars, chars.length, isAttribute);
+    }
+
+    /**
+     * Escape and UTF-8 encode characters into buffer.
+     * Characters not allowed in XML 1.0 are skipped.
+     * @param chars Characters
+     * @param length Number of characters
+     * @param isAttribute Escape for attribute value if true
+     * @throws IOException Exception
+     */
+    private void writeEscaped(@NonNull char[] chars, int length, boolean isAttribute) throws IOException {
+        int i = 0;
+        while (i < length) {
+            reserve(MAX_RESERVE);
+            int limit = Math.min(length, i + (buffer.length - position) / 8);
+            byte[] buf = buffer;
+            int pos = position;
+            for (; i < limit; i++) {
+                char c = chars[i];
+                if (c < 0x80) {
+                    switch (c) {
+                        case '<' -> pos = put(buf, pos, "&lt;");
+                        case '>' -> pos = put(buf, pos, "&gt;");
+                        case '&' -> pos = put(buf, pos, "&amp;");
+                        case '"' -> pos = isAttribute ? put(buf, pos, "&quot;") : put(buf, pos, c);
+                        case '\n' -> pos = isAttribute ? put(buf, pos, "&#10;") : put(buf, pos, c);
+                        case '\r' -> pos = put(buf, pos, "&#13;");
+                        case '\t' -> pos = isAttribute ? put(buf, pos, "&#9;") : put(buf, pos, c);
+                        default -> {
+                            if (c >= 0x20) {
+                                buf[pos++] = (byte) c;
+                            }
+                        }
+                    }
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xc0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+                    int codePoint = Character.toCodePoint(c, chars[++i]);
+                    buf[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (!Character.isSurrogate(c) && c != 0xfffe && c != 0xffff) {
+                    buf[pos++] = (byte) (0xe0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            position = pos;
+        }
+    }
+
+    private static int put(@NonNull byte[] buf, int pos, char c) {
+        buf[pos] = (byte) c;
+        return pos + 1;
+    }
+
+    private static int put(@NonNull byte[] buf, int pos, @NonNull String entity) {
+        for (int i = 0; i < entity.length(); i++) {
+            buf[pos++] = (byte) entity.charAt(i);
+        }
+        return pos;
+    }
+
+    /**
+     * Write unix timestamp as ISO 8601 UTC time
+     * @param timestamp Timestamp in seconds
+     * @throws IOException Exception
+     */
+    private void writeTimeISO8601(long timestamp) throws IOException {
+        reserve(TIME_LENGTH);
+        formatTimeISO8601(timestamp, timeChars);
+        for (int i = 0; i < TIME_LENGTH; i++) {
+            buffer[position++] = (byte) timeChars[i];
+        }
+    }
+
+    /**
+     * Format unix timestamp as ISO 8601 UTC time (yyyy-MM-dd'T'HH:mm:ss'Z')
+     * @param timestamp Timestamp in seconds
+     * @param out Output array, at least {@link #TIME_LENGTH} characters
+     */
+    static void formatTimeISO8601(long timestamp, @NonNull char[] out) {
+        long days = Math.floorDiv(timestamp, 86400);
+        int secondOfDay = (int) Math.floorMod(timestamp, 86400);
+        // civil from days, proleptic Gregorian calendar
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        int pos = putDigits(out, 0, year, 4);
+        out[pos++] = '-';
+        pos = putDigits(out, pos, month, 2);
+        out[pos++] = '-';
+        pos = putDigits(out, pos, day, 2);
+        out[pos++] = 'T';
+        pos = putDigits(out, pos, secondOfDay / 3600, 2);
+        out[pos++] = ':';
+        pos = putDigits(out, pos, (secondOfDay / 60) % 60, 2);
+        out[pos++] = ':';
+        pos = putDigits(out, pos, secondOfDay % 60, 2);
+        out[pos] = 'Z';
+    }
+
+    private static int putDigits(@NonNull char[] buf, int pos, int value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            buf[pos + i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    @NonNull
+    private static byte[] ascii(@NonNull String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @NonNull
+    private static String indent(int level) {
+        StringBuilder sb = new StringBuilder("\n");
+        for (int i = 0; i < level; i++) {
+            sb.append("  ");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Pre-encoded point child element
+     */
+    public static final class Tag {
+        private final byte[] open;
+        private final byte[] waypointOpen;
+        private final byte[] close;
+
+        /**
+         * @param name Qualified tag name
+         * @param level Indentation level inside waypoint
+         */
+        private Tag(@NonNull String name, int level) {
+            // track points are nested two levels deeper than waypoints (trk, trkseg)
+            open = ascii(indent(level + 2) + "<" + name + ">");
+            waypointOpen = ascii(indent(level) + "<" + name + ">");
+            close = ascii("</" + name + ">");
+        }
+    }
+}
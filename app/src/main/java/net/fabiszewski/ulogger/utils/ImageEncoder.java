@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.net.ConnectivityManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
+
+import net.fabiszewski.ulogger.Logger;
+import net.fabiszewski.ulogger.R;
+import net.fabiszewski.ulogger.ui.SettingsActivity;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes bitmaps as JPEG or lossy WebP within given byte budget.
+ * Quality is chosen by binary search on encoded size.
+ */
+public class ImageEncoder {
+
+    private static final String TAG = ImageEncoder.class.getSimpleName();
+
+    private static final int MIN_QUALITY = 30;
+    private static final int MAX_QUALITY = 95;
+    /** Budget on unmetered networks */
+    private static final int BUDGET_UNMETERED = 1024 * 1024;
+    /** Budget on metered networks */
+    private static final int BUDGET_METERED = 200 * 1024;
+
+    public enum Format {
+        JPEG("image/jpeg", ".jpg"),
+        WEBP("image/webp", ".webp");
+
+        public final String mimeType;
+        public final String extension;
+
+        Format(@NonNull String mimeType, @NonNull String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+
+        /**
+         * Get bitmap compress format
+         * @return Compress format
+         */
+        @SuppressWarnings({"deprecation", "RedundantSuppression"})
+        @NonNull
+        Bitmap.CompressFormat getCompressFormat() {
+            if (this == JPEG) {
+                return Bitmap.CompressFormat.JPEG;
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                return Bitmap.CompressFormat.WEBP_LOSSY;
+            }
+            // lossy for quality below 100
+            return Bitmap.CompressFormat.WEBP;
+        }
+    }
+
+    private ImageEncoder() {}
+
+    /**
+     * Get image format from preferences
+     * @param context Context
+     * @return Format
+     */
+    @NonNull
+    public static Format getFormat(@NonNull Context context) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        String format = prefs.getString(SettingsActivity.KEY_IMAGE_FORMAT, context.getString(R.string.pref_imageformat_default));
+        return "webp".equals(format) ? Format.WEBP : Format.JPEG;
+    }
+
+    /**
+     * Check whether images should be encoded at upload time
+     * @param context Context
+     * @return True if encoding is deferred
+     */
+    public static boolean isEncodingDeferred(@NonNull Context context) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        return prefs.getBoolean(SettingsActivity.KEY_IMAGE_ENCODE_ON_UPLOAD, false);
+    }
+
+    /**
+     * Get byte budget for current network type
+     * @param context Context
+     * @return Budget in bytes
+     */
+    public static int getBudget(@NonNull Context context) {
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        boolean isMetered = connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+        if (Logger.DEBUG) { Log.d(TAG, "[getBudget metered: " + isMetered + "]"); }
+        return isMetered ? BUDGET_METERED : BUDGET_UNMETERED;
+    }
+
+    /**
+     * Encode bitmap with highest quality that fits in budget.
+     * If even lowest quality exceeds budget, lowest quality result is returned.
+     * @param bitmap Bitmap
+     * @param format Format
+     * @param budget Maximum size in bytes
+     * @return Encoded image
+     */
+    @NonNull
+    public static byte[] encode(@NonNull Bitmap bitmap, @NonNull Format format, int budget) {
+        final long startTime = SystemClock.elapsedRealtime();
+        Bitmap.CompressFormat compressFormat = format.getCompressFormat();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(budget);
+        byte[] best = null;
+        int bestQuality = MIN_QUALITY;
+        int iterations = 0;
+        int low = MIN_QUALITY;
+        int high = MAX_QUALITY;
+        while (low <= high) {
+            int quality = (low + high) >>> 1;
+            out.reset();
+            bitmap.compress(compressFormat, quality, out);
+            iterations++;
+            if (out.size() <= budget) {
+                best = out.toByteArray();
+                bestQuality = quality;
+                low = quality + 1;
+            } else {
+                high = quality - 1;
+            }
+        }
+        if (best == null) {
+            out.reset();
+            bitmap.compress(compressFormat, MIN_QUALITY, out);
+            iterations++;
+            best = out.toByteArray();
+        }
+        if (Logger.DEBUG) {
+            Log.d(TAG, "[encode " + format + ": " + bitmap.getWidth() + "x" + bitmap.getHeight() +
+                    ", quality: " + bestQuality + ", bytes: " + best.length + "/" + budget +
+                    ", iterations: " + iterations + ", time: " + (SystemClock.elapsedRealtime() - startTime) + " ms]");
+        }
+        return best;
+    }
+}
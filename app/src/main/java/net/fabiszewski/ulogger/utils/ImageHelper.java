@@ -13,6 +13,7 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.res.Resources;
 import android.database.Cursor;
 import android.graphics.Bitmap;
@@ -22,8 +23,12 @@ import android.media.ThumbnailUtils;
 import android.net.Uri;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.provider.OpenableColumns;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 import android.util.Log;
 import android.util.Size;
 import android.webkit.MimeTypeMap;
@@ -31,12 +36,15 @@ import android.webkit.MimeTypeMap;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.exifinterface.media.ExifInterface;
+import androidx.preference.PreferenceManager;
 
 import net.fabiszewski.ulogger.Logger;
 import net.fabiszewski.ulogger.R;
 import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.ui.SettingsActivity;
 
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -53,6 +61,12 @@ public class ImageHelper {
     private static final int ORIENTATION_270 = 270;
     private static final int ORIENTATION_NORMAL = 0;
     private static final String EXT_JPG = ".jpg";
+    private static final String EXT_WEBP = ".webp";
+    private static final String UPLOAD_DIR = "upload";
+    /** JPEG dimension limit, larger EXIF dimensions are not trusted */
+    private static final int MAX_IMAGE_DIMENSION = 65535;
+
+    private static volatile ResampleStats lastResampleStats = null;
 
 
     /**
@@ -82,15 +96,7 @@ public class ImageHelper {
         int orientation = ORIENTATION_NORMAL;
         try (InputStream in = context.getContentResolver().openInputStream(uri)) {
             if (in != null) {
-                ExifInterface exif = new ExifInterface(in);
-                int exifOrientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, 1);
-                if (exifOrientation == ExifInterface.ORIENTATION_ROTATE_90) {
-                    orientation = ORIENTATION_90;
-                } else if (exifOrientation == ExifInterface.ORIENTATION_ROTATE_180) {
-                    orientation = ORIENTATION_180;
-                } else if (exifOrientation == ExifInterface.ORIENTATION_ROTATE_270) {
-                    orientation = ORIENTATION_270;
-                }
+                orientation = getOrientation(new ExifInterface(in));
             }
         } catch (Exception ignored) {
         }
@@ -98,6 +104,24 @@ public class ImageHelper {
         return orientation;
     }
 
+    /**
+     * Get orientation from EXIF data
+     *
+     * @param exif EXIF data
+     * @return Orientation in degrees
+     */
+    private static int getOrientation(@NonNull ExifInterface exif) {
+        int exifOrientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, 1);
+        if (exifOrientation == ExifInterface.ORIENTATION_ROTATE_90) {
+            return ORIENTATION_90;
+        } else if (exifOrientation == ExifInterface.ORIENTATION_ROTATE_180) {
+            return ORIENTATION_180;
+        } else if (exifOrientation == ExifInterface.ORIENTATION_ROTATE_270) {
+            return ORIENTATION_270;
+        }
+        return ORIENTATION_NORMAL;
+    }
+
     /**
      * Get orientation data from MediaStore
      *
@@ -167,7 +191,7 @@ public class ImageHelper {
     }
 
     /**
-     * Extract thumbnail from URI
+     * Get thumbnail for URI, from cache if available
      * @param context Context
      * @param uri URI
      * @return Thumbnail
@@ -175,19 +199,50 @@ public class ImageHelper {
      */
     @NonNull
     public static Bitmap getThumbnail(@NonNull Context context, @NonNull Uri uri) throws IOException {
+        ThumbnailCache cache = ThumbnailCache.getInstance(context);
+        Bitmap bitmap = cache.get(context, uri);
+        if (bitmap == null) {
+            bitmap = extractThumbnail(context, uri);
+            cache.put(context, uri, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Extract thumbnail from URI
+     * @param context Context
+     * @param uri URI
+     * @return Thumbnail
+     * @throws IOException IO exception on failure
+     */
+    @NonNull
+    private static Bitmap extractThumbnail(@NonNull Context context, @NonNull Uri uri) throws IOException {
         int sizePx = getThumbnailSize(context);
         Bitmap bitmap;
         ContentResolver cr = context.getContentResolver();
         if (Objects.equals(uri.getScheme(), "content") && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
             bitmap = cr.loadThumbnail(uri, new Size(sizePx, sizePx), null);
         } else {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
             try (InputStream is = cr.openInputStream(uri)) {
-                bitmap = BitmapFactory.decodeStream(is, null, null);
+                BitmapFactory.decodeStream(is, null, options);
             }
-            if (bitmap == null) {
+            int minSide = Math.min(options.outWidth, options.outHeight);
+            if (minSide <= 0) {
                 throw new IOException("Decoding stream failed");
             }
-            bitmap = ThumbnailUtils.extractThumbnail(bitmap, sizePx, sizePx);
+            // thumbnail is center crop, so shorter side must stay above thumbnail size
+            int dstWidth = (int) ((long) sizePx * Math.max(options.outWidth, options.outHeight) / minSide);
+            Bitmap decoded = decodeSampled(options, dstWidth, opts -> {
+                try (InputStream is = cr.openInputStream(uri)) {
+                    return BitmapFactory.decodeStream(is, null, opts);
+                }
+            });
+            bitmap = ThumbnailUtils.extractThumbnail(decoded, sizePx, sizePx);
+            if (bitmap != decoded) {
+                BitmapPool.getInstance().put(decoded);
+            }
         }
         bitmap = fixImageOrientation(context, uri, bitmap);
         return bitmap;
@@ -293,60 +348,277 @@ public class ImageHelper {
     }
 
     /**
-     * Resample image to given size threshold
+     * Resample image to given size threshold.
+     * Image header is read once for orientation and dimensions,
+     * then image is decoded with power of two subsampling to size close to target.
+     * Remaining scaling and rotation are applied in single transformation.
      * @param context Context
      * @param uri Image URI
-     * @param dstWidth Maximum width/height
+     * @param dstWidth Maximum width/height, zero to keep original size
      * @return Resampled bitmap
      * @throws IOException IO exception on error
      */
     @NonNull
     public static Bitmap getResampledBitmap(@NonNull Context context, @NonNull Uri uri, int dstWidth) throws IOException {
+        final long startTime = SystemClock.elapsedRealtime();
         ContentResolver cr = context.getContentResolver();
+        int orientation = getOrientationMediaStore(context, uri);
         BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = true;
-        try (InputStream is = cr.openInputStream(uri)) {
-            BitmapFactory.decodeStream(is, null, options);
-        }
-        int srcWidth = Math.max(options.outWidth, options.outHeight);
-        int scale = srcWidth / dstWidth;
-        if (Logger.DEBUG) { Log.d(TAG, "[resampleIfNeeded scale: " + scale + "]"); }
-        options = new BitmapFactory.Options();
-        Bitmap bitmap = null;
-        boolean retry = false;
-        do {
-            try {
-                if (scale > 1) {
-                    options.inScaled = true;
-                    options.inSampleSize = 1;
-                    options.inDensity = srcWidth;
-                    options.inTargetDensity =  dstWidth * options.inSampleSize;
+        Bitmap decoded;
+        try (ParcelFileDescriptor descriptor = cr.openFileDescriptor(uri, "r")) {
+            if (descriptor == null) {
+                throw new IOException("Failed to open image");
+            }
+            FileDescriptor fd = descriptor.getFileDescriptor();
+            if (seekToStart(fd)) {
+                ExifInterface exif = new ExifInterface(fd);
+                if (orientation == ORIENTATION_NORMAL) {
+                    orientation = getOrientation(exif);
+                }
+                if (!seekToStart(fd)) {
+                    throw new IOException("Failed to rewind image");
                 }
+                // decoder restores descriptor offset
+                decoded = decodeSampled(exif, options, dstWidth, opts -> BitmapFactory.decodeFileDescriptor(fd, null, opts));
+            } else {
+                // pipe, fall back to streams
+                ExifInterface exif;
                 try (InputStream is = cr.openInputStream(uri)) {
-                    bitmap = BitmapFactory.decodeStream(is, null, options);
+                    if (is == null) {
+                        throw new IOException("Failed to open image");
+                    }
+                    exif = new ExifInterface(is);
                 }
-            } catch (OutOfMemoryError e) {
-                if (Logger.DEBUG) { Log.d(TAG, "[resampleIfNeeded OutOfMemoryError]"); }
-                if (retry) {
-                    throw new IOException("Out of memory");
-                } else if (scale > 1) {
-                    retry = true;
-                    options.inSampleSize = scale;
-                    if (Logger.DEBUG) { Log.d(TAG, "[resampleIfNeeded try sampling]"); }
+                if (orientation == ORIENTATION_NORMAL) {
+                    orientation = getOrientation(exif);
                 }
+                decoded = decodeSampled(exif, options, dstWidth, opts -> {
+                    try (InputStream is = cr.openInputStream(uri)) {
+                        return BitmapFactory.decodeStream(is, null, opts);
+                    }
+                });
             }
-        } while (retry);
+        }
+        final long decodedBytes = decoded.getAllocationByteCount();
+        final int decodedWidth = decoded.getWidth();
+        final int decodedHeight = decoded.getHeight();
+        Bitmap bitmap = scaleAndRotate(decoded, dstWidth, orientation);
+        // decoded and transformed bitmaps are both alive during transformation
+        long peak = bitmap == decoded ? decodedBytes : decodedBytes + bitmap.getAllocationByteCount();
+        ResampleStats stats = new ResampleStats(decodedWidth, decodedHeight, options.inSampleSize,
+                bitmap.getWidth(), bitmap.getHeight(), peak, SystemClock.elapsedRealtime() - startTime);
+        lastResampleStats = stats;
+        if (Logger.DEBUG) { Log.d(TAG, "[getResampledBitmap: " + stats + "]"); }
+        return bitmap;
+    }
 
-        if (bitmap == null) {
+    /**
+     * Get statistics of last image resampling
+     * @return Statistics or null if no image was resampled yet
+     */
+    @Nullable
+    public static ResampleStats getLastResampleStats() {
+        return lastResampleStats;
+    }
+
+    /**
+     * Image resampling statistics
+     * @param decodedWidth Width of subsampled image
+     * @param decodedHeight Height of subsampled image
+     * @param sampleSize Decoder sample size
+     * @param width Width of result
+     * @param height Height of result
+     * @param peakBytes Peak bitmap memory
+     * @param elapsedMillis Duration
+     */
+    public record ResampleStats(int decodedWidth, int decodedHeight, int sampleSize, int width, int height,
+                                long peakBytes, long elapsedMillis) {}
+
+    /**
+     * Decode image with dimensions taken from EXIF data.
+     * EXIF dimensions may be missing or not match image data (eg. after editing),
+     * in that case real dimensions are decoded from image header.
+     * @param exif EXIF data
+     * @param options Options
+     * @param dstWidth Target maximum width/height
+     * @param decoder Decoder, also used for bounds decoding
+     * @return Decoded bitmap
+     * @throws IOException IO exception on error
+     */
+    @NonNull
+    private static Bitmap decodeSampled(@NonNull ExifInterface exif, @NonNull BitmapFactory.Options options,
+                                        int dstWidth, @NonNull Decoder decoder) throws IOException {
+        if (getSize(exif, options)) {
+            int width = options.outWidth;
+            int height = options.outHeight;
+            Bitmap bitmap = decodeSampled(options, dstWidth, decoder);
+            if (isSampledSize(bitmap, width, height, options.inSampleSize)) {
+                return bitmap;
+            }
+            if (Logger.DEBUG) { Log.d(TAG, "[decodeSampled: EXIF size " + width + "x" + height +
+                    " does not match image, decoded " + bitmap.getWidth() + "x" + bitmap.getHeight() +
+                    " with sample " + options.inSampleSize + "]"); }
+            BitmapPool.getInstance().put(bitmap);
+            options.inBitmap = null;
+            options.inSampleSize = 1;
+        }
+        options.inJustDecodeBounds = true;
+        decoder.decode(options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
             throw new IOException("Failed to decode image");
         }
+        return decodeSampled(options, dstWidth, decoder);
+    }
 
-        bitmap = fixImageOrientation(context, uri, bitmap);
+    /**
+     * Check whether bitmap has dimensions of source image decoded with given sample size.
+     * Decoders round sampled dimensions either way.
+     * @param bitmap Decoded bitmap
+     * @param width Source width
+     * @param height Source height
+     * @param sampleSize Sample size
+     * @return True if dimensions match
+     */
+    private static boolean isSampledSize(@NonNull Bitmap bitmap, int width, int height, int sampleSize) {
+        return Math.abs(bitmap.getWidth() - width / sampleSize) <= 1
+                && Math.abs(bitmap.getHeight() - height / sampleSize) <= 1;
+    }
+
+    /**
+     * Decode image with largest power of two sample size that keeps it above target size.
+     * Decoder target is taken from bitmap pool if available.
+     * On out of memory error clear pool and retry once with doubled sample size.
+     * @param options Options with source dimensions set
+     * @param dstWidth Target maximum width/height
+     * @param decoder Decoder
+     * @return Decoded bitmap
+     * @throws IOException IO exception on error
+     */
+    @NonNull
+    private static Bitmap decodeSampled(@NonNull BitmapFactory.Options options, int dstWidth,
+                                        @NonNull Decoder decoder) throws IOException {
+        int srcWidth = Math.max(options.outWidth, options.outHeight);
+        int sampleSize = 1;
+        while (dstWidth > 0 && srcWidth / (sampleSize * 2) >= dstWidth) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        BitmapPool pool = BitmapPool.getInstance();
+        Bitmap bitmap;
+        try {
+            bitmap = decodePooled(options, decoder);
+        } catch (OutOfMemoryError e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[decodeSampled OutOfMemoryError, sample: " + sampleSize + "]"); }
+            pool.clear();
+            options.inSampleSize = sampleSize * 2;
+            options.inBitmap = null;
+            try {
+                bitmap = decoder.decode(options);
+            } catch (OutOfMemoryError retryError) {
+                throw new IOException("Out of memory");
+            }
+        }
+        if (bitmap == null) {
+            throw new IOException("Failed to decode image");
+        }
         return bitmap;
     }
 
     /**
-     * Save bitmap to app cache folder as jpeg
+     * Decode into pooled bitmap, fall back to new allocation if pooled bitmap is not compatible
+     * @param options Options with sample size set
+     * @param decoder Decoder
+     * @return Decoded bitmap or null
+     * @throws IOException IO exception on error
+     */
+    @Nullable
+    private static Bitmap decodePooled(@NonNull BitmapFactory.Options options, @NonNull Decoder decoder) throws IOException {
+        BitmapPool pool = BitmapPool.getInstance();
+        pool.setInBitmap(options, options.outWidth, options.outHeight);
+        if (options.inBitmap == null) {
+            return decoder.decode(options);
+        }
+        try {
+            return decoder.decode(options);
+        } catch (IllegalArgumentException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[decodePooled: pooled bitmap rejected: " + e + "]"); }
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            return decoder.decode(options);
+        }
+    }
+
+    /**
+     * Scale bitmap down to target size and rotate it in single transformation
+     * @param bitmap Source bitmap, returned to pool if new bitmap is created
+     * @param dstWidth Maximum width/height
+     * @param orientation Rotation in degrees
+     * @return Resulting bitmap
+     */
+    @NonNull
+    private static Bitmap scaleAndRotate(@NonNull Bitmap bitmap, int dstWidth, int orientation) {
+        int srcWidth = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        Matrix matrix = new Matrix();
+        if (dstWidth > 0 && srcWidth > dstWidth) {
+            float scale = (float) dstWidth / srcWidth;
+            matrix.postScale(scale, scale);
+        }
+        if (orientation != ORIENTATION_NORMAL) {
+            matrix.postRotate(orientation);
+        }
+        if (matrix.isIdentity()) {
+            return bitmap;
+        }
+        Bitmap result = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (result != bitmap) {
+            BitmapPool.getInstance().put(bitmap);
+        }
+        return result;
+    }
+
+    /**
+     * Copy image dimensions from EXIF to options
+     * @param exif EXIF data
+     * @param options Options
+     * @return True if dimensions are known and within format limits
+     */
+    private static boolean getSize(@NonNull ExifInterface exif, @NonNull BitmapFactory.Options options) {
+        int width = exif.getAttributeInt(ExifInterface.TAG_IMAGE_WIDTH, 0);
+        int height = exif.getAttributeInt(ExifInterface.TAG_IMAGE_LENGTH, 0);
+        if (width > 0 && height > 0 && width <= MAX_IMAGE_DIMENSION && height <= MAX_IMAGE_DIMENSION) {
+            options.outWidth = width;
+            options.outHeight = height;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Seek file descriptor to start
+     * @param fd File descriptor
+     * @return False if descriptor is not seekable
+     */
+    private static boolean seekToStart(@NonNull FileDescriptor fd) {
+        try {
+            Os.lseek(fd, 0, OsConstants.SEEK_SET);
+            return true;
+        } catch (ErrnoException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Bitmap decoder
+     */
+    private interface Decoder {
+        @Nullable
+        Bitmap decode(@NonNull BitmapFactory.Options options) throws IOException;
+    }
+
+    /**
+     * Save bitmap to app cache folder.
+     * Image is encoded in configured format within current network budget.
      * @param context Context
      * @param bitmap Bitmap
      * @return URI of saved image
@@ -354,14 +626,79 @@ public class ImageHelper {
      */
     @NonNull
     public static Uri saveToCache(@NonNull Context context, @NonNull Bitmap bitmap) throws IOException {
-        String filename = getUniqueName() + EXT_JPG;
-        File outFile = new File(context.getCacheDir(), filename);
+        ImageEncoder.Format format = ImageEncoder.getFormat(context);
+        byte[] image = ImageEncoder.encode(bitmap, format, ImageEncoder.getBudget(context));
+        File outFile = new File(context.getCacheDir(), getUniqueName() + format.extension);
+        try (FileOutputStream os = new FileOutputStream(outFile)) {
+            os.write(image);
+        }
+        return Uri.fromFile(outFile);
+    }
+
+    /**
+     * Encode image for upload in configured format within current network budget.
+     * Image is resampled to configured size and written to temporary file,
+     * which must be removed with {@link #deleteUploadImage(Uri)} after use.
+     * @param context Context
+     * @param uri Source image URI
+     * @return URI of temporary file
+     * @throws IOException IO exception on failure
+     */
+    @NonNull
+    public static Uri encodeForUpload(@NonNull Context context, @NonNull Uri uri) throws IOException {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        int dstWidth = Integer.parseInt(prefs.getString(SettingsActivity.KEY_IMAGE_SIZE, context.getString(R.string.pref_imagesize_default)));
+        Bitmap bitmap;
+        try {
+            bitmap = getResampledBitmap(context, uri, dstWidth);
+        } catch (OutOfMemoryError e) {
+            throw new IOException("Out of memory");
+        }
+        ImageEncoder.Format format = ImageEncoder.getFormat(context);
+        byte[] image = ImageEncoder.encode(bitmap, format, ImageEncoder.getBudget(context));
+        BitmapPool.getInstance().put(bitmap);
+        File dir = new File(context.getCacheDir(), UPLOAD_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create upload folder");
+        }
+        File outFile = File.createTempFile("ulogger_", format.extension, dir);
         try (FileOutputStream os = new FileOutputStream(outFile)) {
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, os);
+            os.write(image);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            outFile.delete();
+            throw e;
         }
         return Uri.fromFile(outFile);
     }
 
+    /**
+     * Check whether image is app copy, already encoded by {@link #saveToCache(Context, Bitmap)}.
+     * Other images are original files, that must be encoded before upload.
+     * @param context Context
+     * @param uri Image URI
+     * @return True for app copy
+     */
+    public static boolean isAppImage(@NonNull Context context, @NonNull Uri uri) {
+        String path = uri.getPath();
+        return Objects.equals(uri.getScheme(), "file") && path != null
+                && (path.startsWith(context.getFilesDir().getPath()) || path.startsWith(context.getCacheDir().getPath()));
+    }
+
+    /**
+     * Delete temporary upload image
+     * @param uri Image URI returned by {@link #encodeForUpload(Context, Uri)}
+     */
+    public static void deleteUploadImage(@NonNull Uri uri) {
+        String path = uri.getPath();
+        if (path != null) {
+            File file = new File(path);
+            if (file.delete()) {
+                if (Logger.DEBUG) { Log.d(TAG, "[deleteUploadImage deleted file " + file.getName() + "]"); }
+            }
+        }
+    }
+
     /**
      * Move cached image file to internal app folder
      * Ignore files that are not in cache folder
@@ -398,29 +735,40 @@ public class ImageHelper {
     }
 
     /**
-     * Clear images in app folder
+     * Clear images in app folder and their thumbnails
      * @param context Context
      */
     public static void clearTrackImages(@NonNull Context context) {
         File dir = context.getFilesDir();
         clearImages(dir);
+        ThumbnailCache.getInstance(context).clear();
     }
 
     /**
-     * Clear image jpeg files in given folder
+     * Clear image jpeg and webp files in given folder
      * @param dir Folder
      */
     private static void clearImages(@NonNull File dir) {
         File[] files = dir.listFiles();
         if (files != null) {
             for (File file : files) {
-                if (file.isFile() && file.getPath().endsWith(EXT_JPG) && file.delete()) {
+                if (file.isFile() && isImageFile(file) && file.delete()) {
                     if (Logger.DEBUG) { Log.d(TAG, "[clearImages deleted file " + file.getName() + "]"); }
                 }
             }
         }
     }
 
+    /**
+     * Check whether file has image extension
+     * @param file File
+     * @return True for jpeg or webp file
+     */
+    private static boolean isImageFile(@NonNull File file) {
+        String path = file.getPath();
+        return path.endsWith(EXT_JPG) || path.endsWith(EXT_WEBP);
+    }
+
     /**
      * Delete file only if it is located in app internal folder
      * @param context Context
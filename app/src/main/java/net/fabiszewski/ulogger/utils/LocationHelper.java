@@ -14,8 +14,10 @@ import android.content.SharedPreferences;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
+import android.location.LocationRequest;
 import android.os.Build;
 import android.os.CancellationSignal;
+import android.os.Handler;
 import android.os.Looper;
 import android.os.OperationCanceledException;
 import android.os.SystemClock;
@@ -23,6 +25,8 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.core.os.ExecutorCompat;
 import androidx.preference.PreferenceManager;
 
 import net.fabiszewski.ulogger.Logger;
@@ -46,8 +50,16 @@ public class LocationHelper {
     private static final long SECOND_ROLLOVER_TIMESTAMP = 1554595182000L;
     // 1024 weeks in milliseconds
     private static final long ROLLOVER_MILLIS = 1024 * 7 * 24 * 60 * 60 * 1000L;
+    // minimum time between updates while device is stationary
+    private static final long KEEPALIVE_MILLIS = 5 * 60 * 1000L;
+    // number of fixes collected by hardware before delivering batch
+    private static final int BATCH_SIZE = 10;
+    // maximum delay of batched fixes delivery
+    private static final long MAX_BATCH_DELAY_MILLIS = 10 * 60 * 1000L;
 
     private boolean liveSync = false;
+    private boolean stationaryDetection = false;
+    private boolean batching = false;
     private int maxAccuracy;
     private float minDistance;
     private long minTimeMillis;
@@ -99,6 +111,8 @@ public class LocationHelper {
             userProviders.add(LocationManager.NETWORK_PROVIDER);
         }
         liveSync = prefs.getBoolean(SettingsActivity.KEY_LIVE_SYNC, false);
+        stationaryDetection = prefs.getBoolean(SettingsActivity.KEY_STATIONARY_DETECTION, false);
+        batching = prefs.getBoolean(SettingsActivity.KEY_BATCHING, false);
     }
 
     /**
@@ -128,7 +142,7 @@ public class LocationHelper {
      * @throws LoggerException Exception on permission denied or all providers disabled
      */
     public void requestSingleUpdate(@NonNull LocationListener listener, CancellationSignal cancellationSignal) throws LoggerException {
-        requestAllProvidersUpdates(listener, Looper.getMainLooper(), true, cancellationSignal);
+        requestAllProvidersUpdates(listener, Looper.getMainLooper(), minTimeMillis, true, cancellationSignal);
     }
 
     /**
@@ -138,23 +152,36 @@ public class LocationHelper {
      * @throws LoggerException Exception on all requested providers failure
      */
     public void requestLocationUpdates(@NonNull LocationListener listener, @Nullable Looper looper) throws LoggerException {
-        requestAllProvidersUpdates(listener, looper, false, null);
+        requestLocationUpdates(listener, looper, false);
     }
 
     /**
      * Request location updates for user selected providers
      * @param listener Listener
      * @param looper Looper
+     * @param keepAlive Request low rate updates for stationary device if true
+     * @throws LoggerException Exception on all requested providers failure
+     */
+    public void requestLocationUpdates(@NonNull LocationListener listener, @Nullable Looper looper, boolean keepAlive) throws LoggerException {
+        long minTime = keepAlive ? Math.max(minTimeMillis, KEEPALIVE_MILLIS) : minTimeMillis;
+        requestAllProvidersUpdates(listener, looper, minTime, false, null);
+    }
+
+    /**
+     * Request location updates for user selected providers
+     * @param listener Listener
+     * @param looper Looper
+     * @param minTime Minimum time between updates in milliseconds
      * @param singleShot Request single update if true
      * @param cancellationSignal Cancellation signal
      * @throws LoggerException Exception on all requested providers failure
      */
-    private void requestAllProvidersUpdates(@NonNull LocationListener listener, @Nullable Looper looper, 
+    private void requestAllProvidersUpdates(@NonNull LocationListener listener, @Nullable Looper looper, long minTime,
                                             boolean singleShot, CancellationSignal cancellationSignal) throws LoggerException {
         List<Integer> results = new ArrayList<>();
         for (String provider : userProviders) {
             try {
-                requestProviderUpdates(provider, listener, looper, singleShot, cancellationSignal);
+                requestProviderUpdates(provider, listener, looper, minTime, singleShot, cancellationSignal);
                 results.add(LoggerException.E_OK);
             } catch (LoggerException e) {
                 results.add(e.getCode());
@@ -171,18 +198,23 @@ public class LocationHelper {
      * @param provider Provider
      * @param listener Listener
      * @param looper Looper
+     * @param minTime Minimum time between updates in milliseconds
      * @param singleShot Request single update if true
      * @param cancellationSignal Cancellation signal
      * @throws LoggerException Exception on permission denied or provider disabled
      */
     @SuppressWarnings({"deprecation", "RedundantSuppression"})
-    private void requestProviderUpdates(@NonNull String provider, @NonNull LocationListener listener, @Nullable Looper looper,
+    private void requestProviderUpdates(@NonNull String provider, @NonNull LocationListener listener, @Nullable Looper looper, long minTime,
                                         boolean singleShot, @Nullable CancellationSignal cancellationSignal) throws LoggerException {
         if (Logger.DEBUG) { Log.d(TAG, "[requestProviderUpdates: " + provider + " (" + singleShot + ")]"); }
         try {
             if (!singleShot) {
                 // request even if provider is disabled to allow users re-enable it later
-                locationManager.requestLocationUpdates(provider, minTimeMillis, minDistance, listener, looper);
+                if (batching && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                    requestBatchedUpdates(provider, listener, looper, minTime);
+                } else {
+                    locationManager.requestLocationUpdates(provider, minTime, minDistance, listener, looper);
+                }
             } else if (locationManager.isProviderEnabled(provider)) {
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
                     locationManager.getCurrentLocation(provider, cancellationSignal, context.getMainExecutor(), location -> {
@@ -207,6 +239,27 @@ public class LocationHelper {
         }
     }
 
+    /**
+     * Request location updates delivered in batches.
+     * Fixes are collected by hardware and delivered to listener's onLocationChanged(List) callback,
+     * so that application processor is not woken up for every fix.
+     * @param provider Provider
+     * @param listener Listener
+     * @param looper Looper
+     * @param minTime Minimum time between updates in milliseconds
+     */
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    private void requestBatchedUpdates(@NonNull String provider, @NonNull LocationListener listener, @Nullable Looper looper, long minTime) {
+        long maxDelay = Math.min(minTime * BATCH_SIZE, MAX_BATCH_DELAY_MILLIS);
+        if (Logger.DEBUG) { Log.d(TAG, "[requestBatchedUpdates: " + provider + ", max delay: " + maxDelay + "]"); }
+        LocationRequest request = new LocationRequest.Builder(minTime)
+                .setMinUpdateDistanceMeters(minDistance)
+                .setMaxUpdateDelayMillis(maxDelay)
+                .build();
+        Handler handler = new Handler(looper != null ? looper : Looper.getMainLooper());
+        locationManager.requestLocationUpdates(provider, request, ExecutorCompat.create(handler), listener);
+    }
+
     /**
      * Remove all location updates for listener
      * @param listener Listener
@@ -300,6 +353,14 @@ public class LocationHelper {
         return liveSync;
     }
 
+    /**
+     * Is stationary state detection on
+     * @return True if on
+     */
+    public boolean isStationaryDetection() {
+        return stationaryDetection;
+    }
+
 
     /**
      * Fix GPS week count rollover bug if needed
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.location.Location;
+import android.location.LocationListener;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Replays recorded fixes to location listener at real or accelerated speed.
+ * Fixes are posted to listener's handler, so they go through the same path as live updates.
+ * Elapsed realtime of each fix is derived from recorded fix times, so that time based logic
+ * sees original intervals regardless of replay speed.
+ * Number of fixes waiting for listener is bounded, replay blocks when listener falls behind.
+ */
+public class LocationReplay implements Runnable {
+
+    private static final String TAG = LocationReplay.class.getSimpleName();
+
+    /** Maximum number of fixes posted to handler and not yet processed */
+    private static final int MAX_PENDING = 64;
+
+    private final Source source;
+    private final LocationListener listener;
+    private final Handler handler;
+    private final float speed;
+    private final ReplayCallback callback;
+    private final Semaphore pending = new Semaphore(MAX_PENDING);
+    private Thread thread;
+    private volatile boolean isCancelled = false;
+
+    /**
+     * @param source Fix source
+     * @param listener Listener receiving fixes
+     * @param handler Handler of listener thread
+     * @param speed Replay speed multiplier, zero or less to replay as fast as possible
+     * @param callback Callback posted to handler when replay finishes
+     */
+    public LocationReplay(@NonNull Source source, @NonNull LocationListener listener, @NonNull Handler handler,
+                          float speed, @NonNull ReplayCallback callback) {
+        this.source = source;
+        this.listener = listener;
+        this.handler = handler;
+        this.speed = speed;
+        this.callback = callback;
+    }
+
+    /**
+     * Start replay on new thread
+     */
+    public synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this, "LocationReplayThread");
+            thread.start();
+        }
+    }
+
+    /**
+     * Cancel replay
+     */
+    public synchronized void cancel() {
+        isCancelled = true;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @WorkerThread
+    @Override
+    public void run() {
+        if (Logger.DEBUG) { Log.d(TAG, "[replay start, speed: " + speed + "]"); }
+        final long startRealtime = SystemClock.elapsedRealtime();
+        final long startNanos = SystemClock.elapsedRealtimeNanos();
+        int count = 0;
+        long firstTime = 0;
+        long previousTime = 0;
+        try {
+            Location location;
+            while (!isCancelled && (location = source.next()) != null) {
+                if (speed > 0 && previousTime > 0) {
+                    long delay = (long) ((location.getTime() - previousTime) / speed);
+                    if (delay > 0) {
+                        Thread.sleep(delay);
+                    }
+                }
+                if (count == 0) {
+                    firstTime = location.getTime();
+                }
+                previousTime = location.getTime();
+                location.setElapsedRealtimeNanos(startNanos + (location.getTime() - firstTime) * 1000000);
+                pending.acquire();
+                final Location fix = location;
+                handler.post(() -> {
+                    try {
+                        listener.onLocationChanged(fix);
+                    } finally {
+                        pending.release();
+                    }
+                });
+                count++;
+            }
+        } catch (IOException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[replay source error: " + e + "]"); }
+        } catch (InterruptedException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[replay interrupted]"); }
+        } finally {
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (Logger.DEBUG) { Log.d(TAG, "[replay source close error: " + e + "]"); }
+            }
+        }
+        final int total = count;
+        // posted after all fixes, so it runs when listener has processed them
+        handler.post(() -> {
+            long elapsed = SystemClock.elapsedRealtime() - startRealtime;
+            float rate = elapsed > 0 ? total * 1000f / elapsed : total;
+            if (Logger.DEBUG) { Log.d(TAG, "[replay finished: " + total + " fixes in " + elapsed + " ms, " + rate + " fixes/s]"); }
+            callback.onReplayFinished(total, elapsed);
+        });
+    }
+
+    /**
+     * Source of recorded fixes
+     */
+    public interface Source extends Closeable {
+        /**
+         * Read next fix
+         * @return Location or null at the end of source
+         * @throws IOException Exception
+         */
+        @Nullable
+        Location next() throws IOException;
+    }
+
+    public interface ReplayCallback {
+        void onReplayFinished(int count, long elapsedMillis);
+    }
+}
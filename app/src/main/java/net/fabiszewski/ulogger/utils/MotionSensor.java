@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Source of motion events used to wake up logger from stationary state
+ */
+public interface MotionSensor {
+
+    /**
+     * Check whether sensor is available on device
+     * @return True if available
+     */
+    boolean isAvailable();
+
+    /**
+     * Arm sensor, listener is notified once on next detected motion
+     * @param listener Listener
+     * @return True on success
+     */
+    boolean start(@NonNull MotionListener listener);
+
+    /**
+     * Disarm sensor
+     */
+    void stop();
+
+    interface MotionListener {
+        void onMotionDetected();
+    }
+}
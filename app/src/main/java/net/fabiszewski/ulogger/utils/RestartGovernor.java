@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.util.ArrayDeque;
+
+/**
+ * Limits location updates restarts triggered by inaccurate fixes.
+ * Consecutive restarts are separated by exponentially growing backoff,
+ * and total number of restarts in sliding time window is capped.
+ * Logger service and single fix task share one process-wide instance,
+ * so that together they never exceed the budget.
+ */
+public class RestartGovernor {
+
+    private static final String TAG = RestartGovernor.class.getSimpleName();
+
+    private static RestartGovernor instance;
+
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long windowMillis;
+    private final int budget;
+
+    private final ArrayDeque<Long> restarts = new ArrayDeque<>();
+    private long backoffMillis;
+    private long nextAllowedRealtime = 0;
+
+    private int allowedCount = 0;
+    private int suppressedCount = 0;
+
+    /**
+     * @param initialBackoffMillis Backoff after first restart
+     * @param maxBackoffMillis Maximum backoff
+     * @param windowMillis Budget window length
+     * @param budget Maximum number of restarts within window
+     */
+    private RestartGovernor(long initialBackoffMillis, long maxBackoffMillis, long windowMillis, int budget) {
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.windowMillis = windowMillis;
+        this.budget = budget;
+        backoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * Get process-wide governor.
+     * Initial backoff is short enough to allow several restarts within single fix timeout.
+     * @return Governor instance
+     */
+    @NonNull
+    public static synchronized RestartGovernor getInstance() {
+        if (instance == null) {
+            instance = new RestartGovernor(2 * 1000, 5 * 60 * 1000, 15 * 60 * 1000, 10);
+        }
+        return instance;
+    }
+
+    /**
+     * Check whether restart is allowed now and record it if so
+     * @return True if restart may be performed
+     */
+    public synchronized boolean tryRestart() {
+        long now = SystemClock.elapsedRealtime();
+        while (!restarts.isEmpty() && now - restarts.getFirst() >= windowMillis) {
+            restarts.removeFirst();
+        }
+        if (now < nextAllowedRealtime || restarts.size() >= budget) {
+            suppressedCount++;
+            if (Logger.DEBUG) { Log.d(TAG, "[restart suppressed, allowed: " + allowedCount + ", suppressed: " + suppressedCount + "]"); }
+            return false;
+        }
+        restarts.addLast(now);
+        nextAllowedRealtime = now + backoffMillis;
+        backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+        allowedCount++;
+        if (Logger.DEBUG) { Log.d(TAG, "[restart allowed, allowed: " + allowedCount + ", suppressed: " + suppressedCount + "]"); }
+        return true;
+    }
+
+    /**
+     * Reset backoff after accurate fix was received
+     */
+    public synchronized void onAccurateFix() {
+        backoffMillis = initialBackoffMillis;
+        nextAllowedRealtime = 0;
+    }
+
+    /**
+     * Get number of performed restarts
+     * @return Count
+     */
+    public synchronized int getAllowedCount() {
+        return allowedCount;
+    }
+
+    /**
+     * Get number of suppressed restarts
+     * @return Count
+     */
+    public synchronized int getSuppressedCount() {
+        return suppressedCount;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.fabiszewski.ulogger.Logger;
+
+/**
+ * Motion sensor backed by hardware significant motion trigger sensor
+ */
+public class SignificantMotionSensor implements MotionSensor {
+
+    private static final String TAG = SignificantMotionSensor.class.getSimpleName();
+
+    private final SensorManager sensorManager;
+    private final Sensor sensor;
+    private TriggerEventListener triggerListener = null;
+
+    public SignificantMotionSensor(@NonNull Context context) {
+        sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        sensor = getSensor(sensorManager);
+    }
+
+    @Nullable
+    private static Sensor getSensor(@Nullable SensorManager sensorManager) {
+        if (sensorManager == null) {
+            return null;
+        }
+        return sensorManager.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return sensor != null;
+    }
+
+    @Override
+    public boolean start(@NonNull MotionListener listener) {
+        if (!isAvailable()) {
+            return false;
+        }
+        stop();
+        triggerListener = new TriggerEventListener() {
+            @Override
+            public void onTrigger(TriggerEvent event) {
+                if (Logger.DEBUG) { Log.d(TAG, "[significant motion triggered]"); }
+                triggerListener = null;
+                listener.onMotionDetected();
+            }
+        };
+        boolean ret = sensorManager.requestTriggerSensor(triggerListener, sensor);
+        if (Logger.DEBUG) { Log.d(TAG, "[significant motion armed: " + ret + "]"); }
+        if (!ret) {
+            triggerListener = null;
+        }
+        return ret;
+    }
+
+    @Override
+    public void stop() {
+        if (triggerListener != null) {
+            sensorManager.cancelTriggerSensor(triggerListener, sensor);
+            triggerListener = null;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.location.Location;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Detects stationary state based on dispersion of recent fixes.
+ * Device is considered stationary when all fixes received during observation window
+ * stay within dispersion radius of their centroid.
+ * It starts moving again when fix leaves that area or external motion trigger fires.
+ * Time spent in each state may be read from other threads.
+ */
+public class StationaryDetector {
+
+    private static final String TAG = StationaryDetector.class.getSimpleName();
+
+    /** Minimum time fixes must stay within radius */
+    private static final long WINDOW_MILLIS = 3 * 60 * 1000;
+    /** Minimum number of fixes in window */
+    private static final int MIN_FIXES = 3;
+    /** Base dispersion radius in meters */
+    private static final float RADIUS_METERS = 30;
+    /** Maximum allowance added to radius for fix accuracy in meters */
+    private static final float MAX_ACCURACY_ALLOWANCE = 50;
+
+    public static final int STATE_MOVING = 0;
+    public static final int STATE_STATIONARY = 1;
+
+    private final ArrayDeque<Fix> window = new ArrayDeque<>();
+    private volatile int state = STATE_MOVING;
+    private double anchorLatitude;
+    private double anchorLongitude;
+
+    private long stateStartRealtime;
+    private long movingMillis = 0;
+    private long stationaryMillis = 0;
+    private boolean isStopped = false;
+    private final float[] distance = new float[1];
+
+    public StationaryDetector() {
+        stateStartRealtime = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Process new fix
+     * @param location Location
+     * @return True if state changed
+     */
+    public boolean onLocation(@NonNull Location location) {
+        long realtime = location.getElapsedRealtimeNanos() / 1000000;
+        float allowance = location.hasAccuracy() ? Math.min(location.getAccuracy(), MAX_ACCURACY_ALLOWANCE) : MAX_ACCURACY_ALLOWANCE;
+        float radius = RADIUS_METERS + allowance;
+        if (state == STATE_STATIONARY) {
+            if (distanceTo(location.getLatitude(), location.getLongitude(), anchorLatitude, anchorLongitude) > radius) {
+                if (Logger.DEBUG) { Log.d(TAG, "[fix outside stationary area]"); }
+                setState(STATE_MOVING);
+                window.clear();
+                window.add(new Fix(location.getLatitude(), location.getLongitude(), realtime, radius));
+                return true;
+            }
+            return false;
+        }
+        window.add(new Fix(location.getLatitude(), location.getLongitude(), realtime, radius));
+        trimWindow(realtime);
+        if (isDispersionLow()) {
+            anchorLatitude = centroidLatitude();
+            anchorLongitude = centroidLongitude();
+            setState(STATE_STATIONARY);
+            window.clear();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Notify about motion detected by external sensor
+     * @return True if state changed
+     */
+    public boolean onMotion() {
+        if (state == STATE_STATIONARY) {
+            setState(STATE_MOVING);
+            window.clear();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drop oldest fixes as long as remaining ones still cover observation window
+     * @param realtime Current fix realtime
+     */
+    private void trimWindow(long realtime) {
+        while (window.size() > MIN_FIXES) {
+            Iterator<Fix> iterator = window.iterator();
+            iterator.next();
+            if (realtime - iterator.next().realtime < WINDOW_MILLIS) {
+                break;
+            }
+            window.removeFirst();
+        }
+    }
+
+    /**
+     * Check if all fixes in window cover required time and fit within radius
+     * @return True if dispersion is below threshold
+     */
+    private boolean isDispersionLow() {
+        if (window.size() < MIN_FIXES || window.getLast().realtime - window.getFirst().realtime < WINDOW_MILLIS) {
+            return false;
+        }
+        double latitude = centroidLatitude();
+        double longitude = centroidLongitude();
+        for (Fix fix : window) {
+            if (distanceTo(fix.latitude, fix.longitude, latitude, longitude) > fix.radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double centroidLatitude() {
+        double sum = 0;
+        for (Fix fix : window) {
+            sum += fix.latitude;
+        }
+        return sum / window.size();
+    }
+
+    private double centroidLongitude() {
+        double sum = 0;
+        for (Fix fix : window) {
+            sum += fix.longitude;
+        }
+        return sum / window.size();
+    }
+
+    private float distanceTo(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+        Location.distanceBetween(startLatitude, startLongitude, endLatitude, endLongitude, distance);
+        return distance[0];
+    }
+
+    private synchronized void setState(int newState) {
+        long now = SystemClock.elapsedRealtime();
+        accumulate(now);
+        stateStartRealtime = now;
+        state = newState;
+        if (Logger.DEBUG) { Log.d(TAG, "[state: " + (isStationary() ? "stationary" : "moving") +
+                ", moving: " + movingMillis / 1000 + " s, stationary: " + stationaryMillis / 1000 + " s]"); }
+    }
+
+    private void accumulate(long now) {
+        if (isStopped) {
+            return;
+        }
+        if (state == STATE_STATIONARY) {
+            stationaryMillis += now - stateStartRealtime;
+        } else {
+            movingMillis += now - stateStartRealtime;
+        }
+        stateStartRealtime = now;
+    }
+
+    /**
+     * Is device stationary
+     * @return True if stationary
+     */
+    public boolean isStationary() {
+        return state == STATE_STATIONARY;
+    }
+
+    /**
+     * Stop counting time, to be called when logging stops
+     */
+    public synchronized void stop() {
+        accumulate(SystemClock.elapsedRealtime());
+        isStopped = true;
+    }
+
+    /**
+     * Get total time spent in each state
+     * @return Statistics
+     */
+    @NonNull
+    public synchronized Stats getStats() {
+        accumulate(SystemClock.elapsedRealtime());
+        return new Stats(movingMillis, stationaryMillis);
+    }
+
+    /**
+     * Time spent in each state
+     *
+     * @param movingMillis Time in moving state
+     * @param stationaryMillis Time in stationary state
+     */
+    public record Stats(long movingMillis, long stationaryMillis) {}
+
+    private static class Fix {
+        final double latitude;
+        final double longitude;
+        final long realtime;
+        final float radius;
+
+        Fix(double latitude, double longitude, long realtime, float radius) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.realtime = realtime;
+            this.radius = radius;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process bus for logger and synchronization status events.
+ * Listeners are called on main thread. Bursty events are coalesced,
+ * so that at most one of them is delivered per coalescing window.
+ */
+public class StatusBus {
+
+    private static final String TAG = StatusBus.class.getSimpleName();
+
+    private static final long COALESCE_MILLIS = 250;
+
+    public enum Event {
+        LOCATION_STARTED(false),
+        LOCATION_STOPPED(false),
+        LOCATION_UPDATED(true),
+        LOCATION_DISABLED(false),
+        LOCATION_GPS_DISABLED(false),
+        LOCATION_GPS_ENABLED(false),
+        LOCATION_NETWORK_DISABLED(false),
+        LOCATION_NETWORK_ENABLED(false),
+        LOCATION_PERMISSION_DENIED(false),
+        SYNC_DONE(true),
+        SYNC_FAILED(false);
+
+        final boolean isCoalesced;
+
+        Event(boolean isCoalesced) {
+            this.isCoalesced = isCoalesced;
+        }
+    }
+
+    private static final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    /** Coalesced events waiting for delivery */
+    private static final Set<Event> pending = EnumSet.noneOf(Event.class);
+
+    private StatusBus() {}
+
+    /**
+     * Register listener
+     * @param listener Listener
+     */
+    @UiThread
+    public static void register(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister listener
+     * @param listener Listener
+     */
+    @UiThread
+    public static void unregister(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Post event
+     * @param event Event
+     */
+    public static void post(@NonNull Event event) {
+        post(event, null);
+    }
+
+    /**
+     * Post event with optional extras.
+     * Extras of coalesced events are ignored.
+     * @param event Event
+     * @param extras Extras bundle
+     */
+    public static void post(@NonNull Event event, @Nullable Bundle extras) {
+        if (event.isCoalesced) {
+            synchronized (pending) {
+                if (!pending.add(event)) {
+                    return;
+                }
+            }
+            uiHandler.postDelayed(() -> {
+                synchronized (pending) {
+                    if (!pending.remove(event)) {
+                        // already flushed
+                        return;
+                    }
+                }
+                dispatch(event, null);
+            }, COALESCE_MILLIS);
+        } else {
+            uiHandler.post(() -> {
+                // keep order, deliver coalesced events posted earlier first
+                flushPending();
+                dispatch(event, extras);
+            });
+        }
+    }
+
+    /**
+     * Deliver pending coalesced events
+     */
+    @UiThread
+    private static void flushPending() {
+        Set<Event> events;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            events = EnumSet.copyOf(pending);
+            pending.clear();
+        }
+        for (Event event : events) {
+            dispatch(event, null);
+        }
+    }
+
+    /**
+     * Deliver event to listeners
+     * @param event Event
+     * @param extras Extras bundle
+     */
+    @UiThread
+    private static void dispatch(@NonNull Event event, @Nullable Bundle extras) {
+        if (Logger.DEBUG) { Log.d(TAG, "[dispatch " + event + ", listeners: " + listeners.size() + "]"); }
+        for (Listener listener : listeners) {
+            listener.onStatusEvent(event, extras);
+        }
+    }
+
+    public interface Listener {
+        @UiThread
+        void onStatusEvent(@NonNull Event event, @Nullable Bundle extras);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base of text based track writers, copies column values through reusable buffers
+ */
+abstract class TextTrackWriter implements TrackWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    final Writer writer;
+    private final CharArrayBuffer textBuffer = new CharArrayBuffer(64);
+    private final char[] timeChars = new char[GpxWriter.TIME_LENGTH];
+
+    /**
+     * @param stream Output stream
+     */
+    TextTrackWriter(@NonNull OutputStream stream) {
+        writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void startTrack() {}
+
+    @Override
+    public void endTrack() {}
+
+    @Override
+    public void endDocument() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Write column text without escaping, for numeric columns
+     * @param cursor Cursor
+     * @param column Column index
+     * @throws IOException Exception
+     */
+    void writeColumn(@NonNull Cursor cursor, int column) throws IOException {
+        cursor.copyStringToBuffer(column, textBuffer);
+        writer.write(textBuffer.data, 0, textBuffer.sizeCopied);
+    }
+
+    /**
+     * Write ISO 8601 UTC time
+     * @param timestamp UTC timestamp in seconds
+     * @throws IOException Exception
+     */
+    void writeTime(long timestamp) throws IOException {
+        GpxWriter.formatTimeISO8601(timestamp, timeChars);
+        writer.write(timeChars, 0, GpxWriter.TIME_LENGTH);
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import net.fabiszewski.ulogger.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two tier thumbnail cache.
+ * Memory tier is LRU cache limited by bitmap bytes, disk tier keeps compressed thumbnails in cache folder.
+ * Memory entries are keyed by image URI, so memory hits need no content resolver queries.
+ * Disk entries outlive the process, they are keyed by image URI and its modification time,
+ * so modified images are not served stale. Both tiers are cleared together with track images.
+ */
+public class ThumbnailCache {
+
+    private static final String TAG = ThumbnailCache.class.getSimpleName();
+
+    private static final String DISK_DIR = "thumbnails";
+    private static final String DISK_EXTENSION = ".thumb";
+    private static final long DISK_MAX_BYTES = 10 * 1024 * 1024;
+    private static final int DISK_QUALITY = 90;
+    // fraction of heap available for memory tier
+    private static final int MEMORY_DIVIDER = 32;
+
+    private static ThumbnailCache instance;
+
+    private final LruCache<String, Bitmap> memoryCache;
+    private final File diskDir;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private ThumbnailCache(@NonNull Context context) {
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / MEMORY_DIVIDER);
+        memoryCache = new LruCache<>(maxBytes) {
+            @Override
+            protected int sizeOf(@NonNull String key, @NonNull Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+        diskDir = new File(context.getCacheDir(), DISK_DIR);
+    }
+
+    /**
+     * Get cache instance
+     * @param context Context
+     * @return Cache
+     */
+    @NonNull
+    public static synchronized ThumbnailCache getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new ThumbnailCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Get cached thumbnail, disk hits are promoted to memory
+     * @param context Context
+     * @param uri Image URI
+     * @return Thumbnail or null if not cached
+     */
+    @WorkerThread
+    @Nullable
+    public Bitmap get(@NonNull Context context, @NonNull Uri uri) {
+        String memoryKey = uri.toString();
+        Bitmap bitmap = memoryCache.get(memoryKey);
+        if (bitmap != null) {
+            memoryHits.incrementAndGet();
+        } else {
+            bitmap = readFromDisk(getDiskKey(context, uri));
+            if (bitmap != null) {
+                diskHits.incrementAndGet();
+                memoryCache.put(memoryKey, bitmap);
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+        if (Logger.DEBUG) { Log.d(TAG, "[get " + (bitmap != null ? "hit" : "miss") + ", " + getStats() + "]"); }
+        return bitmap;
+    }
+
+    /**
+     * Store thumbnail in both tiers
+     * @param context Context
+     * @param uri Image URI
+     * @param bitmap Thumbnail
+     */
+    @WorkerThread
+    public void put(@NonNull Context context, @NonNull Uri uri, @NonNull Bitmap bitmap) {
+        memoryCache.put(uri.toString(), bitmap);
+        writeToDisk(getDiskKey(context, uri), bitmap);
+    }
+
+    /**
+     * Remove all thumbnails from both tiers
+     */
+    public synchronized void clear() {
+        memoryCache.evictAll();
+        File[] files = diskDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        if (Logger.DEBUG) { Log.d(TAG, "[clear]"); }
+    }
+
+    /**
+     * Get memory tier hit rate
+     * @return Hit rate in range 0-1
+     */
+    public float getMemoryHitRate() {
+        return getRate(memoryHits.get());
+    }
+
+    /**
+     * Get disk tier hit rate
+     * @return Hit rate in range 0-1
+     */
+    public float getDiskHitRate() {
+        return getRate(diskHits.get());
+    }
+
+    /**
+     * Get combined hit rate
+     * @return Hit rate in range 0-1
+     */
+    public float getHitRate() {
+        return getRate(memoryHits.get() + diskHits.get());
+    }
+
+    private float getRate(long hits) {
+        long total = memoryHits.get() + diskHits.get() + misses.get();
+        return total > 0 ? (float) hits / total : 0;
+    }
+
+    /**
+     * Get statistics summary
+     * @return Statistics
+     */
+    @NonNull
+    public String getStats() {
+        return "memory hits: " + memoryHits.get() + ", disk hits: " + diskHits.get() + ", misses: " + misses.get() +
+                ", memory size: " + memoryCache.size() + "/" + memoryCache.maxSize();
+    }
+
+    /**
+     * Build disk cache key from URI and modification time
+     * @param context Context
+     * @param uri Image URI
+     * @return Key
+     */
+    @NonNull
+    private static String getDiskKey(@NonNull Context context, @NonNull Uri uri) {
+        return uri + "|" + getModificationTime(context, uri);
+    }
+
+    /**
+     * Get image modification time, file size is used as fallback
+     * @param context Context
+     * @param uri Image URI
+     * @return Modification time or size, -1 if not known
+     */
+    private static long getModificationTime(@NonNull Context context, @NonNull Uri uri) {
+        if (Objects.equals(uri.getScheme(), "file") && uri.getPath() != null) {
+            File file = new File(uri.getPath());
+            return file.lastModified();
+        }
+        String[] columns = { MediaStore.MediaColumns.DATE_MODIFIED, DocumentsContract.Document.COLUMN_LAST_MODIFIED };
+        for (String column : columns) {
+            try (Cursor cursor = context.getContentResolver().query(uri, new String[] { column }, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                    return cursor.getLong(0);
+                }
+            } catch (IllegalArgumentException | SecurityException | UnsupportedOperationException e) {
+                // column not supported by provider
+                if (Logger.DEBUG) { Log.d(TAG, "[query " + column + " failed: " + e + "]"); }
+            }
+        }
+        return ImageHelper.getFileSize(context, uri);
+    }
+
+    @NonNull
+    private File getDiskFile(@NonNull String key) {
+        return new File(diskDir, hash(key) + DISK_EXTENSION);
+    }
+
+    @Nullable
+    private Bitmap readFromDisk(@NonNull String key) {
+        File file = getDiskFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap != null) {
+            // keep recently used entries on disk trim
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+        }
+        return bitmap;
+    }
+
+    private void writeToDisk(@NonNull String key, @NonNull Bitmap bitmap) {
+        if (!diskDir.isDirectory() && !diskDir.mkdirs()) {
+            return;
+        }
+        File file = getDiskFile(key);
+        File tmpFile = new File(diskDir, file.getName() + ".tmp");
+        try (FileOutputStream os = new FileOutputStream(tmpFile)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, DISK_QUALITY, os);
+        } catch (IOException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[writeToDisk failed: " + e + "]"); }
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmpFile.delete();
+        }
+        trimDisk();
+    }
+
+    /**
+     * Remove least recently used disk entries above size limit
+     */
+    private synchronized void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= DISK_MAX_BYTES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= DISK_MAX_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    @NonNull
+    private static String hash(@NonNull String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(key.hashCode());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.db.DbAccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streaming track encoder fed directly from positions cursor.
+ * Calls must follow document order: start document, waypoints, track points inside track, end document.
+ * Closing writer closes underlying stream.
+ */
+public interface TrackWriter extends Closeable {
+
+    /**
+     * Start document
+     * @param creator Creator application
+     * @param trackName Track name
+     * @param timestamp Track time, UTC timestamp in seconds
+     * @throws IOException Exception
+     */
+    void startDocument(@NonNull String creator, @NonNull String trackName, long timestamp) throws IOException;
+
+    /**
+     * Write waypoint at current cursor position
+     * @param cursor Positions cursor
+     * @param columns Cursor column indices
+     * @throws IOException Exception
+     */
+    void writeWaypoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException;
+
+    /**
+     * Start track
+     * @throws IOException Exception
+     */
+    void startTrack() throws IOException;
+
+    /**
+     * Write track point at current cursor position
+     * @param cursor Positions cursor
+     * @param columns Cursor column indices
+     * @throws IOException Exception
+     */
+    void writeTrackPoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException;
+
+    /**
+     * End track
+     * @throws IOException Exception
+     */
+    void endTrack() throws IOException;
+
+    /**
+     * End document and flush buffered output
+     * @throws IOException Exception
+     */
+    void endDocument() throws IOException;
+}
@@ -75,6 +75,7 @@ public class WebHelper {
             "Content-Type: %s" + CRLF +
             "Content-Transfer-Encoding: binary" + CRLF + CRLF;
     private static CookieManager cookieManager = null;
+    private static volatile ImageUploadStats imageUploadStats = null;
 
     private static String host;
     private static String user;
@@ -350,14 +351,54 @@ public class WebHelper {
 
             byte[] buffer = new byte[BUFFER_SIZE];
             int len;
+            long written = 0;
             while ((len = fileStream.read(buffer)) > 0) {
                 out.write(buffer, 0, len);
+                written += len;
             }
+            recordImageUpload(written);
+            if (Logger.DEBUG) { Log.d(TAG, "[writeMultipartFile: " + fileMime + ", " + written + " bytes uploaded]"); }
         } catch (IOException | OutOfMemoryError fileException) {
             if (Logger.DEBUG) { Log.d(TAG, "[Skipping file, error: " + fileException + "]"); }
         }
     }
 
+    /**
+     * Add uploaded image to statistics
+     * @param bytes Image size
+     */
+    private static synchronized void recordImageUpload(long bytes) {
+        ImageUploadStats stats = imageUploadStats;
+        imageUploadStats = (stats == null)
+                ? new ImageUploadStats(1, bytes, bytes)
+                : new ImageUploadStats(stats.count() + 1, stats.totalBytes() + bytes, bytes);
+    }
+
+    /**
+     * Get statistics of images uploaded since application start
+     * @return Statistics or null if no image was uploaded yet
+     */
+    @Nullable
+    public static ImageUploadStats getImageUploadStats() {
+        return imageUploadStats;
+    }
+
+    /**
+     * Image upload statistics
+     * @param count Number of uploaded images
+     * @param totalBytes Total size of uploaded images
+     * @param lastBytes Size of last uploaded image
+     */
+    public record ImageUploadStats(int count, long totalBytes, long lastBytes) {
+        /**
+         * Get average image size
+         * @return Average size in bytes
+         */
+        public long getAverageBytes() {
+            return totalBytes / count;
+        }
+    }
+
     /**
      * Get text/plain parameters as part of multipart form
      * @param params Parameters
@@ -397,10 +438,26 @@ public class WebHelper {
         params.put(PARAM_ACTION, ACTION_ADDPOS);
         String response;
         Uri uri = null;
+        Uri encodedUri = null;
         if (params.containsKey(PARAM_IMAGE)) {
             uri = Uri.parse(params.remove(PARAM_IMAGE));
+            // originals are never sent as they are, app copies are already encoded
+            if (!ImageHelper.isAppImage(context, uri)) {
+                try {
+                    encodedUri = ImageHelper.encodeForUpload(context, uri);
+                    uri = encodedUri;
+                } catch (IOException e) {
+                    if (Logger.DEBUG) { Log.d(TAG, "[postPosition image encoding failed, sending original: " + e + "]"); }
+                }
+            }
+        }
+        try {
+            response = postForm(params, uri);
+        } finally {
+            if (encodedUri != null) {
+                ImageHelper.deleteUploadImage(encodedUri);
+            }
         }
-        response = postForm(params, uri);
         boolean error = true;
         try {
             JSONObject json = new JSONObject(response);
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import android.webkit.MimeTypeMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.fabiszewski.ulogger.Logger;
+import net.fabiszewski.ulogger.db.DbAccess;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Archive track writer.
+ * Writes GPX entry with waypoint images linked by relative paths, followed by image entries.
+ * Images are already compressed, so their entries are deflated with no compression.
+ * Unlike stored entries, these need no size and CRC up front, so each image is read only once.
+ * Images are copied with channel transfers, only list of linked images is kept in memory.
+ * Images that cannot be opened are not linked.
+ */
+class ZipTrackWriter implements TrackWriter {
+
+    private static final String TAG = ZipTrackWriter.class.getSimpleName();
+
+    private static final String GPX_ENTRY = "track.gpx";
+    private static final String IMAGES_DIR = "images/";
+    private static final String DEFAULT_IMAGE_EXTENSION = "jpg";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Context context;
+    private final ZipOutputStream zip;
+    private final GpxTrackWriter gpxWriter;
+    private final List<Image> images = new ArrayList<>();
+
+    /**
+     * @param context Context
+     * @param stream Output stream
+     */
+    ZipTrackWriter(@NonNull Context context, @NonNull OutputStream stream) {
+        this.context = context;
+        zip = new ZipOutputStream(stream);
+        gpxWriter = new GpxTrackWriter(zip, this::addImage);
+    }
+
+    @Override
+    public void startDocument(@NonNull String creator, @NonNull String trackName, long timestamp) throws IOException {
+        zip.putNextEntry(new ZipEntry(GPX_ENTRY));
+        gpxWriter.startDocument(creator, trackName, timestamp);
+    }
+
+    @Override
+    public void writeWaypoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        gpxWriter.writeWaypoint(cursor, columns);
+    }
+
+    @Override
+    public void startTrack() throws IOException {
+        gpxWriter.startTrack();
+    }
+
+    @Override
+    public void writeTrackPoint(@NonNull Cursor cursor, @NonNull DbAccess.PositionColumns columns) throws IOException {
+        gpxWriter.writeTrackPoint(cursor, columns);
+    }
+
+    @Override
+    public void endTrack() throws IOException {
+        gpxWriter.endTrack();
+    }
+
+    @Override
+    public void endDocument() throws IOException {
+        gpxWriter.endDocument();
+        zip.closeEntry();
+        for (Image image : images) {
+            writeImage(image);
+        }
+        zip.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    /**
+     * Register image to be archived
+     * @param id Position id
+     * @param imageUri Image URI
+     * @return Relative path of image inside archive, null if image is not readable
+     */
+    @Nullable
+    private String addImage(long id, @NonNull String imageUri) {
+        Uri uri = Uri.parse(imageUri);
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) {
+                return null;
+            }
+        } catch (IOException | SecurityException e) {
+            if (Logger.DEBUG) { Log.d(TAG, "[skipping image " + uri + ": " + e + "]"); }
+            return null;
+        }
+        String extension = null;
+        String mime = ImageHelper.getFileMime(context, uri);
+        if (mime != null) {
+            extension = MimeTypeMap.getSingleton().getExtensionFromMimeType(mime);
+        }
+        if (extension == null) {
+            extension = DEFAULT_IMAGE_EXTENSION;
+        }
+        String path = IMAGES_DIR + id + "." + extension;
+        images.add(new Image(uri, path));
+        return path;
+    }
+
+    /**
+     * Copy image to archive entry without compression.
+     * Image is already linked from GPX entry, so failure to read it fails the export.
+     * @param image Image
+     * @throws IOException Exception
+     */
+    private void writeImage(@NonNull Image image) throws IOException {
+        ParcelFileDescriptor descriptor;
+        try {
+            descriptor = context.getContentResolver().openFileDescriptor(image.uri, "r");
+        } catch (SecurityException e) {
+            throw new IOException(e.getMessage());
+        }
+        if (descriptor == null) {
+            throw new FileNotFoundException(image.uri.toString());
+        }
+        try (ParcelFileDescriptor.AutoCloseInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(descriptor)) {
+            ZipEntry entry = new ZipEntry(image.path);
+            entry.setMethod(ZipEntry.DEFLATED);
+            // sizes and CRC go to data descriptor after entry data
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            zip.putNextEntry(entry);
+            FileChannel source = in.getChannel();
+            WritableByteChannel target = Channels.newChannel(zip);
+            long size = descriptor.getStatSize();
+            if (size >= 0) {
+                long position = 0;
+                while (position < size) {
+                    long count = source.transferTo(position, size - position, target);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                }
+            } else {
+                // pipe or socket, size not known
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                while (source.read(buffer) >= 0) {
+                    buffer.flip();
+                    target.write(buffer);
+                    buffer.clear();
+                }
+            }
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Linked image
+     */
+    private static class Image {
+        final Uri uri;
+        final String path;
+
+        Image(@NonNull Uri uri, @NonNull String path) {
+            this.uri = uri;
+            this.path = path;
+        }
+    }
+}
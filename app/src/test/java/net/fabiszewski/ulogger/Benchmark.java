@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Gate for benchmark tests.
+ * Benchmarks are skipped unless ulogger.benchmark system property is set,
+ * e.g. with gradlew test -Pulogger.benchmark
+ */
+public class Benchmark {
+
+    private static final String TAG = Benchmark.class.getSimpleName();
+    private static final String PROPERTY = "ulogger.benchmark";
+
+    private Benchmark() {}
+
+    /**
+     * Skip calling test unless benchmarks are enabled
+     */
+    public static void assumeEnabled() {
+        assumeTrue("benchmarks are disabled, set " + PROPERTY + " to run", Boolean.getBoolean(PROPERTY));
+    }
+
+    /**
+     * Report benchmark result to test log
+     * @param result Result
+     */
+    public static void report(@NonNull String result) {
+        Log.i(TAG, result);
+    }
+}
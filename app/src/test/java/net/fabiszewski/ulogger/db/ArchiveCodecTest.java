@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import static net.fabiszewski.ulogger.db.TestLocations.location;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDatabaseCorruptException;
+
+import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
+
+import net.fabiszewski.ulogger.Benchmark;
+import net.fabiszewski.ulogger.ui.SettingsActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Round trips archive chunks, checks that malformed chunks are reported
+ * and that ids of archived positions are not reused, reports encoding speed and size
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ArchiveCodecTest {
+
+    private static final long START_TIME = 1700000000L;
+    private static final int CHUNK_SIZE = 500;
+    private static final int BENCHMARK_CHUNKS = 200;
+    private static final String[] PROVIDERS = { "gps", "network", null };
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        DbAccess.newTrack(context, "Archive");
+    }
+
+    @Test
+    public void roundTripsQuantizedValues() throws IOException {
+        ArchiveCodec.Encoder encoder = new ArchiveCodec.Encoder();
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            assertTrue(encoder.add(i + 1, START_TIME + i, latitude(i), longitude(i), optional(i), PROVIDERS[i % 3]));
+        }
+        assertEquals(START_TIME, encoder.getStartTime());
+        assertEquals(START_TIME + CHUNK_SIZE - 1, encoder.getEndTime());
+
+        ArchiveCodec.Chunk chunk = ArchiveCodec.decode(encoder.finish());
+        assertEquals(CHUNK_SIZE, chunk.count);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            assertEquals(i + 1, chunk.ids[i]);
+            assertEquals(START_TIME + i, chunk.times[i]);
+            assertEquals(ArchiveCodec.quantize(latitude(i), ArchiveCodec.COORDINATE_SCALE), chunk.latitudes[i]);
+            assertEquals(ArchiveCodec.quantize(longitude(i), ArchiveCodec.COORDINATE_SCALE), chunk.longitudes[i]);
+            double[] optional = optional(i);
+            for (int type = 0; type < optional.length; type++) {
+                assertEquals(!Double.isNaN(optional[type]), chunk.has(i, type));
+                if (chunk.has(i, type)) {
+                    assertEquals(ArchiveCodec.quantize(optional[type], ArchiveCodec.SCALE[type]), chunk.get(i, type));
+                }
+            }
+            assertEquals(PROVIDERS[i % 3], chunk.providers[i]);
+        }
+    }
+
+    @Test
+    public void rejectsProviderBeyondTable() throws IOException {
+        ArchiveCodec.Encoder encoder = new ArchiveCodec.Encoder();
+        double[] optional = optional(0);
+        int i = 0;
+        while (encoder.add(i, START_TIME + i, latitude(i), longitude(i), optional, "provider" + i)) {
+            i++;
+        }
+        // point not added, chunk is still valid
+        assertEquals(i, encoder.getCount());
+        ArchiveCodec.Chunk chunk = ArchiveCodec.decode(encoder.finish());
+        assertEquals(i, chunk.count);
+        assertEquals("provider" + (i - 1), chunk.providers[i - 1]);
+        // known provider still fits
+        assertTrue(new ArchiveCodec.Encoder().add(0, START_TIME, 0, 0, optional, "provider0"));
+    }
+
+    @Test
+    public void rejectsMalformedChunk() {
+        byte[] data = encodeChunk(0);
+        assertDecodeFails(new byte[0]);
+        assertDecodeFails(new byte[] { 99 });
+        assertDecodeFails(Arrays.copyOf(data, data.length / 2));
+        byte[] garbage = data.clone();
+        Arrays.fill(garbage, 1, garbage.length, (byte) 0xFF);
+        assertDecodeFails(garbage);
+    }
+
+    @Test
+    public void reportsCorruptedArchive() {
+        SQLiteDatabase db = DbAccess.getDatabase(context);
+        insertChunk(db, encodeChunk(0));
+        byte[] data = encodeChunk(CHUNK_SIZE);
+        insertChunk(db, Arrays.copyOf(data, data.length / 2));
+
+        int count = 0;
+        try (PointIterator iterator = new ArchiveIterator(db, new String[] { DbContract.Positions._ID }, 0, 0)) {
+            while (iterator.moveToNext()) {
+                count++;
+            }
+            fail("Corrupted chunk skipped");
+        } catch (SQLiteDatabaseCorruptException e) {
+            // points of valid chunk were read first
+            assertEquals(CHUNK_SIZE, count);
+        }
+    }
+
+    @Test
+    public void archivesOnlyWhenEnabled() {
+        writeSyncedPositions();
+        DbMaintenance.run(context);
+        assertEquals(0, archivedCount());
+
+        setArchive(true);
+        DbMaintenance.run(context);
+        assertEquals(CHUNK_SIZE, archivedCount());
+        assertEquals(CHUNK_SIZE, DbAccess.getOpenInstance(context).countPositions());
+        assertEquals(0, DatabaseUtils.queryNumEntries(DbAccess.getDatabase(context), DbContract.Positions.TABLE_NAME));
+    }
+
+    @Test
+    public void doesNotReuseArchivedIds() {
+        long lastId = writeSyncedPositions();
+        setArchive(true);
+        DbMaintenance.run(context);
+        assertEquals(0, DatabaseUtils.queryNumEntries(DbAccess.getDatabase(context), DbContract.Positions.TABLE_NAME));
+
+        DbAccess.writeLocation(context, location(CHUNK_SIZE));
+        assertEquals(lastId + 1, lastPositionId());
+
+        // ids restart with new track
+        DbAccess.newTrack(context, "Archive");
+        DbAccess.writeLocation(context, location(0));
+        assertEquals(1, lastPositionId());
+    }
+
+    @Test
+    public void benchmark() throws IOException {
+        Benchmark.assumeEnabled();
+        byte[][] chunks = new byte[BENCHMARK_CHUNKS][];
+        long start = System.nanoTime();
+        for (int c = 0; c < BENCHMARK_CHUNKS; c++) {
+            chunks[c] = encodeChunk(c * CHUNK_SIZE);
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        long bytes = 0;
+        start = System.nanoTime();
+        for (byte[] chunk : chunks) {
+            assertEquals(CHUNK_SIZE, ArchiveCodec.decode(chunk).count);
+            bytes += chunk.length;
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        long points = (long) BENCHMARK_CHUNKS * CHUNK_SIZE;
+        Benchmark.report("[archive " + points + " points: encode " + points * 1000000000L / Math.max(encodeNanos, 1) +
+                " points/s, decode " + points * 1000000000L / Math.max(decodeNanos, 1) + " points/s, " +
+                String.format(Locale.US, "%.2f", (double) bytes / points) + " bytes/point]");
+    }
+
+    /**
+     * Write one chunk of old synchronized positions
+     * @return Id of last written position
+     */
+    private long writeSyncedPositions() {
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            DbAccess.writeLocation(context, location(i));
+        }
+        SQLiteDatabase db = DbAccess.getDatabase(context);
+        db.execSQL("UPDATE " + DbContract.Positions.TABLE_NAME + " SET " + DbContract.Positions.COLUMN_SYNCED + " = 1");
+        return DatabaseUtils.longForQuery(db, "SELECT MAX(" + DbContract.Positions._ID + ") FROM " +
+                DbContract.Positions.TABLE_NAME, null);
+    }
+
+    /**
+     * Get id of most recent position, archived positions come first
+     * @return Id
+     */
+    private long lastPositionId() {
+        long id = 0;
+        try (PointIterator positions = DbAccess.getOpenInstance(context).getPositionsIterator()) {
+            while (positions.moveToNext()) {
+                id = Long.parseLong(DbAccess.getID(positions.getCursor()));
+            }
+        }
+        return id;
+    }
+
+    private void setArchive(boolean isEnabled) {
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putBoolean(SettingsActivity.KEY_ARCHIVE, isEnabled)
+                .commit();
+    }
+
+    private long archivedCount() {
+        return DatabaseUtils.longForQuery(DbAccess.getDatabase(context), DbAccess.SQL_COUNT_ARCHIVED, null);
+    }
+
+    private static void insertChunk(@NonNull SQLiteDatabase db, @NonNull byte[] data) {
+        ContentValues values = new ContentValues();
+        values.put(DbContract.Archive.COLUMN_START_TIME, START_TIME);
+        values.put(DbContract.Archive.COLUMN_END_TIME, START_TIME);
+        values.put(DbContract.Archive.COLUMN_COUNT, CHUNK_SIZE);
+        values.put(DbContract.Archive.COLUMN_DATA, data);
+        db.insertOrThrow(DbContract.Archive.TABLE_NAME, null, values);
+    }
+
+    @NonNull
+    private static byte[] encodeChunk(int first) {
+        ArchiveCodec.Encoder encoder = new ArchiveCodec.Encoder();
+        for (int i = first; i < first + CHUNK_SIZE; i++) {
+            encoder.add(i + 1, START_TIME + i, latitude(i), longitude(i), optional(i), PROVIDERS[i % 3]);
+        }
+        return encoder.finish();
+    }
+
+    private static void assertDecodeFails(@NonNull byte[] data) {
+        try {
+            ArchiveCodec.decode(data);
+            fail("Malformed chunk decoded");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static double latitude(int i) {
+        return 52.2297 + i * 0.0000137;
+    }
+
+    private static double longitude(int i) {
+        return 21.0122 - i * 0.0000093;
+    }
+
+    /**
+     * Altitude, speed, bearing and accuracy, some missing
+     */
+    @NonNull
+    private static double[] optional(int i) {
+        return new double[] {
+                i % 7 == 0 ? Double.NaN : 100.25 + (i % 50) * 0.3,
+                i % 5 == 0 ? Double.NaN : 1.337 * (i % 10),
+                i % 5 == 0 ? Double.NaN : (i * 3.7) % 360,
+                3 + (i % 20) * 0.45
+        };
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import static net.fabiszewski.ulogger.db.TestLocations.location;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Benchmark;
+import net.fabiszewski.ulogger.TrackSummary;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shares process wide connection between writer and reader threads
+ * and reports operations per second
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DbAccessStressTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int ROUNDS = 25;
+    private static final int BENCHMARK_ROUNDS = 250;
+    private static final int BATCH_SIZE = 10;
+
+    private Context context;
+    /** Id of seed row, rows written by threads get higher ids */
+    private int seedId;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        DbAccess.newTrack(context, "Stress");
+        DbAccess.writeLocation(context, location(-1));
+        try (PointIterator positions = DbAccess.getOpenInstance(context).getPositionsIterator()) {
+            assertTrue(positions.moveToNext());
+            seedId = Integer.parseInt(DbAccess.getID(positions.getCursor()));
+        }
+    }
+
+    @Test
+    public void concurrentWritersAndReaders() throws InterruptedException, ExecutionException {
+        run(ROUNDS);
+    }
+
+    @Test
+    public void benchmark() throws InterruptedException, ExecutionException {
+        Benchmark.assumeEnabled();
+        long start = System.nanoTime();
+        int operations = run(BENCHMARK_ROUNDS);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        Benchmark.report("[stress " + WRITERS + " writers, " + READERS + " readers: " + operations +
+                " operations in " + elapsedMillis + " ms, " + operations * 1000L / Math.max(elapsedMillis, 1) +
+                " operations/s]");
+    }
+
+    /**
+     * Run writers and readers concurrently, check database state
+     * @param rounds Number of rounds of each thread
+     * @return Number of operations
+     */
+    private int run(int rounds) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                final int writer = i;
+                futures.add(executor.submit(whenStarted(startSignal, () -> write(writer, rounds))));
+            }
+            for (int i = 0; i < READERS; i++) {
+                futures.add(executor.submit(whenStarted(startSignal, () -> read(rounds))));
+            }
+            startSignal.countDown();
+            int operations = 0;
+            for (Future<Integer> future : futures) {
+                operations += await(future);
+            }
+
+            DbAccess db = DbAccess.getOpenInstance(context);
+            int written = 1 + WRITERS * rounds * (BATCH_SIZE + 2);
+            assertEquals(written, db.countPositions());
+            // every writer marked one row per round
+            assertEquals(written - WRITERS * rounds, DbAccess.countUnsynced(context));
+            TrackSummary summary = DbAccess.getTrackSummary(context);
+            assertNotNull(summary);
+            assertEquals(written, summary.getPositionsCount());
+            assertEquals("Stress", DbAccess.getTrackName(context));
+            return operations;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Write single positions, batches and waypoints, mark rows as synchronized
+     * @param writer Writer index
+     * @param rounds Number of rounds
+     * @return Number of operations
+     */
+    private int write(int writer, int rounds) {
+        int operations = 0;
+        for (int round = 0; round < rounds; round++) {
+            int base = (writer * rounds + round) * (BATCH_SIZE + 2);
+            DbAccess.writeLocation(context, location(base));
+            List<Location> batch = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(location(base + 1 + i));
+            }
+            DbAccess.writeLocations(context, batch);
+            DbAccess.writeWaypoint(context, location(base + BATCH_SIZE + 1), "Waypoint " + base, null);
+            // marked ids are unique, each round inserts more rows than all writers mark in it
+            DbAccess.getOpenInstance(context).setSynced(context, seedId + 1 + round * WRITERS + writer);
+            DbAccess.getOpenInstance(context).setError("Writer " + writer);
+            operations += 5;
+        }
+        return operations;
+    }
+
+    /**
+     * Run counting queries and page through positions while writers are active
+     * @param rounds Number of rounds
+     * @return Number of operations
+     */
+    private int read(int rounds) {
+        int operations = 0;
+        for (int round = 0; round < rounds; round++) {
+            DbAccess db = DbAccess.getOpenInstance(context);
+            assertTrue(DbAccess.countUnsynced(context) >= 0);
+            assertTrue(db.countPositions() >= 0);
+            DbAccess.getError(context);
+            DbAccess.getLastTimestamp(context);
+            try (PointIterator positions = db.getPositionsIterator()) {
+                long lastTime = 0;
+                for (int i = 0; i < BATCH_SIZE && positions.moveToNext(); i++) {
+                    long time = DbAccess.getTimeAsLong(positions.getCursor());
+                    assertTrue(time >= lastTime);
+                    lastTime = time;
+                }
+            }
+            operations += 5;
+        }
+        return operations;
+    }
+
+    @NonNull
+    private static Callable<Integer> whenStarted(@NonNull CountDownLatch startSignal, @NonNull Callable<Integer> task) {
+        return () -> {
+            startSignal.await();
+            return task.call();
+        };
+    }
+
+    private static int await(@NonNull Future<Integer> future) throws InterruptedException, ExecutionException {
+        try {
+            return future.get(120, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new AssertionError("database access deadlocked");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
+
+import net.fabiszewski.ulogger.ui.SettingsActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class DbMaintenanceTest {
+
+    private static final int AUTO_VACUUM_NONE = 0;
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private Context context;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        DbAccess.newTrack(context, "Maintenance");
+        db = DbAccess.getDatabase(context);
+        // database created before incremental auto vacuum was introduced
+        db.beginTransaction();
+        try {
+            db.execSQL("PRAGMA auto_vacuum = NONE");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.execSQL("VACUUM");
+        assertEquals(AUTO_VACUUM_NONE, getAutoVacuum(db));
+    }
+
+    @Test
+    public void keepsDatabaseWhenRetentionDisabled() {
+        setRetention("0", "0");
+        DbMaintenance.run(context);
+        assertEquals(AUTO_VACUUM_NONE, getAutoVacuum(db));
+    }
+
+    @Test
+    public void convertsDatabaseWhenRetentionEnabled() {
+        setRetention("30", "0");
+        DbMaintenance.run(context);
+        assertEquals(AUTO_VACUUM_INCREMENTAL, getAutoVacuum(db));
+    }
+
+    private void setRetention(@NonNull String days, @NonNull String rows) {
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putString(SettingsActivity.KEY_RETENTION_DAYS, days)
+                .putString(SettingsActivity.KEY_RETENTION_ROWS, rows)
+                .commit();
+    }
+
+    /**
+     * Read auto vacuum mode on write connection, reader connections may report stale value
+     */
+    private static long getAutoVacuum(@NonNull SQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            return DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null);
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Benchmark;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that synchronization and waypoint queries are served by partial time indices
+ * and compares insert and query speed with previous low cardinality indices
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PartialIndexTest {
+
+    private static final long START_TIME = 1700000000L;
+    private static final int ROWS = 50000;
+    /** Every n-th row is a waypoint */
+    private static final int WAYPOINT_EVERY = 100;
+    /** Rows at the end of track that are not synchronized yet */
+    private static final int UNSYNCED_ROWS = 500;
+    private static final int QUERY_ROUNDS = 200;
+    private static final int BENCHMARK_ROUNDS = 2;
+    private static final String PAGE_SIZE = String.valueOf(PositionIterator.DEFAULT_PAGE_SIZE);
+
+    /** Low cardinality indices replaced by partial indices */
+    private static final String[] LEGACY_INDICES = {
+            "CREATE INDEX " + DbContract.Positions.INDEX_SYNCED + " ON " + DbContract.Positions.TABLE_NAME +
+                    "(" + DbContract.Positions.COLUMN_SYNCED + ")",
+            "CREATE INDEX " + DbContract.Positions.INDEX_WAYPOINT + " ON " + DbContract.Positions.TABLE_NAME +
+                    "(" + DbContract.Positions.COLUMN_WAYPOINT + ")"
+    };
+
+    @Test
+    public void unsyncedQueriesUsePartialIndex() {
+        SQLiteDatabase db = DbAccess.getDatabase(RuntimeEnvironment.getApplication());
+        String firstPage = pageQuery(DbAccess.SELECTION_UNSYNCED);
+        String nextPage = pageQuery("(" + DbAccess.SELECTION_UNSYNCED + ") AND " + PositionIterator.KEYSET_SELECTION);
+
+        assertUsesIndex(db, DbContract.Positions.INDEX_UNSYNCED_TIME, firstPage);
+        assertUsesIndex(db, DbContract.Positions.INDEX_UNSYNCED_TIME, nextPage, "0", "0", "0");
+        assertUsesIndex(db, DbContract.Positions.INDEX_UNSYNCED_TIME, DbAccess.SQL_COUNT_UNSYNCED);
+    }
+
+    @Test
+    public void waypointQueriesUsePartialIndex() {
+        SQLiteDatabase db = DbAccess.getDatabase(RuntimeEnvironment.getApplication());
+        String firstPage = pageQuery(DbAccess.SELECTION_WAYPOINT);
+        String rangePage = pageQuery(DbAccess.SELECTION_WAYPOINT + " AND " +
+                DbContract.Positions.COLUMN_TIME + " >= ? AND " + DbContract.Positions.COLUMN_TIME + " <= ?");
+
+        assertUsesIndex(db, DbContract.Positions.INDEX_WAYPOINT_TIME, firstPage);
+        assertUsesIndex(db, DbContract.Positions.INDEX_WAYPOINT_TIME, rangePage, "0", "0");
+    }
+
+    @Test
+    public void benchmark() {
+        Benchmark.assumeEnabled();
+        SQLiteDatabase appDb = DbAccess.getDatabase(RuntimeEnvironment.getApplication());
+        // current schema copied from application database, legacy one replaces partial indices
+        List<String> schema = new ArrayList<>();
+        List<String> legacySchema = new ArrayList<>();
+        try (Cursor cursor = appDb.rawQuery("SELECT sql FROM sqlite_master WHERE tbl_name = ? AND sql NOT NULL " +
+                "ORDER BY type DESC", new String[] { DbContract.Positions.TABLE_NAME })) {
+            while (cursor.moveToNext()) {
+                String sql = cursor.getString(0);
+                schema.add(sql);
+                if (!sql.contains(" WHERE ")) {
+                    legacySchema.add(sql);
+                }
+            }
+        }
+        legacySchema.addAll(List.of(LEGACY_INDICES));
+
+        StringBuilder report = new StringBuilder();
+        // first round warms up, only last one is reported
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            report.setLength(0);
+            report.append("[indices, ").append(ROWS).append(" rows:");
+            for (boolean isPartial : new boolean[] { true, false }) {
+                try (SQLiteDatabase db = SQLiteDatabase.create(null)) {
+                    for (String sql : isPartial ? schema : legacySchema) {
+                        db.execSQL(sql);
+                    }
+                    report.append(isPartial ? " partial" : " legacy").append(" insert ").append(fill(db)).append(" ms");
+                    report.append(", unsynced page ").append(queryMicros(db, pageQuery(DbAccess.SELECTION_UNSYNCED), UNSYNCED_ROWS)).append(" us");
+                    report.append(", waypoints page ").append(queryMicros(db, pageQuery(DbAccess.SELECTION_WAYPOINT), ROWS / WAYPOINT_EVERY)).append(" us");
+                    report.append(", count unsynced ").append(countMicros(db)).append(" us;");
+                }
+            }
+        }
+        report.setLength(report.length() - 1);
+        Benchmark.report(report.append("]").toString());
+    }
+
+    /**
+     * Insert test track, all but last rows marked as synchronized
+     * @param db Database
+     * @return Elapsed milliseconds
+     */
+    private static long fill(@NonNull SQLiteDatabase db) {
+        long start = System.nanoTime();
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement(PositionInserter.SQL_INSERT)) {
+            for (int i = 0; i < ROWS; i++) {
+                Location location = new Location("gps");
+                location.setTime((START_TIME + i) * 1000);
+                location.setLatitude(52.2297 + i * 0.00001);
+                location.setLongitude(21.0122 - i * 0.00001);
+                location.setAccuracy(5);
+                PositionInserter.bind(insert, location, null, null, i % WAYPOINT_EVERY == 0);
+                insert.executeInsert();
+            }
+            db.execSQL("UPDATE " + DbContract.Positions.TABLE_NAME + " SET " + DbContract.Positions.COLUMN_SYNCED + " = 1 " +
+                    "WHERE " + DbContract.Positions._ID + " <= " + (ROWS - UNSYNCED_ROWS));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    private static long queryMicros(@NonNull SQLiteDatabase db, @NonNull String sql, int expectedRows) {
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERY_ROUNDS; i++) {
+            try (Cursor cursor = db.rawQuery(sql, null)) {
+                assertEquals(Math.min(expectedRows, PositionIterator.DEFAULT_PAGE_SIZE), cursor.getCount());
+            }
+        }
+        return (System.nanoTime() - start) / 1000 / QUERY_ROUNDS;
+    }
+
+    private static long countMicros(@NonNull SQLiteDatabase db) {
+        long start = System.nanoTime();
+        try (SQLiteStatement count = db.compileStatement(DbAccess.SQL_COUNT_UNSYNCED)) {
+            for (int i = 0; i < QUERY_ROUNDS; i++) {
+                assertEquals(UNSYNCED_ROWS, count.simpleQueryForLong());
+            }
+        }
+        return (System.nanoTime() - start) / 1000 / QUERY_ROUNDS;
+    }
+
+    /**
+     * Build page query the same way position iterator does
+     */
+    @NonNull
+    private static String pageQuery(@NonNull String selection) {
+        return SQLiteQueryBuilder.buildQueryString(false, DbContract.Positions.TABLE_NAME, new String[] { "*" },
+                selection, null, null, PositionIterator.ORDER_BY, PAGE_SIZE);
+    }
+
+    private static void assertUsesIndex(@NonNull SQLiteDatabase db, @NonNull String index,
+                                        @NonNull String sql, @NonNull String... args) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        String text = String.join("; ", plan);
+        assertTrue(sql + ": " + text, text.matches(".*INDEX " + index + "\\b.*"));
+        assertFalse(sql + ": " + text, text.contains("TEMP B-TREE"));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
+
+import net.fabiszewski.ulogger.Benchmark;
+import net.fabiszewski.ulogger.ui.SettingsActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks area queries against full scan and reports viewport query latency on 1M points
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SpatialIndexTest {
+
+    private static final long START_TIME = 1700000000L;
+    private static final int ROWS = 5000;
+    private static final int BENCHMARK_ROWS = 1000000;
+    private static final int BATCH_SIZE = 10000;
+    private static final double CENTER_LATITUDE = 52.2297;
+    private static final double CENTER_LONGITUDE = 21.0122;
+    /** Viewport radii in meters, from street to region */
+    private static final int[] VIEWPORTS = { 250, 1000, 5000, 20000 };
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        DbAccess.newTrack(context, "Area");
+    }
+
+    @Test
+    public void tileMatchesSqlExpression() {
+        SQLiteDatabase db = DbAccess.getDatabase(context);
+        double[][] points = { { 0, 0 }, { -90, -180 }, { 90, 180 }, { 52.2297, 21.0122 }, { -33.8688, 151.2093 },
+                { 40.7128, -74.006 }, { 89.99999, -179.99999 } };
+        for (double[] point : points) {
+            long tile = DatabaseUtils.longForQuery(db, "SELECT " + SpatialIndex.SQL_TILE + " FROM (SELECT ? AS " +
+                    DbContract.Positions.COLUMN_LATITUDE + ", ? AS " + DbContract.Positions.COLUMN_LONGITUDE + ")",
+                    new String[] { String.valueOf(point[0]), String.valueOf(point[1]) });
+            assertEquals(SpatialIndex.getTile(point[0], point[1]), tile);
+        }
+    }
+
+    @Test
+    public void areaQueryMatchesScan() {
+        writeTrack(ROWS);
+        // older half of track is archived, chunks outside area are skipped by their bounds
+        DbAccess.getDatabase(context).execSQL("UPDATE " + DbContract.Positions.TABLE_NAME + " SET " +
+                DbContract.Positions.COLUMN_SYNCED + " = 1 WHERE " + DbContract.Positions._ID + " <= " + ROWS / 2);
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putBoolean(SettingsActivity.KEY_ARCHIVE, true)
+                .commit();
+        DbMaintenance.run(context);
+        assertTrue(DatabaseUtils.longForQuery(DbAccess.getDatabase(context), DbAccess.SQL_COUNT_ARCHIVED, null) > 0);
+
+        DbAccess db = DbAccess.getOpenInstance(context);
+        for (int radius : VIEWPORTS) {
+            BoundingBox area = BoundingBox.around(CENTER_LATITUDE, CENTER_LONGITUDE, radius);
+            List<String> expected = new ArrayList<>();
+            try (PointIterator positions = db.getPositionsIterator()) {
+                while (positions.moveToNext()) {
+                    Cursor cursor = positions.getCursor();
+                    if (area.contains(latitude(cursor), longitude(cursor))) {
+                        expected.add(DbAccess.getID(cursor));
+                    }
+                }
+            }
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, queryIds(db, area));
+        }
+    }
+
+    @Test
+    public void areaAroundLastPosition() {
+        DbAccess db = DbAccess.getOpenInstance(context);
+        assertNull(db.getAreaAroundLastPosition(1000));
+
+        writeTrack(ROWS);
+        double latitude = 0;
+        double longitude = 0;
+        try (PointIterator positions = db.getPositionsIterator()) {
+            while (positions.moveToNext()) {
+                Cursor cursor = positions.getCursor();
+                latitude = latitude(cursor);
+                longitude = longitude(cursor);
+            }
+        }
+        BoundingBox area = db.getAreaAroundLastPosition(1000);
+        assertNotNull(area);
+        assertTrue(area.contains(latitude, longitude));
+        float[] results = new float[1];
+        Location.distanceBetween(latitude, longitude, area.maxLatitude(), longitude, results);
+        assertEquals(1000, results[0], 10);
+        Location.distanceBetween(latitude, longitude, latitude, area.minLongitude(), results);
+        assertEquals(1000, results[0], 10);
+    }
+
+    @Test
+    public void benchmark() {
+        Benchmark.assumeEnabled();
+        writeTrack(BENCHMARK_ROWS);
+        DbAccess db = DbAccess.getOpenInstance(context);
+        StringBuilder report = new StringBuilder("[viewport, " + BENCHMARK_ROWS + " points:");
+
+        long start = System.nanoTime();
+        int scanned = 0;
+        BoundingBox smallest = BoundingBox.around(CENTER_LATITUDE, CENTER_LONGITUDE, VIEWPORTS[0]);
+        try (PointIterator positions = db.getPositionsIterator()) {
+            while (positions.moveToNext()) {
+                Cursor cursor = positions.getCursor();
+                if (smallest.contains(latitude(cursor), longitude(cursor))) {
+                    scanned++;
+                }
+            }
+        }
+        report.append(" full scan ").append(scanned).append(" in ").append((System.nanoTime() - start) / 1000000).append(" ms;");
+
+        for (int radius : VIEWPORTS) {
+            BoundingBox area = BoundingBox.around(CENTER_LATITUDE, CENTER_LONGITUDE, radius);
+            start = System.nanoTime();
+            int count = queryIds(db, area).size();
+            if (radius == VIEWPORTS[0]) {
+                assertEquals(scanned, count);
+            }
+            report.append(" ").append(radius).append(" m ").append(count).append(" in ")
+                    .append((System.nanoTime() - start) / 1000000).append(" ms;");
+        }
+        report.setLength(report.length() - 1);
+        Benchmark.report(report.append("]").toString());
+    }
+
+    @NonNull
+    private static List<String> queryIds(@NonNull DbAccess db, @NonNull BoundingBox area) {
+        List<String> ids = new ArrayList<>();
+        try (PointIterator positions = db.getPositionsIterator(area, 0, 0)) {
+            long lastTime = 0;
+            while (positions.moveToNext()) {
+                Cursor cursor = positions.getCursor();
+                assertTrue(area.contains(latitude(cursor), longitude(cursor)));
+                long time = DbAccess.getTimeAsLong(cursor);
+                assertTrue(time >= lastTime);
+                lastTime = time;
+                ids.add(DbAccess.getID(cursor));
+            }
+        }
+        return ids;
+    }
+
+    private static double latitude(@NonNull Cursor cursor) {
+        return cursor.getDouble(cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_LATITUDE));
+    }
+
+    private static double longitude(@NonNull Cursor cursor) {
+        return cursor.getDouble(cursor.getColumnIndexOrThrow(DbContract.Positions.COLUMN_LONGITUDE));
+    }
+
+    /**
+     * Write random walk around center, repeatedly crossing it
+     * @param rows Number of positions
+     */
+    private void writeTrack(int rows) {
+        Random random = new Random(1);
+        double latitude = 0;
+        double longitude = 0;
+        List<Location> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            // weak drift back towards center keeps walk within some tens of kilometers
+            latitude += (random.nextDouble() - 0.5) * 0.002 - latitude * 0.00002;
+            longitude += (random.nextDouble() - 0.5) * 0.003 - longitude * 0.00002;
+            batch.add(location(random, i, latitude, longitude));
+            if (batch.size() == BATCH_SIZE) {
+                DbAccess.writeLocations(context, batch);
+                batch.clear();
+            }
+        }
+        DbAccess.writeLocations(context, batch);
+    }
+
+    @NonNull
+    private static Location location(@NonNull Random random, int i, double latitudeOffset, double longitudeOffset) {
+        Location location = new Location("gps");
+        location.setTime((START_TIME + i) * 1000);
+        location.setLatitude(CENTER_LATITUDE + latitudeOffset);
+        location.setLongitude(CENTER_LONGITUDE + longitudeOffset);
+        location.setAccuracy(3 + random.nextInt(20));
+        return location;
+    }
+}
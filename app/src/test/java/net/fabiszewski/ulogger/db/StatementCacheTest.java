@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import static net.fabiszewski.ulogger.db.TestLocations.location;
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Checks lock order of cached statements and reports statements per second
+ * for cached, per call compiled and content values inserts
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StatementCacheTest {
+
+    private static final int BATCHES = 100;
+    private static final int BATCH_SIZE = 50;
+    private static final int WAYPOINTS = 2000;
+    private static final int BENCHMARK_ROWS = 5000;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        DbAccess.newTrack(context, "Statements");
+    }
+
+    @Test
+    public void batchAndSingleWritesDoNotDeadlock() throws InterruptedException, ExecutionException {
+        List<Location> batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(location(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // logger thread writes batches in transaction, db thread writes waypoints, sync thread marks rows
+            Future<?> batches = executor.submit(() -> {
+                for (int i = 0; i < BATCHES; i++) {
+                    DbAccess.writeLocations(context, batch);
+                }
+            });
+            Future<?> waypoints = executor.submit(() -> {
+                for (int i = 0; i < WAYPOINTS; i++) {
+                    DbAccess.writeWaypoint(context, location(i), "Waypoint " + i, null);
+                }
+            });
+            Future<?> synced = executor.submit(() -> {
+                for (int i = 0; i < WAYPOINTS; i++) {
+                    DbAccess.getOpenInstance(context).setSynced(context, i + 1);
+                    DbAccess.countUnsynced(context);
+                }
+            });
+            await(batches);
+            await(waypoints);
+            await(synced);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(BATCHES * BATCH_SIZE + WAYPOINTS, DbAccess.getOpenInstance(context).countPositions());
+    }
+
+    @Test
+    public void benchmark() {
+        Benchmark.assumeEnabled();
+        SQLiteDatabase db = DbAccess.getDatabase(context);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            DbAccess.writeLocation(context, location(i));
+        }
+        long cachedNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            try (SQLiteStatement statement = db.compileStatement(PositionInserter.SQL_INSERT)) {
+                PositionInserter.bind(statement, location(i), null, null, false);
+                statement.executeInsert();
+            }
+        }
+        long compiledNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            db.insert(DbContract.Positions.TABLE_NAME, null, values(location(i)));
+        }
+        long valuesNanos = System.nanoTime() - start;
+
+        List<Location> batch = new ArrayList<>();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            batch.add(location(i));
+        }
+        start = System.nanoTime();
+        DbAccess.writeLocations(context, batch);
+        long batchNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            DbAccess.countUnsynced(context);
+        }
+        long countCachedNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROWS; i++) {
+            try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + DbContract.Positions.TABLE_NAME +
+                    " WHERE " + DbContract.Positions.COLUMN_SYNCED + " = 0", null)) {
+                cursor.moveToFirst();
+            }
+        }
+        long countQueryNanos = System.nanoTime() - start;
+
+        assertEquals(4 * BENCHMARK_ROWS, DbAccess.getOpenInstance(context).countPositions());
+        Benchmark.report("[statements/s, " + BENCHMARK_ROWS + " rows: insert cached " + rate(cachedNanos) +
+                ", compiled per call " + rate(compiledNanos) + ", content values " + rate(valuesNanos) +
+                ", cached in transaction " + rate(batchNanos) + ", count cached " + rate(countCachedNanos) +
+                ", count raw query " + rate(countQueryNanos) + "]");
+    }
+
+    private static void await(@NonNull Future<?> future) throws InterruptedException, ExecutionException {
+        try {
+            future.get(60, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new AssertionError("writers deadlocked");
+        }
+    }
+
+    private static long rate(long nanos) {
+        return BENCHMARK_ROWS * 1000000000L / Math.max(nanos, 1);
+    }
+
+    @NonNull
+    private static ContentValues values(@NonNull Location location) {
+        ContentValues values = new ContentValues();
+        values.put(DbContract.Positions.COLUMN_TIME, location.getTime() / 1000);
+        values.put(DbContract.Positions.COLUMN_PROVIDER, location.getProvider());
+        values.put(DbContract.Positions.COLUMN_LATITUDE, location.getLatitude());
+        values.put(DbContract.Positions.COLUMN_LONGITUDE, location.getLongitude());
+        values.put(DbContract.Positions.COLUMN_ALTITUDE, location.getAltitude());
+        values.put(DbContract.Positions.COLUMN_ACCURACY, location.getAccuracy());
+        return values;
+    }
+}
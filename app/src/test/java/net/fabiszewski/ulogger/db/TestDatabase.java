@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Access to app database connection for tests outside db package
+ */
+public final class TestDatabase {
+
+    private TestDatabase() {}
+
+    /**
+     * Execute statement on app database connection
+     * @param context Context
+     * @param sql Statement
+     */
+    public static void execSQL(@NonNull Context context, @NonNull String sql) {
+        DbAccess.getDatabase(context).execSQL(sql);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.db;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Location fixtures shared by tests
+ */
+public final class TestLocations {
+
+    public static final long START_TIME = 1700000000L;
+
+    private TestLocations() {}
+
+    /**
+     * Get point of track heading south-east, one point per second
+     * @param i Point index
+     * @return Location
+     */
+    @NonNull
+    public static Location location(int i) {
+        Location location = new Location("gps");
+        location.setTime((START_TIME + i) * 1000);
+        location.setLatitude(52.2297 + i * 0.00001);
+        location.setLongitude(21.0122 - i * 0.00001);
+        location.setAltitude(100 + i % 50);
+        location.setAccuracy(3 + i % 20);
+        return location;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+import android.app.Application;
+import android.content.Intent;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
+
+import net.fabiszewski.ulogger.Benchmark;
+import net.fabiszewski.ulogger.Logger;
+import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.ui.SettingsActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ServiceController;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Replays generated GPX track through logger service pipeline
+ * and reports throughput.
+ * Robolectric clock does not advance on its own, so duration is measured with wall clock here,
+ * service statistics carry real timings on device.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LocationReplayBenchmarkTest {
+
+    private static final int FIX_COUNT = 5000;
+    /** Every n-th fix is inaccurate and must be rejected */
+    private static final int INACCURATE_EVERY = 10;
+    private static final int MAX_ACCURACY = 50;
+
+    private Application context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putString(SettingsActivity.KEY_MIN_ACCURACY, String.valueOf(MAX_ACCURACY))
+                .putString(SettingsActivity.KEY_MIN_DISTANCE, "0")
+                .putString(SettingsActivity.KEY_MIN_TIME, "1")
+                .putBoolean(SettingsActivity.KEY_LIVE_SYNC, false)
+                .putBoolean(SettingsActivity.KEY_STATIONARY_DETECTION, false)
+                .commit();
+        DbAccess.newTrack(context, "Replay");
+    }
+
+    @Test
+    public void replayAtMaxSpeed() throws IOException, InterruptedException {
+        Benchmark.assumeEnabled();
+        assumeTrue("replay is only available in debug builds", Logger.DEBUG);
+        File gpx = writeTrack(new File(context.getCacheDir(), "replay.gpx"));
+        int positionsBefore = DbAccess.getOpenInstance(context).countPositions();
+
+        Intent intent = new Intent(context, LoggerService.class)
+                .putExtra(LoggerService.EXTRA_REPLAY_URI, Uri.fromFile(gpx).toString())
+                .putExtra(LoggerService.EXTRA_REPLAY_SPEED, 0f);
+        ServiceController<LoggerService> controller = Robolectric.buildService(LoggerService.class, intent);
+        long start = System.nanoTime();
+        controller.create().startCommand(0, 1);
+
+        LoggerService.ReplayStats stats = awaitStats();
+        // stop flushes pending writes
+        controller.destroy();
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertNotNull("replay did not finish", stats);
+        int expectedRejected = FIX_COUNT / INACCURATE_EVERY;
+        assertEquals(FIX_COUNT, stats.count());
+        assertEquals(expectedRejected, stats.rejected());
+        assertEquals(FIX_COUNT - expectedRejected, stats.accepted());
+        assertEquals(stats.accepted(), DbAccess.getOpenInstance(context).countPositions() - positionsBefore);
+
+        Benchmark.report("[replay: " + stats.count() + " fixes in " + elapsedMillis + " ms, " +
+                (stats.count() * 1000L / Math.max(elapsedMillis, 1)) + " fixes/s, accepted: " + stats.accepted() +
+                ", rejected: " + stats.rejected() + ", max queue depth: " + stats.maxQueueDepth() + "]");
+    }
+
+    private static LoggerService.ReplayStats awaitStats() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 120000;
+        LoggerService.ReplayStats stats;
+        while ((stats = LoggerService.getLastReplayStats()) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return stats;
+    }
+
+    @NonNull
+    private static File writeTrack(@NonNull File file) throws IOException {
+        long time = 1700000000L;
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" " +
+                    "xmlns:ulogger=\"https://github.com/bfabiszewski/ulogger-android/1\" version=\"1.1\">\n" +
+                    "<trk><name>Replay</name><trkseg>\n");
+            for (int i = 0; i < FIX_COUNT; i++) {
+                int accuracy = (i % INACCURATE_EVERY == INACCURATE_EVERY - 1) ? MAX_ACCURACY * 10 : 5;
+                writer.write("<trkpt lat=\"" + (52.0 + i * 0.0001) + "\" lon=\"21.0\">" +
+                        "<ele>100</ele>" +
+                        "<time>" + DbAccess.getTimeISO8601(time + i) + "</time>" +
+                        "<extensions><ulogger:accuracy>" + accuracy + "</ulogger:accuracy>" +
+                        "<ulogger:provider>gps</ulogger:provider></extensions>" +
+                        "</trkpt>\n");
+            }
+            writer.write("</trkseg></trk>\n</gpx>\n");
+        }
+        return file;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.services;
+
+import static net.fabiszewski.ulogger.db.TestLocations.location;
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import net.fabiszewski.ulogger.db.DbAccess;
+import net.fabiszewski.ulogger.db.TestDatabase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that fixes enqueued while writer is stopping are not lost
+ * and that failed writes do not stop writer
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LocationWriterTest {
+
+    private static final int FIXES = 2000;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        DbAccess.newTrack(context, "Writer");
+    }
+
+    @Test
+    public void keepsFixesEnqueuedDuringStop() throws InterruptedException {
+        AtomicInteger written = new AtomicInteger();
+        LocationWriter writer = new LocationWriter(context, written::addAndGet);
+        writer.start();
+        CountDownLatch halfway = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < FIXES; i++) {
+                writer.enqueue(location(i));
+                if (i == FIXES / 2) {
+                    halfway.countDown();
+                }
+            }
+        });
+        producer.start();
+        halfway.await();
+        writer.stop();
+        producer.join();
+
+        // writer thread may still be flushing after bounded stop
+        long deadline = System.currentTimeMillis() + 30000;
+        while (written.get() < FIXES && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(FIXES, written.get());
+        assertEquals(FIXES, DbAccess.getOpenInstance(context).countPositions());
+    }
+
+    @Test
+    public void countsFailedWrites() throws InterruptedException {
+        AtomicInteger written = new AtomicInteger();
+        LocationWriter writer = new LocationWriter(context, written::addAndGet);
+        writer.start();
+        // fail inserts as full database would
+        TestDatabase.execSQL(context, "CREATE TRIGGER fail_insert BEFORE INSERT ON positions " +
+                "BEGIN SELECT RAISE(ABORT, 'database or disk is full'); END");
+        writer.enqueue(location(0));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (writer.getFailedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, writer.getFailedCount());
+
+        TestDatabase.execSQL(context, "DROP TRIGGER fail_insert");
+        writer.enqueue(location(1));
+        writer.stop();
+        assertEquals(1, written.get());
+        assertEquals(1, DbAccess.getOpenInstance(context).countPositions());
+    }
+}
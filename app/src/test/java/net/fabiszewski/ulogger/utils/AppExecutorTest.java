@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that failures of submitted tasks are logged
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AppExecutorTest {
+
+    @Test
+    public void logsFailedTask() throws InterruptedException {
+        Future<?> future = AppExecutor.submit(AppExecutor.Lane.IO, () -> {
+            throw new IllegalStateException("task failure");
+        });
+        try {
+            future.get();
+            fail("Failure not propagated to future");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // logged after future completes
+        long deadline = System.currentTimeMillis() + 5000;
+        List<ShadowLog.LogItem> errors;
+        while ((errors = errors()).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).throwable instanceof IllegalStateException);
+    }
+
+    private static List<ShadowLog.LogItem> errors() {
+        return ShadowLog.getLogsForTag(AppExecutor.class.getSimpleName()).stream()
+                .filter(item -> item.type == Log.ERROR)
+                .toList();
+    }
+}
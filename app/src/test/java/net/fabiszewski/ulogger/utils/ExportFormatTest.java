@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Benchmark;
+import net.fabiszewski.ulogger.db.DbAccess;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Writes reference track in all export formats, checks output and reports size and time
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ExportFormatTest {
+
+    private static final String[] COLUMNS = { "_id", "time", "latitude", "longitude", "altitude",
+            "accuracy", "speed", "bearing", "provider", "comment", "imageUri" };
+    private static final long START_TIME = 1700000000L;
+    private static final int TRACK_POINTS = 20000;
+    private static final int WAYPOINTS = 20;
+    private static final int BENCHMARK_ROUNDS = 3;
+
+    private final Context context = RuntimeEnvironment.getApplication();
+
+    @Test
+    public void gpxContainsAllPoints() throws IOException, XmlPullParserException {
+        byte[] gpx = write(ExportFormat.GPX);
+        assertEquals(WAYPOINTS, countTags(gpx, "wpt"));
+        assertEquals(TRACK_POINTS, countTags(gpx, "trkpt"));
+        // every point carries extensions element, also when it has no extension values
+        assertEquals(WAYPOINTS + TRACK_POINTS, countTags(gpx, "extensions"));
+    }
+
+    @Test
+    public void gzipContainsGpx() throws IOException {
+        byte[] gpx = write(ExportFormat.GPX);
+        byte[] gz = write(ExportFormat.GPX_GZ);
+        assertTrue(gz.length < gpx.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            assertEquals(new String(gpx, StandardCharsets.UTF_8), new String(readAll(in), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void geoJsonContainsAllPoints() throws IOException, JSONException {
+        JSONObject json = new JSONObject(new String(write(ExportFormat.GEOJSON), StandardCharsets.UTF_8));
+        assertEquals("FeatureCollection", json.getString("type"));
+        assertEquals(WAYPOINTS + TRACK_POINTS, json.getJSONArray("features").length());
+    }
+
+    @Test
+    public void csvContainsAllPoints() throws IOException {
+        String csv = new String(write(ExportFormat.CSV), StandardCharsets.UTF_8);
+        // header and one line per point
+        assertEquals(1 + WAYPOINTS + TRACK_POINTS, csv.split("\r\n").length);
+    }
+
+    @Test
+    public void zipContainsGpx() throws IOException {
+        byte[] gpx = write(ExportFormat.GPX);
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(write(ExportFormat.ZIP)))) {
+            ZipEntry entry = in.getNextEntry();
+            assertEquals("track.gpx", entry.getName());
+            assertEquals(new String(gpx, StandardCharsets.UTF_8), new String(readAll(in), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void zipStoresLinkedImages() throws IOException, XmlPullParserException {
+        byte[] image = new byte[50000];
+        new Random(1).nextBytes(image);
+        File file = new File(context.getCacheDir(), "image.jpg");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(image);
+        }
+        File missing = new File(context.getCacheDir(), "missing.jpg");
+        MatrixCursor cursor = new MatrixCursor(COLUMNS, 2);
+        cursor.addRow(new Object[] { 1, START_TIME, 52.0, 21.0, null, null, null, null, null, "Image",
+                Uri.fromFile(file).toString() });
+        cursor.addRow(new Object[] { 2, START_TIME + 1, 52.1, 21.1, null, null, null, null, null, "Missing",
+                Uri.fromFile(missing).toString() });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TrackWriter writer = ExportFormat.ZIP.createWriter(context, out)) {
+            writer.startDocument("ulogger 3.13", "Images", START_TIME);
+            writePoints(writer, cursor, true);
+            writer.startTrack();
+            writer.endTrack();
+            writer.endDocument();
+        }
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("track.gpx", in.getNextEntry().getName());
+            byte[] gpx = readAll(in);
+            // only readable image is linked
+            assertEquals(1, countTags(gpx, "link"));
+            ZipEntry entry = in.getNextEntry();
+            assertTrue(entry.getName().startsWith("images/1."));
+            assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+            assertArrayEquals(image, readAll(in));
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    @Test
+    public void benchmark() throws IOException {
+        Benchmark.assumeEnabled();
+        StringBuilder report = new StringBuilder("[export " + (WAYPOINTS + TRACK_POINTS) + " points:");
+        for (ExportFormat format : ExportFormat.values()) {
+            long nanos = Long.MAX_VALUE;
+            int size = 0;
+            for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+                long start = System.nanoTime();
+                size = write(format).length;
+                nanos = Math.min(nanos, System.nanoTime() - start);
+            }
+            report.append(" ").append(format).append(" ").append(size).append(" bytes ")
+                    .append(nanos / 1000000).append(" ms,");
+        }
+        report.setLength(report.length() - 1);
+        Benchmark.report(report.append("]").toString());
+    }
+
+    /**
+     * Write reference track the same way export task does
+     */
+    @NonNull
+    private byte[] write(@NonNull ExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TrackWriter writer = format.createWriter(context, out)) {
+            writer.startDocument("ulogger 3.13", "Reference", START_TIME);
+            writePoints(writer, waypoints(), true);
+            writer.startTrack();
+            writePoints(writer, trackPoints(), false);
+            writer.endTrack();
+            writer.endDocument();
+        }
+        return out.toByteArray();
+    }
+
+    private static void writePoints(@NonNull TrackWriter writer, @NonNull Cursor cursor, boolean isWaypoint) throws IOException {
+        DbAccess.PositionColumns columns = new DbAccess.PositionColumns(cursor);
+        while (cursor.moveToNext()) {
+            if (isWaypoint) {
+                writer.writeWaypoint(cursor, columns);
+            } else {
+                writer.writeTrackPoint(cursor, columns);
+            }
+        }
+        cursor.close();
+    }
+
+    @NonNull
+    private static Cursor trackPoints() {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS, TRACK_POINTS);
+        for (int i = 0; i < TRACK_POINTS; i++) {
+            // every 100th point comes from provider without extension values
+            boolean isBare = i % 100 == 0;
+            cursor.addRow(new Object[] { i + 1, START_TIME + i, 52.2297 + i * 0.00001, 21.0122 - i * 0.00001,
+                    100 + i % 50, isBare ? null : 3 + i % 20, isBare ? null : 1.5 + i % 10,
+                    isBare ? null : i % 360, isBare ? null : "gps", null, null });
+        }
+        return cursor;
+    }
+
+    @NonNull
+    private static Cursor waypoints() {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS, WAYPOINTS);
+        for (int i = 0; i < WAYPOINTS; i++) {
+            long id = TRACK_POINTS + i + 1;
+            cursor.addRow(new Object[] { id, START_TIME + i * 1000, 52.3 + i * 0.001, 21.1, null,
+                    10, null, null, "network", "Waypoint " + i + "\nnote, \"quoted\"", null });
+        }
+        return cursor;
+    }
+
+    private static int countTags(@NonNull byte[] document, @NonNull String name) throws IOException, XmlPullParserException {
+        XmlPullParser parser = XmlPullParserFactory.newInstance().newPullParser();
+        parser.setInput(new ByteArrayInputStream(document), "UTF-8");
+        int count = 0;
+        for (int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+            if (event == XmlPullParser.START_TAG && name.equals(parser.getName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @NonNull
+    private static byte[] readAll(@NonNull InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) > 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
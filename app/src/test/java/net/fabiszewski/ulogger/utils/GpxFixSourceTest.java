@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@RunWith(RobolectricTestRunner.class)
+public class GpxFixSourceTest {
+
+    /** 2024-03-01T12:00:00Z */
+    private static final long NOON_UTC = 1709294400000L;
+
+    @Test
+    public void parsesUtcTime() throws IOException {
+        assertEquals(NOON_UTC, readTime("2024-03-01T12:00:00Z"));
+    }
+
+    @Test
+    public void parsesTimeWithoutZoneAsUtc() throws IOException {
+        assertEquals(NOON_UTC, readTime("2024-03-01T12:00:00"));
+    }
+
+    @Test
+    public void parsesFractionalSeconds() throws IOException {
+        assertEquals(NOON_UTC + 500, readTime("2024-03-01T12:00:00.5Z"));
+        assertEquals(NOON_UTC + 123, readTime("2024-03-01T12:00:00.123456Z"));
+        assertEquals(NOON_UTC + 40, readTime("2024-03-01T12:00:00,04Z"));
+    }
+
+    @Test
+    public void parsesZoneOffsets() throws IOException {
+        assertEquals(NOON_UTC, readTime("2024-03-01T14:00:00+02:00"));
+        assertEquals(NOON_UTC, readTime("2024-03-01T06:30:00-05:30"));
+        assertEquals(NOON_UTC, readTime("2024-03-01T17:45:00+0545"));
+        assertEquals(NOON_UTC, readTime("2024-03-01T13:00:00+01"));
+        assertEquals(NOON_UTC + 250, readTime("2024-03-01T13:00:00.250+01:00"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidTime() throws IOException {
+        readTime("2024-13-01T12:00:00Z");
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedTime() throws IOException {
+        readTime("yesterday");
+    }
+
+    @Test
+    public void skipsPointsWithoutTime() throws IOException {
+        String gpx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\">" +
+                "<wpt lat=\"52.5\" lon=\"21.5\"><name>No time</name></wpt>" +
+                "<trk><trkseg>" +
+                "<trkpt lat=\"52.0\" lon=\"21.0\"><ele>100</ele></trkpt>" +
+                "<trkpt lat=\"52.1\" lon=\"21.1\"><time>2024-03-01T12:00:00Z</time></trkpt>" +
+                "<trkpt lat=\"52.2\" lon=\"21.2\"/>" +
+                "</trkseg></trk></gpx>";
+        try (GpxFixSource source = new GpxFixSource(new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)), true)) {
+            Location location = source.next();
+            assertEquals(52.1, location.getLatitude(), 0);
+            assertEquals(NOON_UTC, location.getTime());
+            assertNull(source.next());
+            assertEquals(3, source.getSkippedCount());
+        }
+    }
+
+    private static long readTime(@NonNull String time) throws IOException {
+        String gpx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\"><trk><trkseg>" +
+                "<trkpt lat=\"52.0\" lon=\"21.0\"><time>" + time + "</time></trkpt>" +
+                "</trkseg></trk></gpx>";
+        try (GpxFixSource source = new GpxFixSource(new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)))) {
+            Location location = source.next();
+            assertNull(source.next());
+            return location.getTime();
+        }
+    }
+}
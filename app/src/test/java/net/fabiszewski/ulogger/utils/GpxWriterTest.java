@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import android.database.CharArrayBuffer;
+import android.util.Xml;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Benchmark;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Compares GpxWriter with XmlSerializer output and speed
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GpxWriterTest {
+
+    private static final String NS_GPX = "http://www.topografix.com/GPX/1/1";
+    private static final String NS_ULOGGER = "https://github.com/bfabiszewski/ulogger-android/1";
+    private static final String NS_XSI = "http://www.w3.org/2001/XMLSchema-instance";
+    private static final String SCHEMA_LOCATION = NS_GPX + " http://www.topografix.com/GPX/1/1/gpx.xsd " +
+            NS_ULOGGER + " https://raw.githubusercontent.com/bfabiszewski/ulogger-server/master/scripts/gpx_extensions1.xsd";
+    private static final String CREATOR = "ulogger 3.13";
+    private static final String TRACK_NAME = "Track <1> & \"quoted\"";
+    private static final long START_TIME = 1700000000L;
+
+    private static final int BENCHMARK_POINTS = 100000;
+    private static final int BENCHMARK_ROUNDS = 3;
+
+    @Test
+    public void outputMatchesXmlSerializer() throws IOException, XmlPullParserException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        writeWithSerializer(expected, 100);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        writeWithGpxWriter(actual, 100);
+
+        // serializers differ in namespace declaration order and line endings, compare parsed documents
+        assertEquals(parse(expected.toByteArray()), parse(actual.toByteArray()));
+    }
+
+    @Test
+    public void encodesUtf8() throws IOException, XmlPullParserException {
+        String name = "ąę ж 中 😀";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GpxWriter writer = new GpxWriter(out);
+        writer.startDocument(name);
+        writer.writeMetadata(name, START_TIME);
+        writer.endDocument();
+
+        XmlPullParser parser = newParser(out.toByteArray());
+        parser.nextTag();
+        assertEquals(name, parser.getAttributeValue(null, "creator"));
+        parser.nextTag();
+        parser.nextTag();
+        assertEquals(name, parser.nextText());
+    }
+
+    @Test
+    public void escapesSpecialCharacters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GpxWriter writer = new GpxWriter(out);
+        writer.startPoint(true, buffer("1"), buffer("2"));
+        writer.writeElement(GpxWriter.DESC, "a<b>&\"c\"\td\u0001\r");
+        writer.writeLink("x\"y\n");
+        writer.endPoint();
+        writer.flush();
+
+        String text = out.toString("UTF-8");
+        assertEquals("\n  <wpt lat=\"1\" lon=\"2\">" +
+                "\n    <desc>a&lt;b&gt;&amp;\"c\"\td&#13;</desc>" +
+                "\n    <link href=\"x&quot;y&#10;\" />" +
+                "\n  </wpt>", text);
+    }
+
+    @Test
+    public void formatsTimeAsSimpleDateFormat() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        char[] chars = new char[GpxWriter.TIME_LENGTH];
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            // 1970 - 2100
+            long timestamp = (long) (random.nextDouble() * 4102444800L);
+            GpxWriter.formatTimeISO8601(timestamp, chars);
+            assertEquals(format.format(new Date(timestamp * 1000)), new String(chars));
+        }
+    }
+
+    @Test
+    public void benchmark() throws IOException {
+        Benchmark.assumeEnabled();
+        long serializerNanos = Long.MAX_VALUE;
+        long writerNanos = Long.MAX_VALUE;
+        CountingOutputStream serializerOut = new CountingOutputStream();
+        CountingOutputStream writerOut = new CountingOutputStream();
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            serializerOut.count = 0;
+            long start = System.nanoTime();
+            writeWithSerializer(serializerOut, BENCHMARK_POINTS);
+            serializerNanos = Math.min(serializerNanos, System.nanoTime() - start);
+
+            writerOut.count = 0;
+            start = System.nanoTime();
+            writeWithGpxWriter(writerOut, BENCHMARK_POINTS);
+            writerNanos = Math.min(writerNanos, System.nanoTime() - start);
+        }
+
+        Benchmark.report("[gpx " + BENCHMARK_POINTS + " points: XmlSerializer " + serializerNanos / 1000000 + " ms, " +
+                serializerOut.count + " bytes, GpxWriter " + writerNanos / 1000000 + " ms, " + writerOut.count + " bytes]");
+    }
+
+    private static void writeWithSerializer(@NonNull OutputStream out, int count) throws IOException {
+        XmlSerializer serializer = Xml.newSerializer();
+        serializer.setOutput(out, "UTF-8");
+        serializer.startDocument("UTF-8", true);
+        serializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
+        serializer.setPrefix("xsi", NS_XSI);
+        serializer.setPrefix("ulogger", NS_ULOGGER);
+        serializer.startTag("", "gpx");
+        serializer.attribute(null, "xmlns", NS_GPX);
+        serializer.attribute(NS_XSI, "schemaLocation", SCHEMA_LOCATION);
+        serializer.attribute(null, "version", "1.1");
+        serializer.attribute(null, "creator", CREATOR);
+        serializer.startTag(null, "metadata");
+        writeTag(serializer, null, "name", TRACK_NAME);
+        writeTag(serializer, null, "time", formatTime(START_TIME));
+        serializer.endTag(null, "metadata");
+        serializer.startTag(null, "trk");
+        writeTag(serializer, null, "name", TRACK_NAME);
+        serializer.startTag(null, "trkseg");
+        for (int i = 0; i < count; i++) {
+            serializer.startTag(null, "trkpt");
+            serializer.attribute(null, "lat", latitude(i));
+            serializer.attribute(null, "lon", longitude(i));
+            writeTag(serializer, null, "ele", altitude(i));
+            writeTag(serializer, null, "time", formatTime(START_TIME + i));
+            writeTag(serializer, null, "name", String.valueOf(i + 1));
+            serializer.startTag(null, "extensions");
+            writeTag(serializer, NS_ULOGGER, "accuracy", accuracy(i));
+            writeTag(serializer, NS_ULOGGER, "speed", speed(i));
+            writeTag(serializer, NS_ULOGGER, "provider", "gps");
+            serializer.endTag(null, "extensions");
+            serializer.endTag(null, "trkpt");
+        }
+        serializer.endTag(null, "trkseg");
+        serializer.endTag(null, "trk");
+        serializer.endTag("", "gpx");
+        serializer.endDocument();
+        serializer.flush();
+    }
+
+    private static void writeWithGpxWriter(@NonNull OutputStream out, int count) throws IOException {
+        CharArrayBuffer latitude = new CharArrayBuffer(32);
+        CharArrayBuffer longitude = new CharArrayBuffer(32);
+        CharArrayBuffer value = new CharArrayBuffer(32);
+        GpxWriter writer = new GpxWriter(out);
+        writer.startDocument(CREATOR);
+        writer.writeMetadata(TRACK_NAME, START_TIME);
+        writer.startTrack(TRACK_NAME);
+        for (int i = 0; i < count; i++) {
+            writer.startPoint(false, copy(latitude(i), latitude), copy(longitude(i), longitude));
+            writer.writeElement(GpxWriter.ELE, copy(altitude(i), value));
+            writer.writeTime(START_TIME + i);
+            writer.writeElement(GpxWriter.NAME, copy(String.valueOf(i + 1), value));
+            writer.startExtensions();
+            writer.writeElement(GpxWriter.ACCURACY, copy(accuracy(i), value));
+            writer.writeElement(GpxWriter.SPEED, copy(speed(i), value));
+            writer.writeElement(GpxWriter.PROVIDER, "gps");
+            writer.endExtensions();
+            writer.endPoint();
+        }
+        writer.endTrack();
+        writer.endDocument();
+    }
+
+    /**
+     * Flatten document to list of events, attributes sorted and whitespace only text skipped
+     */
+    @NonNull
+    private static List<String> parse(@NonNull byte[] document) throws IOException, XmlPullParserException {
+        List<String> events = new ArrayList<>();
+        XmlPullParser parser = newParser(document);
+        for (int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+            if (event == XmlPullParser.START_TAG) {
+                List<String> attributes = new ArrayList<>();
+                for (int i = 0; i < parser.getAttributeCount(); i++) {
+                    attributes.add("{" + parser.getAttributeNamespace(i) + "}" + parser.getAttributeName(i) + "=" + parser.getAttributeValue(i));
+                }
+                Collections.sort(attributes);
+                events.add("<{" + parser.getNamespace() + "}" + parser.getName() + " " + attributes);
+            } else if (event == XmlPullParser.END_TAG) {
+                events.add("</" + parser.getName());
+            } else if (event == XmlPullParser.TEXT && !parser.isWhitespace()) {
+                events.add(parser.getText());
+            }
+        }
+        return events;
+    }
+
+    @NonNull
+    private static XmlPullParser newParser(@NonNull byte[] document) throws XmlPullParserException {
+        XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        XmlPullParser parser = factory.newPullParser();
+        parser.setInput(new ByteArrayInputStream(document), "UTF-8");
+        return parser;
+    }
+
+    private static void writeTag(@NonNull XmlSerializer serializer, String ns, @NonNull String name, @NonNull String text) throws IOException {
+        serializer.startTag(ns, name);
+        serializer.text(text);
+        serializer.endTag(ns, name);
+    }
+
+    @NonNull
+    private static String formatTime(long timestamp) {
+        char[] chars = new char[GpxWriter.TIME_LENGTH];
+        GpxWriter.formatTimeISO8601(timestamp, chars);
+        return new String(chars);
+    }
+
+    private static String latitude(int i) {
+        return String.valueOf(52.2297 + i * 0.00001);
+    }
+
+    private static String longitude(int i) {
+        return String.valueOf(21.0122 - i * 0.00001);
+    }
+
+    private static String altitude(int i) {
+        return String.valueOf(100 + i % 50);
+    }
+
+    private static String accuracy(int i) {
+        return String.valueOf(3 + i % 20);
+    }
+
+    private static String speed(int i) {
+        return String.valueOf(1.5f + i % 10);
+    }
+
+    @NonNull
+    private static CharArrayBuffer buffer(@NonNull String text) {
+        return copy(text, new CharArrayBuffer(text.length()));
+    }
+
+    /**
+     * Copy text into buffer the same way cursor does
+     */
+    @NonNull
+    private static CharArrayBuffer copy(@NonNull String text, @NonNull CharArrayBuffer buffer) {
+        if (buffer.data == null || buffer.data.length < text.length()) {
+            buffer.data = new char[text.length()];
+        }
+        text.getChars(0, text.length(), buffer.data, 0);
+        buffer.sizeCopied = text.length();
+        return buffer;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
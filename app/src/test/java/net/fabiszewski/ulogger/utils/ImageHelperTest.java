@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.net.Uri;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import androidx.annotation.NonNull;
+
+import net.fabiszewski.ulogger.Benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * Resamples generated photo and reports peak bitmap memory and time
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(shadows = ImageHelperTest.ShadowPipeOs.class)
+public class ImageHelperTest {
+
+    private static final int PHOTO_WIDTH = 4000;
+    private static final int PHOTO_HEIGHT = 3000;
+    private static final int TARGET_SIZE = 1024;
+
+    private Context context;
+    private Uri uri;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.getApplication();
+        File file = new File(context.getCacheDir(), "photo.jpg");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(createPhoto(Bitmap.CompressFormat.JPEG));
+        }
+        uri = Uri.fromFile(file);
+    }
+
+    @Test
+    public void resamplesToTargetSize() throws IOException {
+        Bitmap bitmap = ImageHelper.getResampledBitmap(context, uri, TARGET_SIZE);
+
+        assertEquals(TARGET_SIZE, bitmap.getWidth());
+        assertEquals(TARGET_SIZE * PHOTO_HEIGHT / PHOTO_WIDTH, bitmap.getHeight());
+        ImageHelper.ResampleStats stats = ImageHelper.getLastResampleStats();
+        assertNotNull(stats);
+        // largest power of two keeping image above target size
+        assertEquals(2, stats.sampleSize());
+        assertEquals(PHOTO_WIDTH / 2, stats.decodedWidth());
+    }
+
+    @Test
+    public void benchmark() throws IOException {
+        Benchmark.assumeEnabled();
+        long start = System.nanoTime();
+        Bitmap bitmap = ImageHelper.getResampledBitmap(context, uri, TARGET_SIZE);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        ImageHelper.ResampleStats stats = ImageHelper.getLastResampleStats();
+        assertNotNull(stats);
+        long fullBytes = (long) PHOTO_WIDTH * PHOTO_HEIGHT * 4;
+        Benchmark.report("[resample " + PHOTO_WIDTH + "x" + PHOTO_HEIGHT + " to " + bitmap.getWidth() + "x" +
+                bitmap.getHeight() + ": sample " + stats.sampleSize() + ", peak " + stats.peakBytes() / 1024 +
+                " kB (full decode " + fullBytes / 1024 + " kB), " + elapsedMillis + " ms]");
+    }
+
+    @Test
+    public void keepsSizeWhenTargetIsZero() throws IOException {
+        Bitmap bitmap = ImageHelper.getResampledBitmap(context, uri, 0);
+        assertEquals(PHOTO_WIDTH, bitmap.getWidth());
+        assertEquals(PHOTO_HEIGHT, bitmap.getHeight());
+    }
+
+    @Test
+    public void ignoresWrongExifSize() throws IOException {
+        // EXIF claims ten times smaller image, sample size must follow real dimensions
+        File file = new File(context.getCacheDir(), "photo.png");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(withExifSize(createPhoto(Bitmap.CompressFormat.PNG), PHOTO_WIDTH / 10, PHOTO_HEIGHT / 10));
+        }
+        Bitmap bitmap = ImageHelper.getResampledBitmap(context, Uri.fromFile(file), TARGET_SIZE);
+
+        assertEquals(TARGET_SIZE, bitmap.getWidth());
+        ImageHelper.ResampleStats stats = ImageHelper.getLastResampleStats();
+        assertNotNull(stats);
+        assertEquals(2, stats.sampleSize());
+    }
+
+    @Test
+    public void recognizesAppImages() {
+        // app copies are already encoded, originals must be encoded on upload
+        assertTrue(ImageHelper.isAppImage(context, Uri.fromFile(new File(context.getFilesDir(), "image.jpg"))));
+        assertTrue(ImageHelper.isAppImage(context, uri));
+        assertFalse(ImageHelper.isAppImage(context, Uri.parse("content://media/external/images/media/1")));
+        assertFalse(ImageHelper.isAppImage(context, Uri.fromFile(new File("/sdcard/DCIM/image.jpg"))));
+    }
+
+    /**
+     * Insert eXIf chunk with given image dimensions after PNG header chunk
+     */
+    @NonNull
+    private static byte[] withExifSize(@NonNull byte[] png, int width, int height) {
+        ByteBuffer tiff = ByteBuffer.allocate(38).order(ByteOrder.BIG_ENDIAN);
+        tiff.put(new byte[] { 'M', 'M', 0, 42 }).putInt(8);
+        tiff.putShort((short) 2);
+        // ImageWidth, ImageLength as LONG values
+        tiff.putShort((short) 0x0100).putShort((short) 4).putInt(1).putInt(width);
+        tiff.putShort((short) 0x0101).putShort((short) 4).putInt(1).putInt(height);
+        tiff.putInt(0);
+        byte[] type = { 'e', 'X', 'I', 'f' };
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(tiff.array());
+        ByteBuffer chunk = ByteBuffer.allocate(12 + tiff.capacity()).order(ByteOrder.BIG_ENDIAN);
+        chunk.putInt(tiff.capacity()).put(type).put(tiff.array()).putInt((int) crc.getValue());
+        // signature (8) and IHDR chunk (25)
+        int offset = 33;
+        ByteBuffer result = ByteBuffer.allocate(png.length + chunk.capacity());
+        result.put(png, 0, offset).put(chunk.array()).put(png, offset, png.length - offset);
+        return result.array();
+    }
+
+    @NonNull
+    private static byte[] createPhoto(@NonNull Bitmap.CompressFormat format) {
+        Bitmap bitmap = Bitmap.createBitmap(PHOTO_WIDTH, PHOTO_HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.WHITE);
+        Paint paint = new Paint();
+        paint.setColor(Color.BLUE);
+        canvas.drawCircle(PHOTO_WIDTH / 2f, PHOTO_HEIGHT / 2f, PHOTO_HEIGHT / 3f, paint);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(format, 90, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    /**
+     * Host graphics can not decode from file descriptor,
+     * descriptors are reported as not seekable, so that image is decoded from streams
+     */
+    @Implements(value = Os.class, isInAndroidSdk = false)
+    public static class ShadowPipeOs {
+        @Implementation
+        protected static long lseek(FileDescriptor fd, long offset, int whence) throws ErrnoException {
+            throw new ErrnoException("lseek", OsConstants.ESPIPE);
+        }
+    }
+}
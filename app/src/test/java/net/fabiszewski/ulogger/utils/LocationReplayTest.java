@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocationReplayTest {
+
+    private static final int FIX_COUNT = 500;
+    private static final long FIX_INTERVAL_MILLIS = 1000;
+
+    private HandlerThread thread;
+    private Handler handler;
+
+    @Before
+    public void setUp() {
+        thread = new HandlerThread("ReplayTestThread");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    @After
+    public void tearDown() {
+        thread.quit();
+    }
+
+    @Test
+    public void replayDerivesElapsedRealtimeFromFixTimes() throws InterruptedException {
+        List<Location> received = new ArrayList<>();
+        ListSource source = new ListSource(FIX_COUNT);
+        CountDownLatch finished = new CountDownLatch(1);
+        LocationReplay replay = new LocationReplay(source, received::add, handler, 0,
+                (count, elapsedMillis) -> finished.countDown());
+        replay.start();
+
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+        assertEquals(FIX_COUNT, received.size());
+        for (int i = 1; i < received.size(); i++) {
+            long nanos = received.get(i).getElapsedRealtimeNanos() - received.get(i - 1).getElapsedRealtimeNanos();
+            assertEquals(FIX_INTERVAL_MILLIS * 1000000, nanos);
+        }
+    }
+
+    @Test
+    public void replayBoundsPendingFixes() throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+        ListSource source = new ListSource(FIX_COUNT) {
+            @Override
+            public Location next() {
+                // replay reads next fix only after previous one was posted
+                int posted = getReadCount();
+                maxPending = Math.max(maxPending, posted - processed.get());
+                return super.next();
+            }
+        };
+        LocationListener slowListener = location -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.incrementAndGet();
+        };
+        CountDownLatch finished = new CountDownLatch(1);
+        LocationReplay replay = new LocationReplay(source, slowListener, handler, 0,
+                (count, elapsedMillis) -> finished.countDown());
+        replay.start();
+
+        assertTrue(finished.await(60, TimeUnit.SECONDS));
+        assertEquals(FIX_COUNT, processed.get());
+        assertTrue("pending fixes: " + source.maxPending, source.maxPending <= 64);
+        assertTrue(source.closed);
+    }
+
+    /**
+     * Source of generated fixes spaced by fixed interval
+     */
+    private static class ListSource implements LocationReplay.Source {
+        private final List<Location> locations = new ArrayList<>();
+        private int index = 0;
+        int maxPending = 0;
+        boolean closed = false;
+
+        ListSource(int count) {
+            long time = 1700000000000L;
+            for (int i = 0; i < count; i++) {
+                Location location = new Location(LocationManager.GPS_PROVIDER);
+                location.setLatitude(52.0 + i * 0.0001);
+                location.setLongitude(21.0);
+                location.setAccuracy(5);
+                location.setTime(time + i * FIX_INTERVAL_MILLIS);
+                locations.add(location);
+            }
+        }
+
+        int getReadCount() {
+            return index;
+        }
+
+        @Override
+        public Location next() {
+            return index < locations.size() ? locations.get(index++) : null;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2026 Bartek Fabiszewski
+ * http://www.fabiszewski.net
+ *
+ * This file is part of μlogger-android.
+ * Licensed under GPL, either version 3, or any later.
+ * See <http://www.gnu.org/licenses/>
+ */
+
+package net.fabiszewski.ulogger.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+
+@RunWith(RobolectricTestRunner.class)
+public class ThumbnailCacheTest {
+
+    private Context context;
+    private ThumbnailCache cache;
+    private Uri uri;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.getApplication();
+        cache = ThumbnailCache.getInstance(context);
+        cache.clear();
+        File image = new File(context.getFilesDir(), "image.jpg");
+        assertTrue(image.isFile() || image.createNewFile());
+        uri = Uri.fromFile(image);
+    }
+
+    @Test
+    public void servesPutThumbnailFromMemory() {
+        Bitmap bitmap = Bitmap.createBitmap(16, 16, Bitmap.Config.ARGB_8888);
+        cache.put(context, uri, bitmap);
+        assertEquals(bitmap, cache.get(context, uri));
+        assertNull(cache.get(context, Uri.fromFile(new File(context.getFilesDir(), "other.jpg"))));
+    }
+
+    @Test
+    public void clearingTrackImagesRemovesThumbnails() {
+        cache.put(context, uri, Bitmap.createBitmap(16, 16, Bitmap.Config.ARGB_8888));
+
+        ImageHelper.clearTrackImages(context);
+
+        // memory miss falls back to disk tier, so both must be empty
+        assertNull(cache.get(context, uri));
+    }
+}